@@ -0,0 +1,39 @@
+package battleship;
+
+import java.util.Random;
+
+// Shared board fixtures for the benchmarks.
+final class BenchBoards {
+    private BenchBoards() {}
+
+    // board of the given size with the standard fleet placed at random
+    static Board withFleet(int size, Random rnd) {
+        Board b = new Board(size, size);
+        for (ShipType type : ShipType.values()) {
+            boolean placed = false;
+            while (!placed) {
+                placed = b.placeShip(type, Pos.of(rnd.nextInt(size), rnd.nextInt(size)), rnd.nextBoolean());
+            }
+        }
+        return b;
+    }
+
+    // fires at the first half of the board in row-major order, a late-game worst case for row scans
+    static void fireFirstHalf(Board b) {
+        int half = b.rows() * b.cols() / 2;
+        for (int i = 0; i < half; i++) b.fireAt(Pos.of(i / b.cols(), i % b.cols()));
+    }
+
+    // every cell of the board in a random order
+    static Pos[] shuffledCells(int size, Random rnd) {
+        Pos[] cells = new Pos[size * size];
+        for (int i = 0; i < cells.length; i++) cells[i] = Pos.of(i / size, i % size);
+        for (int i = cells.length - 1; i > 0; i--) {
+            int j = rnd.nextInt(i + 1);
+            Pos t = cells[i];
+            cells[i] = cells[j];
+            cells[j] = t;
+        }
+        return cells;
+    }
+}
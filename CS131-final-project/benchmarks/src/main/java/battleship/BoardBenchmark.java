@@ -0,0 +1,107 @@
+package battleship;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BoardBenchmark {
+
+    @Param({"8", "32", "256", "1024"})
+    int size;
+
+    private final Random rnd = new Random(42);
+
+    // fireAt cycles through every cell in random order, then starts over on a fresh board
+    private Board fireBoard;
+    private Pos[] fireOrder;
+    private int nextShot;
+
+    // placeShip tiles destroyers across the board row by row, then starts over
+    private Board placeBoard;
+    private int nextPlacement;
+
+    private Board midGame;
+    private int nextProbe; // probes go to the half of fireOrder that midGame has not fired at
+    private final Pos[] volley = new Pos[5];
+    private final List<Pos> volleyView = Arrays.asList(volley);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fireOrder = BenchBoards.shuffledCells(size, rnd);
+        fireBoard = BenchBoards.withFleet(size, rnd);
+        placeBoard = new Board(size, size);
+        midGame = BenchBoards.withFleet(size, rnd);
+        for (int i = 0; i < fireOrder.length / 2; i++) midGame.fireAt(fireOrder[i]);
+    }
+
+    @Benchmark
+    public FireResult fireAt() {
+        if (nextShot == fireOrder.length) {
+            fireBoard = BenchBoards.withFleet(size, rnd);
+            nextShot = 0;
+        }
+        return fireBoard.fireAt(fireOrder[nextShot++]);
+    }
+
+    @Benchmark
+    public boolean placeShip() {
+        int perRow = size / ShipType.Destroyer.size;
+        if (nextPlacement == perRow * size) {
+            placeBoard = new Board(size, size);
+            nextPlacement = 0;
+        }
+        int row = nextPlacement / perRow;
+        int col = (nextPlacement % perRow) * ShipType.Destroyer.size;
+        nextPlacement++;
+        return placeBoard.placeShip(ShipType.Destroyer, Pos.of(row, col), true);
+    }
+
+    // one hypothetical shot on the mid-game board and taking it back, as a search does
+    @Benchmark
+    public FireResult fireAndUndo() {
+        FireResult r = midGame.fireAt(probe());
+        midGame.undo();
+        return r;
+    }
+
+    // copy-on-write copy of the mid-game board followed by the shot that forces the copy
+    @Benchmark
+    public FireResult copyAndFire() {
+        Board b = midGame.copy();
+        return b.fireAt(probe());
+    }
+
+    // a five-shot salvo on the mid-game board, resolved in one call and then taken back
+    @Benchmark
+    public FireResult[] salvo() {
+        for (int i = 0; i < volley.length; i++) volley[i] = probe();
+        int mark = midGame.snapshot();
+        FireResult[] r = midGame.fireAt(volleyView);
+        midGame.restore(mark);
+        return r;
+    }
+
+    private Pos probe() {
+        int half = fireOrder.length / 2;
+        return fireOrder[half + nextProbe++ % (fireOrder.length - half)];
+    }
+
+    @Benchmark
+    public boolean allShipsSunk() {
+        return midGame.allShipsSunk();
+    }
+
+    @Benchmark
+    public String toDisplayString() {
+        return midGame.toDisplayString(true);
+    }
+}
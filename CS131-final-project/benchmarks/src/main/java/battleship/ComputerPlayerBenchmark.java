@@ -0,0 +1,38 @@
+package battleship;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+// makeMove on a board whose first half has already been fired at.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ComputerPlayerBenchmark {
+
+    @Param({"8", "32", "256", "1024"})
+    int size;
+
+    @Param({"EASY", "MEDIUM", "HARD", "EXPERT"})
+    ComputerPlayer.Difficulty difficulty;
+
+    private ComputerPlayer cpu;
+    private Board target;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random rnd = new Random(42);
+        cpu = new ComputerPlayer("bench", difficulty, rnd);
+        target = BenchBoards.withFleet(size, rnd);
+        BenchBoards.fireFirstHalf(target);
+    }
+
+    @Benchmark
+    public Pos makeMove() {
+        return cpu.makeMove(target);
+    }
+}
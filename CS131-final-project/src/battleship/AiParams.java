@@ -0,0 +1,142 @@
+package battleship;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Random;
+
+// The knobs of the built-in strategies. MEDIUM, HARD and EXPERT are presets of these;
+// Tuner searches the rest of the space and saves what it finds as a profile, a
+// properties file with one key per field. Keys a profile leaves out keep the preset
+// of its family, so a hand-written profile only needs the values it changes.
+final class AiParams {
+    enum Family { HUNT, DENSITY }
+
+    // the four neighbours of a hit, in the order an unparameterised hunt tried them
+    static final int[][] DELTAS = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+
+    final Family family;
+    // HUNT: hunt on cells with (row + col) % spacing == 0; 1 hunts everywhere
+    final int paritySpacing;
+    // HUNT: widen the spacing to the shortest ship still afloat once that is longer
+    final boolean adaptiveParity;
+    // HUNT: permutation (0..23) of DELTAS giving the order neighbours of a hit are queued
+    final int neighbourOrder;
+    // HUNT: after two hits side by side, extend that line before other neighbours
+    final boolean followLine;
+    // DENSITY: in target mode a placement through h open hits weighs h^hitExponent
+    final double hitExponent;
+    // DENSITY: in hunt mode a placement of length L counts L^lengthExponent
+    final double lengthExponent;
+    // an EndgameSolver takes over at this many consistent layouts; 0 never
+    final int endgameLayouts;
+
+    // MEDIUM plays without the endgame solver so the ladder keeps a step between it and HARD
+    static final AiParams MEDIUM = new AiParams(Family.HUNT, 1, false, 0, false, 2, 0, 0);
+    static final AiParams HARD = new AiParams(Family.HUNT, 2, false, 0, false, 2, 0, 24);
+    static final AiParams EXPERT = new AiParams(Family.DENSITY, 1, false, 0, false, 2, 0, 0);
+
+    AiParams(Family family, int paritySpacing, boolean adaptiveParity, int neighbourOrder, boolean followLine,
+             double hitExponent, double lengthExponent, int endgameLayouts) {
+        if (paritySpacing < 1) throw new IllegalArgumentException("Bad parity spacing: " + paritySpacing);
+        if (neighbourOrder < 0 || neighbourOrder >= 24) throw new IllegalArgumentException("Bad neighbour order: " + neighbourOrder);
+        if (endgameLayouts < 0 || endgameLayouts > 64) throw new IllegalArgumentException("Bad endgame layouts: " + endgameLayouts);
+        this.family = family;
+        this.paritySpacing = paritySpacing;
+        this.adaptiveParity = adaptiveParity;
+        this.neighbourOrder = neighbourOrder;
+        this.followLine = followLine;
+        this.hitExponent = hitExponent;
+        this.lengthExponent = lengthExponent;
+        this.endgameLayouts = endgameLayouts;
+    }
+
+    static AiParams preset(Family family) {
+        return family == Family.HUNT ? HARD : EXPERT;
+    }
+
+    TargetingStrategy newStrategy(Random rnd) {
+        TargetingStrategy s = baseStrategy(rnd);
+        return endgameLayouts > 0 ? new EndgameTargeting(s, endgameLayouts) : s;
+    }
+
+    // the strategy without the endgame solver
+    TargetingStrategy baseStrategy(Random rnd) {
+        return family == Family.HUNT ? new HuntTargeting(rnd, this) : new DensityTargeting(rnd, this);
+    }
+
+    // DELTAS in neighbourOrder, decoded as a Lehmer code
+    int[][] neighbours() {
+        int[][] left = DELTAS.clone(), out = new int[4][];
+        int code = neighbourOrder, n = 4;
+        for (int i = 0; i < 4; i++, n--) {
+            int f = factorial(n - 1), pick = code / f;
+            code %= f;
+            out[i] = left[pick];
+            for (int j = pick; j < n - 1; j++) left[j] = left[j + 1];
+        }
+        return out;
+    }
+
+    private static int factorial(int n) {
+        return n <= 1 ? 1 : n * factorial(n - 1);
+    }
+
+    static AiParams load(Path file) throws IOException {
+        Properties p = new Properties();
+        try (Reader in = Files.newBufferedReader(file)) {
+            p.load(in);
+        }
+        try {
+            AiParams d = preset(Family.valueOf(p.getProperty("family", "HUNT").trim().toUpperCase()));
+            return new AiParams(d.family,
+                                Integer.parseInt(p.getProperty("paritySpacing", "" + d.paritySpacing).trim()),
+                                Boolean.parseBoolean(p.getProperty("adaptiveParity", "" + d.adaptiveParity).trim()),
+                                Integer.parseInt(p.getProperty("neighbourOrder", "" + d.neighbourOrder).trim()),
+                                Boolean.parseBoolean(p.getProperty("followLine", "" + d.followLine).trim()),
+                                Double.parseDouble(p.getProperty("hitExponent", "" + d.hitExponent).trim()),
+                                Double.parseDouble(p.getProperty("lengthExponent", "" + d.lengthExponent).trim()),
+                                Integer.parseInt(p.getProperty("endgameLayouts", "" + d.endgameLayouts).trim()));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Bad profile " + file + ": " + e.getMessage());
+        }
+    }
+
+    void store(Path file, String comment) throws IOException {
+        try (Writer out = Files.newBufferedWriter(file)) {
+            out.write("# " + comment + "\n");
+            out.write(toString());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "family=" + family + "\n"
+               + "paritySpacing=" + paritySpacing + "\n"
+               + "adaptiveParity=" + adaptiveParity + "\n"
+               + "neighbourOrder=" + neighbourOrder + "\n"
+               + "followLine=" + followLine + "\n"
+               + "hitExponent=" + hitExponent + "\n"
+               + "lengthExponent=" + lengthExponent + "\n"
+               + "endgameLayouts=" + endgameLayouts + "\n";
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof AiParams)) return false;
+        AiParams p = (AiParams) o;
+        return family == p.family && paritySpacing == p.paritySpacing && adaptiveParity == p.adaptiveParity
+               && neighbourOrder == p.neighbourOrder && followLine == p.followLine && hitExponent == p.hitExponent
+               && lengthExponent == p.lengthExponent && endgameLayouts == p.endgameLayouts;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(family, paritySpacing, adaptiveParity, neighbourOrder, followLine, hitExponent,
+                            lengthExponent, endgameLayouts);
+    }
+}
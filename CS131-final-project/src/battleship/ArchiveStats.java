@@ -0,0 +1,144 @@
+package battleship;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.stream.IntStream;
+
+// Bulk analytics over a GameArchive. Segments are scanned in parallel straight from
+// the mapped file; every worker folds entries into its own ArchiveStats and the results are
+// merged at the end, so no per-game objects are created.
+//
+//   java battleship.ArchiveStats <archive>
+public final class ArchiveStats {
+    private static final int KINDS = 256;
+    private static final ShipType[] TYPES = ShipType.values();
+
+    final long[] played = new long[KINDS];
+    final long[] won = new long[KINDS];
+    long games, draws;
+    long[] shotsToWin = new long[64];
+    final long[][] shotsToSink = new long[TYPES.length][64];
+
+    public static ArchiveStats of(GameArchive.Reader archive) {
+        return IntStream.range(0, archive.segmentCount()).parallel()
+            .mapToObj(s -> {
+                ArchiveStats st = new ArchiveStats();
+                try {
+                    archive.scanSegment(s, st::add);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return st;
+            })
+            .reduce(ArchiveStats::merge)
+            .orElseGet(ArchiveStats::new);
+    }
+
+    void add(GameArchive.Entry e) {
+        games++;
+        int k1 = e.player1(), k2 = e.player2(), winner = e.winner();
+        played[k1]++;
+        played[k2]++;
+        if (winner == 1) {
+            won[k1]++;
+            shotsToWin = count(shotsToWin, e.shots1());
+        } else if (winner == 2) {
+            won[k2]++;
+            shotsToWin = count(shotsToWin, e.shots2());
+        } else {
+            draws++;
+        }
+        for (int i = 0, n = e.sinks(); i < n; i++) {
+            int t = e.sinkType(i).ordinal();
+            shotsToSink[t] = count(shotsToSink[t], e.sinkShot(i));
+        }
+    }
+
+    private static long[] count(long[] hist, int v) {
+        if (v >= hist.length) hist = java.util.Arrays.copyOf(hist, Math.max(v + 1, hist.length * 2));
+        hist[v]++;
+        return hist;
+    }
+
+    ArchiveStats merge(ArchiveStats o) {
+        games += o.games;
+        draws += o.draws;
+        for (int k = 0; k < KINDS; k++) {
+            played[k] += o.played[k];
+            won[k] += o.won[k];
+        }
+        shotsToWin = sum(shotsToWin, o.shotsToWin);
+        for (int t = 0; t < TYPES.length; t++) shotsToSink[t] = sum(shotsToSink[t], o.shotsToSink[t]);
+        return this;
+    }
+
+    private static long[] sum(long[] a, long[] b) {
+        if (b.length > a.length) a = java.util.Arrays.copyOf(a, b.length);
+        for (int i = 0; i < b.length; i++) a[i] += b[i];
+        return a;
+    }
+
+    public long games() { return games; }
+
+    // share of the games a player kind took part in that it won (a mirror match counts twice)
+    public double winRate(int kind) { return played[kind] == 0 ? 0 : (double) won[kind] / played[kind]; }
+
+    static double mean(long[] hist) {
+        long n = 0, sum = 0;
+        for (int v = 0; v < hist.length; v++) {
+            n += hist[v];
+            sum += v * hist[v];
+        }
+        return n == 0 ? 0 : (double) sum / n;
+    }
+
+    static int percentile(long[] hist, double fraction) {
+        long n = 0;
+        for (long c : hist) n += c;
+        if (n == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(fraction * n)), seen = 0;
+        for (int v = 0; v < hist.length; v++) {
+            seen += hist[v];
+            if (seen >= rank) return v;
+        }
+        return hist.length - 1;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("games=%d  draws=%d%n", games, draws));
+        sb.append("win rate by player:\n");
+        for (int k = 0; k < KINDS; k++) {
+            if (played[k] == 0) continue;
+            sb.append(String.format("  %-11s %6.2f%%  (%d of %d)%n", GameArchive.kindName(k), 100 * winRate(k),
+                                    won[k], played[k]));
+        }
+        sb.append(String.format("shots to win: mean=%.2f  p50=%d  p90=%d  p99=%d%n", mean(shotsToWin),
+                                percentile(shotsToWin, 0.5), percentile(shotsToWin, 0.9), percentile(shotsToWin, 0.99)));
+        sb.append("shots to sink, by ship type:\n");
+        for (ShipType t : TYPES) {
+            long[] h = shotsToSink[t.ordinal()];
+            long n = 0;
+            for (long c : h) n += c;
+            if (n == 0) continue;
+            sb.append(String.format("  %-11s mean=%6.2f  p10=%d  p50=%d  p90=%d  (%d sunk)%n", t.name(), mean(h),
+                                    percentile(h, 0.1), percentile(h, 0.5), percentile(h, 0.9), n));
+        }
+        return sb.toString();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("usage: ArchiveStats <archive>");
+            return;
+        }
+        try (GameArchive.Reader archive = new GameArchive.Reader(Paths.get(args[0]))) {
+            long start = System.nanoTime();
+            ArchiveStats s = of(archive);
+            System.out.print(s);
+            System.out.printf("scanned %d games in %.2fs%n", s.games(), (System.nanoTime() - start) / 1e9);
+        }
+    }
+}
@@ -2,45 +2,77 @@ package battleship;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
-import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.FlowLayout;
 import java.awt.BorderLayout;
-import java.awt.GridLayout;
-import java.awt.event.*;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.awt.Font;
 
 public class BattleshipGUI {
-    private static final int SIZE = 8;
-    private static final Color SUNK_RED = new Color(139, 0, 0);
+    // how long the CPU may think before a random untried cell is played instead
+    private static final long CPU_MOVE_BUDGET_MS = 2000;
+    // the human's name in JFR events and the PlacementModel
+    private static final String PLAYER = "Player";
 
+    private int rows;
+    private int cols;
     private Board playerBoard;
     private Board computerBoard;
 
-    private final JButton[][] playerButtons = new JButton[SIZE][SIZE];
-    private final JButton[][] computerButtons = new JButton[SIZE][SIZE];
+    private final BoardView playerView;
+    private final BoardView computerView;
     private final JLabel status = new JLabel("Welcome! Place your ships to begin.");
     private final JButton orientToggle = new JButton("Orientation: Horizontal");
+    private final JProgressBar thinking = new JProgressBar();
 
     private boolean setupPhase = true;
     private boolean horizontal = true;
-    private final ShipType[] shipsToPlace = {
-        ShipType.Carrier, ShipType.Battleship, ShipType.Cruiser,
-        ShipType.Submarine, ShipType.Destroyer
-    };
+    private final Fleet fleet;
     private int currentShipIndex = 0;
     private boolean playerTurn = true;
 
-    public enum Difficulty { EASY, MEDIUM, HARD }
-    private Difficulty difficulty = Difficulty.MEDIUM;
+    private ComputerPlayer.Difficulty difficulty = ComputerPlayer.Difficulty.MEDIUM;
+
+    // Salvo rules: one shot per surviving ship each turn. The menu choice applies from
+    // the next game; the player's picks are collected in volley until it is full.
+    private boolean salvoRules;
+    private boolean salvo;
+    private final List<Pos> volley = new ArrayList<>();
 
     private final Random rng = new Random();
 
+    // same AI engine the console game uses, rebuilt for every game
+    private ComputerPlayer cpu;
+
+    // Every call into the CPU player runs on this one thread, so a move that overran
+    // its budget is interrupted and stops before the player is told about the next
+    // result. Replaced on reset, which also stops whatever the old game left running.
+    private ExecutorService cpuExecutor = newCpuExecutor();
+    private SwingWorker<List<Pos>, Void> cpuTurn; // pending CPU move, null between turns
+
+    // board1 is the player's, board2 the CPU's; saved on request once the game is over
+    private GameLog.Recorder record;
+    private boolean gameOver;
+
     public BattleshipGUI() {
+        this(8, 8, Fleet.standard());
+    }
+
+    public BattleshipGUI(int rows, int cols, Fleet fleet) {
+        this.rows = rows;
+        this.cols = cols;
+        this.fleet = fleet;
         initGame();
+        playerView = new BoardView(playerBoard, true);
+        computerView = new BoardView(computerBoard, false);
 
         JFrame frame = new JFrame("Battleship");
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -56,18 +88,29 @@ public class BattleshipGUI {
         JMenuItem newGameItem = new JMenuItem("New Game");
         newGameItem.addActionListener(e -> resetGame());
         gameMenu.add(newGameItem);
+        JMenuItem sizeItem = new JMenuItem("Board Size...");
+        sizeItem.addActionListener(e -> askBoardSize(frame));
+        gameMenu.add(sizeItem);
+        JMenuItem saveLogItem = new JMenuItem("Save Game Log...");
+        saveLogItem.addActionListener(e -> saveGameLog(frame));
+        gameMenu.add(saveLogItem);
 
         JMenu diffMenu = new JMenu("Difficulty");
         ButtonGroup diffGroup = new ButtonGroup();
-        for (Difficulty d : Difficulty.values()) {
+        for (ComputerPlayer.Difficulty d : ComputerPlayer.Difficulty.values()) {
             JRadioButtonMenuItem item = new JRadioButtonMenuItem(d.name());
             if (d == difficulty) item.setSelected(true);
             item.addActionListener(ev -> setDifficulty(d));
             diffGroup.add(item);
             diffMenu.add(item);
         }
+        JMenu rulesMenu = new JMenu("Rules");
+        JCheckBoxMenuItem salvoItem = new JCheckBoxMenuItem("Salvo (one shot per ship afloat)");
+        salvoItem.addActionListener(e -> setSalvo(salvoItem.isSelected()));
+        rulesMenu.add(salvoItem);
         menuBar.add(gameMenu);
         menuBar.add(diffMenu);
+        menuBar.add(rulesMenu);
         frame.setJMenuBar(menuBar);
 
         // Top bar
@@ -87,10 +130,20 @@ public class BattleshipGUI {
         JLabel playerTitle = new JLabel("Your Board", SwingConstants.CENTER);
         playerTitle.setFont(playerTitle.getFont().deriveFont(Font.BOLD, 16f));
         playerWrapper.add(playerTitle, BorderLayout.NORTH);
-        JPanel playerPanel = new JPanel(new GridLayout(SIZE, SIZE, 3, 3));
-        playerPanel.setBorder(new EmptyBorder(10, 10, 10, 10));
-        initPlayerGrid(playerPanel);
-        playerWrapper.add(playerPanel, BorderLayout.CENTER);
+        playerView.setBorder(new EmptyBorder(10, 10, 10, 10));
+        playerView.setListener(new BoardView.Listener() {
+            @Override
+            public void cellClicked(int row, int col) {
+                if (setupPhase) placeShipAt(row, col, horizontal);
+            }
+            @Override
+            public void cellHovered(int row, int col) {
+                if (!setupPhase) return;
+                if (row < 0) playerView.clearPreview();
+                else previewPlacement(row, col, horizontal);
+            }
+        });
+        playerWrapper.add(playerView, BorderLayout.CENTER);
 
         boardsRow.add(playerWrapper);
         boardsRow.add(Box.createRigidArea(new Dimension(60, 0)));
@@ -100,10 +153,11 @@ public class BattleshipGUI {
         JLabel cpuTitle = new JLabel("CPU Board", SwingConstants.CENTER);
         cpuTitle.setFont(cpuTitle.getFont().deriveFont(Font.BOLD, 16f));
         cpuWrapper.add(cpuTitle, BorderLayout.NORTH);
-        JPanel cpuPanel = new JPanel(new GridLayout(SIZE, SIZE, 3, 3));
-        cpuPanel.setBorder(new EmptyBorder(10, 10, 10, 10));
-        initCpuGrid(cpuPanel);
-        cpuWrapper.add(cpuPanel, BorderLayout.CENTER);
+        computerView.setBorder(new EmptyBorder(10, 10, 10, 10));
+        computerView.setListener((row, col) -> {
+            if (!setupPhase && playerTurn) handlePlayerFire(row, col);
+        });
+        cpuWrapper.add(computerView, BorderLayout.CENTER);
 
         boardsRow.add(cpuWrapper);
 
@@ -111,7 +165,12 @@ public class BattleshipGUI {
 
         // Status bar
         status.setFont(status.getFont().deriveFont(Font.PLAIN, 14f));
-        root.add(status, BorderLayout.SOUTH);
+        thinking.setIndeterminate(true);
+        thinking.setVisible(false);
+        JPanel statusBar = new JPanel(new BorderLayout(10, 0));
+        statusBar.add(status, BorderLayout.CENTER);
+        statusBar.add(thinking, BorderLayout.EAST);
+        root.add(statusBar, BorderLayout.SOUTH);
 
         updatePlacementPrompt();
         frame.setVisible(true);
@@ -119,82 +178,84 @@ public class BattleshipGUI {
 
     // --- Game setup/reset ---
     private void initGame() {
-        playerBoard = new Board(SIZE, SIZE);
-        computerBoard = new Board(SIZE, SIZE);
+        playerBoard = new Board(rows, cols, fleet);
+        computerBoard = new Board(rows, cols, fleet);
+        cpu = new ComputerPlayer("CPU", difficulty, rng);
+        cpu.setOpponent(PLAYER);
+        playerBoard.shooter(cpu.name());
+        computerBoard.shooter(PLAYER);
         setupPhase = true;
         currentShipIndex = 0;
         playerTurn = true;
+        record = null;
+        gameOver = false;
+        salvo = salvoRules;
+        volley.clear();
     }
 
     private void resetGame() {
+        if (cpuTurn != null) cpuTurn.cancel(true);
+        cpuTurn = null;
+        cpuExecutor.shutdownNow();
+        cpuExecutor = newCpuExecutor();
+        thinking.setVisible(false);
         initGame();
-        for (int r = 0; r < SIZE; r++) {
-            for (int c = 0; c < SIZE; c++) {
-                JButton pb = playerButtons[r][c];
-                JButton cb = computerButtons[r][c];
-                if (pb != null) {
-                    pb.setText("");
-                    pb.setBackground(null);
-                    pb.setOpaque(false);
-                    pb.setContentAreaFilled(false);
-                    pb.setEnabled(true);
-                }
-                if (cb != null) {
-                    cb.setText("");
-                    cb.setBackground(null);
-                    cb.setOpaque(false);
-                    cb.setContentAreaFilled(false);
-                    cb.setEnabled(true);
-                }
-            }
-        }
+        // the views read straight from the fresh boards, nothing to restyle
+        playerView.setBoard(playerBoard);
+        computerView.setBoard(computerBoard);
+        computerView.setEnabled(true);
         orientToggle.setEnabled(true);
         status.setText("New game started! Place your ships.");
         updatePlacementPrompt();
     }
 
-    private void setDifficulty(Difficulty d) {
-        difficulty = d;
-        status.setText("Difficulty set to " + d.name() + ". Start a new game to apply.");
+    private void askBoardSize(JFrame frame) {
+        String in = JOptionPane.showInputDialog(frame, "Board size (rows cols):", rows + " " + cols);
+        if (in == null) return;
+        String[] parts = in.trim().split("\\s+");
+        try {
+            int r = Integer.parseInt(parts[0]);
+            int c = parts.length > 1 ? Integer.parseInt(parts[1]) : r;
+            if (r <= 0 || c <= 0 || r > 1000 || c > 1000 || !fleet.fits(r, c))
+                throw new IllegalArgumentException();
+            rows = r;
+            cols = c;
+            resetGame();
+        } catch (RuntimeException e) {
+            status.setText("Invalid board size: " + in);
+        }
     }
 
-    // --- Player board setup ---
-    private void initPlayerGrid(JPanel container) {
-        for (int r = 0; r < SIZE; r++) {
-            for (int c = 0; c < SIZE; c++) {
-                JButton btn = new JButton();
-                playerButtons[r][c] = btn;
-                final int row = r, col = c;
-                btn.addActionListener(e -> {
-                    if (setupPhase) placeShipAt(row, col, horizontal);
-                });
-                btn.addMouseListener(new MouseAdapter() {
-                    @Override
-                    public void mouseEntered(MouseEvent e) {
-                        if (setupPhase) previewPlacement(row, col, horizontal);
-                    }
-                    @Override
-                    public void mouseExited(MouseEvent e) {
-                        if (setupPhase) clearPreview();
-                    }
-                });
-                container.add(btn);
-            }
-        }
+    private void endGame(int winner) {
+        gameOver = true;
+        record.end(winner);
+        PlacementModel.shared().record(PLAYER, playerBoard);
     }
 
-    private void initCpuGrid(JPanel container) {
-        for (int r = 0; r < SIZE; r++) {
-            for (int c = 0; c < SIZE; c++) {
-                JButton btn = new JButton();
-                computerButtons[r][c] = btn;
-                final int row = r, col = c;
-                btn.addActionListener(e -> {
-                    if (!setupPhase && playerTurn) handlePlayerFire(row, col);
-                });
-                container.add(btn);
-            }
+    private void saveGameLog(JFrame frame) {
+        if (!gameOver) {
+            status.setText("Finish the game before saving its log.");
+            return;
         }
+        JFileChooser chooser = new JFileChooser();
+        chooser.setSelectedFile(new java.io.File("battleship-game.bslog"));
+        if (chooser.showSaveDialog(frame) != JFileChooser.APPROVE_OPTION) return;
+        try (GameLog log = new GameLog(chooser.getSelectedFile().toPath())) {
+            log.append(record);
+            status.setText("Game log saved to " + chooser.getSelectedFile() + " (" + record.turns() + " shots).");
+        } catch (java.io.IOException e) {
+            status.setText("Could not save game log: " + e.getMessage());
+        }
+    }
+
+    private void setDifficulty(ComputerPlayer.Difficulty d) {
+        difficulty = d;
+        status.setText("Difficulty set to " + d.name() + ". Start a new game to apply.");
+    }
+
+    private void setSalvo(boolean on) {
+        salvoRules = on;
+        status.setText("Salvo rules " + (on ? "on" : "off") + ". Start a new game to apply.");
     }
 
     private void toggleOrientation() {
@@ -205,321 +266,221 @@ public class BattleshipGUI {
 
     private void updatePlacementPrompt() {
         if (setupPhase) {
-            ShipType next = shipsToPlace[currentShipIndex];
-            status.setText("Place " + next.name() + " (size " + next.size + ") - " +
+            status.setText("Place " + fleet.type(currentShipIndex).name() + " (size " + fleet.size(currentShipIndex) + ") - " +
                            (horizontal ? "Horizontal" : "Vertical"));
         }
     }
 
     // --- Placement preview ---
     private void previewPlacement(int row, int col, boolean horiz) {
-        clearPreview();
-        ShipType type = shipsToPlace[currentShipIndex];
-        boolean valid = canPlace(type, row, col, horiz);
-        Color color = valid ? new Color(0, 180, 0) : new Color(200, 50, 50);
-        for (int i = 0; i < type.size; i++) {
-            int rr = row + (horiz ? 0 : i);
-            int cc = col + (horiz ? i : 0);
-            if (inBounds(rr, cc)) {
-                JButton btn = playerButtons[rr][cc];
-                btn.setOpaque(true);
-                btn.setContentAreaFilled(true);
-                btn.setBackground(color);
-            }
-        }
-    }
-
-    private void clearPreview() {
-        Color green = new Color(0, 180, 0);
-        Color red = new Color(200, 50, 50);
-        for (int r = 0; r < SIZE; r++) {
-            for (int c = 0; c < SIZE; c++) {
-                JButton btn = playerButtons[r][c];
-                Color bg = btn.getBackground();
-                if (bg != null && (bg.equals(green) || bg.equals(red))) {
-                    btn.setBackground(null);
-                    btn.setOpaque(false);
-                    btn.setContentAreaFilled(false);
-                }
-            }
-        }
+        int size = fleet.size(currentShipIndex);
+        playerView.showPreview(row, col, size, horiz, canPlace(size, row, col, horiz));
     }
 
     // --- Ship placement ---
     private void placeShipAt(int row, int col, boolean horiz) {
-        ShipType type = shipsToPlace[currentShipIndex];
-        boolean placed = playerBoard.placeShip(type, new Pos(row, col), horiz);
+        boolean placed = playerBoard.placeShip(fleet.type(currentShipIndex), fleet.size(currentShipIndex),
+                                               Pos.of(row, col), horiz);
         if (!placed) {
             status.setText("Invalid placement (collision or out-of-bounds). Try again.");
             return;
         }
-        applyShipStyle(type, row, col, horiz);
+        playerView.clearPreview();
+        playerView.repaintShip(playerBoard.shipAt(playerBoard.cellIndex(Pos.of(row, col))));
 
         currentShipIndex++;
-        clearPreview();
-        if (currentShipIndex >= shipsToPlace.length) {
+        if (currentShipIndex >= fleet.shipCount()) {
             setupPhase = false;
             orientToggle.setEnabled(false);
-            cpuPlaceShips();
-            status.setText("All ships placed! Your turn. Click CPU Board to fire.");
+            if (cpuPlaceShips()) {
+                record = GameLog.recorder(System.currentTimeMillis(), playerBoard, computerBoard);
+                status.setText(salvo ? "All ships placed! Your turn. " + salvoPrompt()
+                                     : "All ships placed! Your turn. Click CPU Board to fire.");
+            }
         } else {
             updatePlacementPrompt();
         }
     }
 
-    private void applyShipStyle(ShipType type, int row, int col, boolean horiz) {
-        Color shipColor;
-        String label;
-        switch (type) {
-            case Carrier -> {
-                shipColor = Color.DARK_GRAY; label = "C";
-            }
-            case Battleship -> {
-                shipColor = new Color(0, 160, 0); label = "B";
-            }
-            case Cruiser -> {
-                shipColor = new Color(255, 140, 0); label = "Cr";
-            }
-            case Submarine -> {
-                shipColor = new Color(180, 0, 180); label = "S";
-            }
-            case Destroyer -> {
-                shipColor = new Color(0, 170, 170); label = "D";
-            }
-            default -> {
-                shipColor = Color.GRAY; label = "";
-            }
-        }
-        for (int i = 0; i < type.size; i++) {
-            int rr = row + (horiz ? 0 : i);
-            int cc = col + (horiz ? i : 0);
-            if (inBounds(rr, cc)) {
-                JButton btn = playerButtons[rr][cc];
-                btn.setOpaque(true);
-                btn.setContentAreaFilled(true);
-                btn.setBackground(shipColor);
-                btn.setText(label);
-                btn.setForeground(Color.BLACK);
-                btn.setFont(btn.getFont().deriveFont(java.awt.Font.BOLD, 12f));
-            }
-        }
-    }
-
     // --- Firing & turns ---
     private void handlePlayerFire(int row, int col) {
-        Pos target = new Pos(row, col);
-        FireResult result = computerBoard.fireAt(target);
-        if (result.alreadyTried) {
+        Pos target = Pos.of(row, col);
+        if (computerBoard.cellState(target) == CellState.HIT || computerBoard.cellState(target) == CellState.MISS) {
             status.setText("Already fired at " + target + ". Try a different cell.");
             return;
         }
-
-        markShot(computerButtons[row][col], result);
-        computerButtons[row][col].setEnabled(false);
-
-        if (result.sunk) {
-            status.setText("You fired at " + target + ": SUNK " + result.sunkType.name());
-            highlightSunkShip(computerBoard, computerButtons, result.sunkType);
+        if (salvo) {
+            // clicking a picked cell again takes it back
+            boolean picked = volley.remove(target);
+            if (!picked) volley.add(target);
+            computerView.setMarked(row, col, !picked);
+            if (volley.size() < playerBoard.shipsAfloat()) {
+                status.setText(salvoPrompt());
+                return;
+            }
         } else {
-            status.setText("You fired at " + target + ": " + result);
+            volley.add(target);
         }
+        List<Pos> shots = List.copyOf(volley);
+        volley.clear();
+        if (salvo) computerView.clearMarks();
+        FireResult[] results = computerBoard.fireAt(shots);
+        record.volley(computerBoard, shots, results);
+        for (int i = 0; i < results.length; i++) showShot(computerView, computerBoard, shots.get(i), results[i]);
+        status.setText(describe("You", shots, results));
 
         if (computerBoard.allShipsSunk()) {
             status.setText("You win! All enemy ships sunk!");
-            disableBoard(computerButtons);
+            endGame(1);
+            computerView.setEnabled(false);
             return;
         }
 
         playerTurn = false;
-        handleCpuFire();
-        playerTurn = true;
+        startCpuTurn();
     }
 
-    private void handleCpuFire() {
-        Pos cpuTarget = cpuPickTarget(playerBoard);
-        FireResult cpuResult = playerBoard.fireAt(cpuTarget);
-
-        JButton btn = playerButtons[cpuTarget.row][cpuTarget.col];
-        markShot(btn, cpuResult);
+    private String salvoPrompt() {
+        int left = playerBoard.shipsAfloat() - volley.size();
+        return "Salvo: pick " + left + " more cell" + (left == 1 ? "" : "s") + " on the CPU Board.";
+    }
 
-        if (cpuResult.sunk) {
-            status.setText("CPU fired at " + cpuTarget + ": SUNK " + cpuResult.sunkType.name());
-            highlightSunkShip(playerBoard, playerButtons, cpuResult.sunkType);
-        } else {
-            status.setText("CPU fired at " + cpuTarget + ": " + cpuResult);
-        }
+    // "You fired at (1,2): HIT", or the whole salvo
+    private static String describe(String who, List<Pos> shots, FireResult[] results) {
+        if (shots.size() == 1) return who + " fired at " + shots.get(0) + ": " + results[0];
+        StringBuilder sb = new StringBuilder(who).append(" fired a salvo:");
+        for (int i = 0; i < shots.size(); i++) sb.append(i == 0 ? " " : ", ").append(shots.get(i)).append(' ').append(results[i]);
+        return sb.toString();
+    }
 
-        if (playerBoard.allShipsSunk()) {
-            status.setText("You lose! CPU sank all your ships.");
-            disableBoard(computerButtons);
-        }
+    private static ExecutorService newCpuExecutor() {
+        return Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "cpu-player");
+            t.setDaemon(true);
+            return t;
+        });
     }
 
-    private void markShot(JButton btn, FireResult result) {
-        btn.setOpaque(true);
-        btn.setContentAreaFilled(true);
-        btn.setFont(btn.getFont().deriveFont(java.awt.Font.BOLD, 16f));
-        if (result.hit) {
-            btn.setText("X");
-            btn.setForeground(Color.RED);
-            btn.setBackground(Color.BLACK);
-        } else {
-            btn.setText("O");
-            btn.setForeground(Color.BLUE);
-            btn.setBackground(Color.WHITE);
+    // Computes the CPU move in the background so the window keeps painting while the
+    // AI thinks. The player's target grid stays locked until the move is applied. A
+    // move that overruns its budget is interrupted and a random one played instead;
+    // the strategy gets a copy of the board, as it may take a moment to notice.
+    private void startCpuTurn() {
+        ComputerPlayer player = cpu;
+        ExecutorService executor = cpuExecutor;
+        Board board = playerBoard.copy();
+        int shots = salvo ? computerBoard.shipsAfloat() : 1;
+        boolean volleyTurn = salvo;
+        computerView.setEnabled(false);
+        thinking.setVisible(true);
+        status.setText(status.getText() + "  -  CPU is thinking...");
+        GameEvents.CpuTurn event = GameEvents.CPU_TURN.on() ? new GameEvents.CpuTurn() : null;
+        if (event != null) {
+            event.begin();
+            event.difficulty = difficulty.name();
+            event.shots = shots;
         }
-    }
 
-    private void highlightSunkShip(Board board, JButton[][] grid, ShipType type) {
-        for (Ship ship : board.getShips()) {
-            if (ship.type == type && ship.isSunk()) {
-                for (Pos p : ship.getPositions()) {
-                    JButton b = grid[p.row][p.col];
-                    b.setOpaque(true);
-                    b.setContentAreaFilled(true);
-                    b.setText("X");
-                    b.setForeground(Color.WHITE);
-                    b.setBackground(SUNK_RED);
-                    b.setFont(b.getFont().deriveFont(java.awt.Font.BOLD, 16f));
-                    b.setEnabled(false);
+        cpuTurn = new SwingWorker<>() {
+            @Override
+            protected List<Pos> doInBackground() throws InterruptedException {
+                Future<List<Pos>> move = executor.submit(() -> volleyTurn ? player.makeSalvo(board, shots)
+                                                                          : List.of(player.makeMove(board)));
+                try {
+                    return move.get(CPU_MOVE_BUDGET_MS, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException | ExecutionException e) {
+                    // strategies stop at their next cancellation point, state intact
+                    move.cancel(true);
+                    if (event != null) event.fallback = true;
+                    return fallbackMove(board, shots);
                 }
             }
-        }
-    }
 
-    private void disableBoard(JButton[][] board) {
-        for (int r = 0; r < SIZE; r++) {
-            for (int c = 0; c < SIZE; c++) {
-                board[r][c].setEnabled(false);
+            @Override
+            protected void done() {
+                if (isCancelled() || cpuTurn != this) return; // game was reset meanwhile
+                cpuTurn = null;
+                thinking.setVisible(false);
+                try {
+                    handleCpuFire(player, get());
+                    if (event != null) event.commit();
+                } catch (InterruptedException | ExecutionException e) {
+                    status.setText("CPU move failed: " + e.getMessage());
+                }
             }
-        }
+        };
+        cpuTurn.execute();
     }
 
-    private boolean inBounds(int r, int c) {
-        return r >= 0 && r < SIZE && c >= 0 && c < SIZE;
+    // distinct random untried cells, played when the CPU runs out of time
+    private List<Pos> fallbackMove(Board board, int shots) {
+        RemainingCells open = RemainingCells.untried(board);
+        List<Pos> out = new ArrayList<>(shots);
+        while (out.size() < shots && !open.isEmpty()) {
+            int cell = open.sample(rng);
+            open.remove(cell);
+            out.add(board.cellPos(cell));
+        }
+        return out;
     }
 
-    private boolean canPlace(ShipType type, int row, int col, boolean horiz) {
-        int endRow = row + (horiz ? 0 : type.size - 1);
-        int endCol = col + (horiz ? type.size - 1 : 0);
-        return inBounds(endRow, endCol);
-    }
+    private void handleCpuFire(ComputerPlayer player, List<Pos> targets) {
+        FireResult[] results = playerBoard.fireAt(targets);
+        record.volley(playerBoard, targets, results);
+        cpuExecutor.execute(() -> {
+            for (int i = 0; i < results.length; i++) player.informResult(targets.get(i), results[i]);
+        });
 
-    // --- CPU placement ---
-    private void cpuPlaceShips() {
-        for (ShipType type : shipsToPlace) {
-            boolean placed = false;
-            int attempts = 0;
-            while (!placed && attempts < 300) {
-                boolean horiz = rng.nextBoolean();
-                int row = rng.nextInt(SIZE);
-                int col = rng.nextInt(SIZE);
-                placed = computerBoard.placeShip(type, new Pos(row, col), horiz);
-                attempts++;
-            }
-            if (!placed) {
-                outer:
-                for (int r = 0; r < SIZE; r++) {
-                    for (int c = 0; c < SIZE; c++) {
-                        if (computerBoard.placeShip(type, new Pos(r, c), true)) { placed = true; break outer; }
-                        if (computerBoard.placeShip(type, new Pos(r, c), false)) { placed = true; break outer; }
-                    }
-                }
-            }
-        }
-    }
+        for (int i = 0; i < results.length; i++) showShot(playerView, playerBoard, targets.get(i), results[i]);
+        status.setText(describe("CPU", targets, results));
 
-    // --- CPU targeting with difficulty ---
-    private Pos cpuPickTarget(Board board) {
-        return switch (difficulty) {
-            case EASY -> cpuPickTargetEasy(board);
-            case MEDIUM -> cpuPickTargetMedium(board);
-            case HARD -> cpuPickTargetHard(board);
-            default -> cpuPickTargetEasy(board);
-        };
+        if (playerBoard.allShipsSunk()) {
+            status.setText("You lose! CPU sank all your ships.");
+            endGame(2);
+            return;
+        }
+        computerView.setEnabled(true);
+        playerTurn = true;
+        if (salvo) status.setText(status.getText() + "  -  " + salvoPrompt());
     }
 
-    private Pos cpuPickTargetEasy(Board board) {
-        @SuppressWarnings("Convert2Diamond")
-        List<Pos> candidates = new ArrayList<Pos>();
-        for (int r = 0; r < SIZE; r++) {
-            for (int c = 0; c < SIZE; c++) {
-                Pos p = new Pos(r, c);
-                CellState s = board.cellState(p);
-                if (s != CellState.HIT && s != CellState.MISS) {
-                    candidates.add(p);
-                }
-            }
-        }
-        return candidates.get(rng.nextInt(candidates.size()));
+    // repaints the shot cell, or the whole ship when the shot sank it
+    private void showShot(BoardView view, Board board, Pos target, FireResult result) {
+        if (result.sunk) view.repaintShip(board.shipAt(board.cellIndex(target)));
+        else view.repaintCell(target.row, target.col);
     }
 
-    private Pos cpuPickTargetMedium(Board board) {
-        for (int r = 0; r < SIZE; r++) {
-            for (int c = 0; c < SIZE; c++) {
-                Pos p = new Pos(r, c);
-                if (board.cellState(p) == CellState.HIT) {
-                    int[][] dirs = {{1,0},{-1,0},{0,1},{0,-1}};
-                    for (int[] d : dirs) {
-                        Pos n = new Pos(r + d[0], c + d[1]);
-                        if (board.inBounds(n)) {
-                            CellState s = board.cellState(n);
-                            if (s != CellState.HIT && s != CellState.MISS) {
-                                return n;
-                            }
-                        }
-                    }
-                }
-            }
-        }
-        return cpuPickTargetEasy(board);
+    private boolean inBounds(int r, int c) {
+        return r >= 0 && r < rows && c >= 0 && c < cols;
     }
 
-    private Pos cpuPickTargetHard(Board board) {
-        Pos hunt = tryHuntAdjacent(board);
-        if (hunt != null) return hunt;
-
-        @SuppressWarnings("Convert2Diamond")
-        List<Pos> candidates = new ArrayList<Pos>();
-        for (int r = 0; r < SIZE; r++) {
-            for (int c = 0; c < SIZE; c++) {
-                if ((r + c) % 2 == 0) {
-                    Pos p = new Pos(r, c);
-                    CellState s = board.cellState(p);
-                    if (s != CellState.HIT && s != CellState.MISS) {
-                        candidates.add(p);
-                    }
-                }
-            }
-        }
-        if (!candidates.isEmpty()) {
-            return candidates.get(rng.nextInt(candidates.size()));
+    private boolean canPlace(int size, int row, int col, boolean horiz) {
+        for (int i = 0; i < size; i++) {
+            int rr = row + (horiz ? 0 : i);
+            int cc = col + (horiz ? i : 0);
+            if (!inBounds(rr, cc) || playerBoard.cellState(Pos.of(rr, cc)) == CellState.SHIP) return false;
         }
-        return cpuPickTargetEasy(board);
+        return true;
     }
 
-    private Pos tryHuntAdjacent(Board board) {
-        for (int r = 0; r < SIZE; r++) {
-            for (int c = 0; c < SIZE; c++) {
-                Pos p = new Pos(r, c);
-                if (board.cellState(p) == CellState.HIT) {
-                    int[][] dirs = {{1,0},{-1,0},{0,1},{0,-1}};
-                    for (int[] d : dirs) {
-                        Pos n = new Pos(r + d[0], c + d[1]);
-                        if (board.inBounds(n)) {
-                            CellState s = board.cellState(n);
-                            if (s != CellState.HIT && s != CellState.MISS) {
-                                return n;
-                            }
-                        }
-                    }
-                }
-            }
+    // --- CPU placement ---
+    private boolean cpuPlaceShips() {
+        try {
+            cpu.placeShips(computerBoard);
+            return true;
+        } catch (IllegalStateException e) {
+            status.setText(e.getMessage() + ". Pick a larger board or a smaller fleet.");
+            computerView.setEnabled(false);
+            return false;
         }
-        return null;
     }
 
     public static void main(String[] args) {
-        SwingUtilities.invokeLater(BattleshipGUI::new);
+        // optional board size: "rows cols", or one number for a square board, then a fleet spec
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int cols = args.length > 1 ? Integer.parseInt(args[1]) : rows;
+        Fleet fleet = args.length > 2 ? Fleet.parse(args[2]) : Fleet.standard();
+        if (!fleet.fits(rows, cols)) throw new IllegalArgumentException("Fleet " + fleet + " does not fit on " + rows + "x" + cols);
+        SwingUtilities.invokeLater(() -> new BattleshipGUI(rows, cols, fleet));
     }
 }
\ No newline at end of file
@@ -3,83 +3,440 @@ package battleship;
 import java.util.*;
 
 public class Board {
+    // ship ids are stored in a char per cell, 0 means open water
+    static final int MAX_SHIPS = Character.MAX_VALUE;
+
     private final int rows;
     private final int cols;
-    private final CellState[][] grid;
-    private final List<Ship> ships = new ArrayList<>();
+
+    // one bit per cell, cell index = row * cols + col
+    private long[] shipMask;
+    private long[] hitMask;
+    private long[] missMask;
+    private char[] shipAt;
+    private final Fleet fleet;
+
+    private List<Ship> ships = new ArrayList<>();
+    private int[] shipHits = new int[8]; // hits taken by each ship, indexed by id - 1
+    private int shipsAfloat;
+    private String header; // column header of toDisplayString, built on first use
+    private String shooter; // who fires at this board, named in JFR events; null if no one is
+
+    // Copy-on-write: copy() and state() share these arrays instead of cloning them, and
+    // whichever side writes first takes a private copy. The layout (shipMask, shipAt,
+    // ships) is shared until a ship is placed, the shots (hit/miss masks, shipHits)
+    // until the next fireAt/undo.
+    private boolean layoutShared;
+    private boolean shotsShared;
+    // Ship objects record their own hits only on the board that placed them. A copy
+    // shares the original's Ships but never reads or writes their hits: it counts them
+    // in shipHits, and makes its own Ships from its hit mask the first time a caller
+    // asks for them (see ownShips).
+    private boolean ownsShips;
+
+    // cells fired at, most recent last, so undo() can take them back
+    private static final int[] NO_SHOTS = {};
+    private int[] journal = NO_SHOTS;
+    private int shots;
 
     public Board(int rows, int cols) {
+        this(rows, cols, Fleet.standard());
+    }
+
+    // fleet is the set of ships this board is played with; the AI reads it to know what to hunt for
+    public Board(int rows, int cols, Fleet fleet) {
+        if (rows <= 0 || cols <= 0 || (long) rows * cols > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Bad board size: " + rows + "x" + cols);
         this.rows = rows;
         this.cols = cols;
-        grid = new CellState[rows][cols];
-        for (int r = 0; r < rows; r++)
-            Arrays.fill(grid[r], CellState.EMPTY);
+        int cells = rows * cols;
+        int words = (cells + 63) >>> 6;
+        shipMask = new long[words];
+        hitMask = new long[words];
+        missMask = new long[words];
+        shipAt = new char[cells];
+        this.fleet = Objects.requireNonNull(fleet, "fleet");
+        ownsShips = true;
+    }
+
+    // a board that starts from a state; used by copy() and BoardState.toBoard()
+    Board(BoardState st) {
+        rows = st.rows;
+        cols = st.cols;
+        fleet = st.fleet;
+        shipMask = st.shipMask;
+        shipAt = st.shipAt;
+        ships = st.ships;
+        hitMask = st.hitMask;
+        missMask = st.missMask;
+        shipHits = st.shipHits;
+        shipsAfloat = st.shipsAfloat;
+        layoutShared = shotsShared = true;
+        ownsShips = false;
+    }
+
+    // An independent board with the same ships and shots. O(1): the arrays are shared
+    // until either board changes. The copy starts with an empty undo history.
+    public Board copy() {
+        return new Board(state());
+    }
+
+    // Immutable view of the board as it is now, safe to hand to other threads.
+    public BoardState state() {
+        layoutShared = shotsShared = true;
+        return new BoardState(rows, cols, fleet, shipMask, shipAt, ships, hitMask, missMask, shipHits, shipsAfloat);
     }
 
     public int rows() { return rows; }
     public int cols() { return cols; }
+    public Fleet fleet() { return fleet; }
 
     public boolean inBounds(Pos p) {
         return p.row >= 0 && p.row < rows && p.col >= 0 && p.col < cols;
     }
 
+    // packed cell index (row * cols + col), the coordinate form used by the engine internals
+    public int cellIndex(Pos p) { return p.row * cols + p.col; }
+    public Pos cellPos(int cell) { return Pos.of(cell / cols, cell % cols); }
+
     public boolean placeShip(ShipType type, Pos start, boolean horizontal) {
-        List<Pos> pos = new ArrayList<>();
-        for (int i = 0; i < type.size; i++) {
-            Pos p = horizontal ? new Pos(start.row, start.col + i) : new Pos(start.row + i, start.col);
-            if (!inBounds(p)) return false;
-            if (grid[p.row][p.col] != CellState.EMPTY) return false; // avoid overlap
-            pos.add(p);
-        }
-        for (Pos p : pos) grid[p.row][p.col] = CellState.SHIP;
-        @SuppressWarnings("UnnecessaryLocalVariable")
-         Ship newShip = new Ship(type, pos);
-        ships.add(newShip);
+        return placeShip(type, type.size, start, horizontal);
+    }
+
+    // places a ship of the given type with a length other than its usual one
+    public boolean placeShip(ShipType type, int size, Pos start, boolean horizontal) {
+        long t0 = Metrics.ENABLED ? System.nanoTime() : 0;
+        boolean placed = place(type, size, start, horizontal);
+        if (Metrics.ENABLED) {
+            Metrics.PLACE_SHIP.record(System.nanoTime() - t0);
+            if (!placed) Metrics.PLACEMENTS_REJECTED.increment();
+        }
+        if (GameEvents.PLACEMENT.on()) {
+            GameEvents.PlacementAttempt e = new GameEvents.PlacementAttempt();
+            e.shipType = type.name();
+            e.size = size;
+            e.row = start.row;
+            e.col = start.col;
+            e.horizontal = horizontal;
+            e.accepted = placed;
+            e.commit();
+        }
+        return placed;
+    }
+
+    private boolean place(ShipType type, int size, Pos start, boolean horizontal) {
+        if (size <= 0 || !fits(shipMask, rows, cols, size, start.row, start.col, horizontal)) return false;
+
+        int first = start.row * cols + start.col;
+        int step = horizontal ? 1 : cols;
+        if (ships.size() >= MAX_SHIPS) throw new IllegalStateException("Too many ships on board");
+        unshareLayout();
+        unshareShots();
+        if (ships.size() == shipHits.length) shipHits = Arrays.copyOf(shipHits, 2 * shipHits.length);
+        List<Pos> pos = new ArrayList<>(size);
+        char id = (char) (ships.size() + 1);
+        for (int i = 0, cell = first; i < size; i++, cell += step) {
+            shipMask[cell >>> 6] |= 1L << cell;
+            shipAt[cell] = id;
+            pos.add(horizontal ? Pos.of(start.row, start.col + i) : Pos.of(start.row + i, start.col));
+        }
+        ships.add(new Ship(type, pos));
+        shipsAfloat++;
+        return true;
+    }
+
+    // The placement rule: the ship stays on the board and avoids every cell set in occupied.
+    // Shared with the samplers that build hypothetical fleets on their own masks.
+    static boolean fits(long[] occupied, int rows, int cols, int size, int row, int col, boolean horizontal) {
+        int endRow = horizontal ? row : row + size - 1;
+        int endCol = horizontal ? col + size - 1 : col;
+        if (row < 0 || col < 0 || endRow >= rows || endCol >= cols) return false;
+        int step = horizontal ? 1 : cols;
+        for (int i = 0, cell = row * cols + col; i < size; i++, cell += step)
+            if (isSet(occupied, cell)) return false; // avoid overlap
         return true;
     }
 
     public FireResult fireAt(Pos p) {
+        long t0 = Metrics.ENABLED ? System.nanoTime() : 0;
+        FireResult res = resolve(p);
+        if (Metrics.ENABLED) {
+            Metrics.FIRE_AT.record(System.nanoTime() - t0);
+            count(res);
+        }
+        shotEvents(p.row, p.col, res);
+        return res;
+    }
+
+    private FireResult resolve(Pos p) {
         if (!inBounds(p)) throw new IllegalArgumentException("Out of bounds: " + p);
-        CellState state = grid[p.row][p.col];
-        if (state == CellState.HIT || state == CellState.MISS) return FireResult.already();
-
-        if (state == CellState.SHIP) {
-            for (Ship s : ships) {
-                if (s.occupies(p)) {
-                    s.registerHit(p);
-                    grid[p.row][p.col] = CellState.HIT;
-                    if (s.isSunk()) return FireResult.sunk(s.type);
-                    return FireResult.hit();
-                }
+        int cell = p.row * cols + p.col;
+        if (isSet(hitMask, cell) || isSet(missMask, cell)) return FireResult.already();
+        unshareShots();
+        if (shots == journal.length) journal = Arrays.copyOf(journal, Math.max(16, 2 * shots));
+        return fire(cell);
+    }
+
+    // Salvo: resolves a whole volley in one pass and returns one result per shot, in
+    // order. Every shot is bounds-checked before any lands; a cell named twice comes
+    // back ALREADY the second time.
+    public FireResult[] fireAt(Collection<Pos> volley) {
+        int[] cells = new int[volley.size()];
+        int n = 0;
+        for (Pos p : volley) {
+            if (!inBounds(p)) throw new IllegalArgumentException("Out of bounds: " + p);
+            cells[n++] = p.row * cols + p.col;
+        }
+        FireResult[] out = new FireResult[n];
+        fireAt(cells, n, out);
+        return out;
+    }
+
+    private static void count(FireResult res) {
+        Metrics.SHOTS.increment();
+        if (res.alreadyTried) Metrics.ALREADY_TRIED.increment();
+        else if (res.hit) {
+            Metrics.HITS.increment();
+            if (res.sunk) Metrics.SINKS.increment();
+        }
+    }
+
+    // the first n cells, already known to be on the board, with their results in out
+    void fireAt(int[] cells, int n, FireResult[] out) {
+        long t0 = Metrics.ENABLED ? System.nanoTime() : 0;
+        unshareShots();
+        if (shots + n > journal.length) journal = Arrays.copyOf(journal, Math.max(16, 2 * (shots + n)));
+        for (int i = 0; i < n; i++) {
+            int cell = cells[i];
+            out[i] = isSet(hitMask, cell) || isSet(missMask, cell) ? FireResult.already() : fire(cell);
+        }
+        if (Metrics.ENABLED) {
+            Metrics.FIRE_VOLLEY.record(System.nanoTime() - t0);
+            for (int i = 0; i < n; i++) count(out[i]);
+        }
+        for (int i = 0; i < n; i++) shotEvents(cells[i] / cols, cells[i] % cols, out[i]);
+    }
+
+    // JFR events for one shot, see GameEvents
+    private void shotEvents(int row, int col, FireResult res) {
+        if (GameEvents.SHOT.on()) {
+            GameEvents.ShotFired e = new GameEvents.ShotFired();
+            e.player = shooter;
+            e.row = row;
+            e.col = col;
+            e.result = GameEvents.result(res);
+            e.rows = rows;
+            e.cols = cols;
+            e.commit();
+        }
+        if (res.sunk && GameEvents.SUNK.on()) {
+            GameEvents.ShipSunk e = new GameEvents.ShipSunk();
+            e.player = shooter;
+            e.shipType = res.sunkType.name();
+            e.size = res.sunkSize;
+            e.shots = shots;
+            e.commit();
+        }
+    }
+
+    // names the player who fires at this board in its JFR events
+    void shooter(String name) { shooter = name; }
+
+    // an untried cell; the caller has unshared the shots and made room in the journal
+    private FireResult fire(int cell) {
+        int w = cell >>> 6;
+        long bit = 1L << cell;
+        journal[shots++] = cell;
+        if ((shipMask[w] & bit) != 0) {
+            hitMask[w] |= bit;
+            int id = shipAt[cell] - 1;
+            Ship s = ships.get(id);
+            if (ownsShips) s.registerHit(s.segmentOf(cell / cols, cell % cols));
+            if (++shipHits[id] == s.size()) {
+                shipsAfloat--;
+                return FireResult.sunk(s.type, s.size());
             }
+            return FireResult.hit();
         }
-        grid[p.row][p.col] = CellState.MISS;
+        missMask[w] |= bit;
         return FireResult.miss();
     }
 
-    public boolean allShipsSunk() {
-        for (Ship s : ships) if (!s.isSunk()) return false;
+    // Takes back the most recent shot that changed the board (repeats are not recorded).
+    // O(1); returns false when there is nothing left to undo.
+    public boolean undo() {
+        if (shots == 0) return false;
+        unshareShots();
+        int cell = journal[--shots];
+        int w = cell >>> 6;
+        long bit = 1L << cell;
+        if ((hitMask[w] & bit) != 0) {
+            hitMask[w] &= ~bit;
+            int id = shipAt[cell] - 1;
+            Ship s = ships.get(id);
+            if (ownsShips) s.clearHit(s.segmentOf(cell / cols, cell % cols));
+            if (shipHits[id]-- == s.size()) shipsAfloat++;
+        } else {
+            missMask[w] &= ~bit;
+        }
         return true;
     }
 
+    // Marks a shot on a board that mirrors an opponent whose ships are not known here,
+    // such as a network client's view of the remote board. Ships are left alone.
+    void recordShot(int cell, boolean hit) {
+        unshareShots();
+        if (hit) hitMask[cell >>> 6] |= 1L << cell;
+        else missMask[cell >>> 6] |= 1L << cell;
+    }
+
+    // Marks the current position for restore(); a search fires hypothetical shots and
+    // then rewinds with restore(mark) instead of copying the board.
+    public int snapshot() { return shots; }
+
+    public void restore(int mark) {
+        if (mark < 0 || mark > shots) throw new IllegalArgumentException("Bad snapshot " + mark + " (" + shots + " shots)");
+        while (shots > mark) undo();
+    }
+
+    // number of shots that can be undone
+    public int shots() { return shots; }
+
+    private void unshareLayout() {
+        if (!layoutShared) return;
+        shipMask = shipMask.clone();
+        shipAt = shipAt.clone();
+        ships = new ArrayList<>(ships);
+        layoutShared = false;
+    }
+
+    private void unshareShots() {
+        if (!shotsShared) return;
+        hitMask = hitMask.clone();
+        missMask = missMask.clone();
+        shipHits = shipHits.clone();
+        shotsShared = false;
+    }
+
+    public boolean allShipsSunk() {
+        return shipsAfloat == 0;
+    }
+
+    // ships not yet sunk; in a salvo game, the number of shots this board's owner fires
+    public int shipsAfloat() { return shipsAfloat; }
+
+    // cells not yet fired at
+    int untried() {
+        int fired = 0;
+        for (int w = 0; w < hitMask.length; w++) fired += Long.bitCount(hitMask[w] | missMask[w]);
+        return rows * cols - fired;
+    }
+
     public CellState cellState(Pos p) {
         if (!inBounds(p)) throw new IllegalArgumentException("Out of bounds: " + p);
-        return grid[p.row][p.col];
+        return stateAt(p.row * cols + p.col);
     }
 
-    public List<Ship> getShips() { return Collections.unmodifiableList(ships); }
+    public List<Ship> getShips() { return Collections.unmodifiableList(ownShips()); }
+
+    // This board's ships, first replacing the shared ones on a copy with Ships of its
+    // own whose hits match this board. O(ships + their cells), once per copy.
+    private List<Ship> ownShips() {
+        if (ownsShips) return ships;
+        List<Ship> mine = new ArrayList<>(ships.size());
+        for (Ship s : ships) {
+            Ship c = new Ship(s.type, s.getPositions());
+            for (int i = 0; i < c.size(); i++) {
+                Pos p = c.getPositions().get(i);
+                if (isSet(hitMask, p.row * cols + p.col)) c.registerHit(i);
+            }
+            mine.add(c);
+        }
+        ships = mine;
+        ownsShips = true;
+        return ships;
+    }
+
+    CellState stateAt(int cell) {
+        if (isSet(hitMask, cell)) return CellState.HIT;
+        if (isSet(missMask, cell)) return CellState.MISS;
+        if (isSet(shipMask, cell)) return CellState.SHIP;
+        return CellState.EMPTY;
+    }
+
+    // copies the hit/miss bitmasks out, for log snapshots
+    void copyShots(long[] hits, long[] misses) {
+        System.arraycopy(hitMask, 0, hits, 0, hitMask.length);
+        System.arraycopy(missMask, 0, misses, 0, missMask.length);
+    }
+
+    // Loads hit/miss bitmasks into a board that has its ships but no shots yet, as if
+    // every shot had been fired in turn.
+    // The restored shots cannot be undone.
+    void restoreShots(long[] hits, long[] misses) {
+        unshareShots();
+        System.arraycopy(hits, 0, hitMask, 0, hitMask.length);
+        System.arraycopy(misses, 0, missMask, 0, missMask.length);
+        shipsAfloat = ships.size();
+        for (int id = 0; id < ships.size(); id++) {
+            Ship s = ships.get(id);
+            for (Pos p : s.getPositions()) {
+                if (!isSet(hitMask, p.row * cols + p.col)) continue;
+                shipHits[id]++;
+                if (ownsShips) s.registerHit(s.segmentOf(p.row, p.col));
+            }
+            if (shipHits[id] == s.size()) shipsAfloat--;
+        }
+    }
+
+    int maskWords() { return hitMask.length; }
+
+    // ship covering the cell, or null for open water
+    Ship shipAt(int cell) {
+        int id = shipAt[cell];
+        return id == 0 ? null : ownShips().get(id - 1);
+    }
+
+    // whether the ship covering the cell has been sunk on this board
+    boolean sunkAt(int cell) {
+        int id = shipAt[cell];
+        return id != 0 && shipHits[id - 1] == ships.get(id - 1).size();
+    }
+
+    static boolean isSet(long[] mask, int cell) {
+        return (mask[cell >>> 6] & (1L << cell)) != 0;
+    }
 
 
     public String toDisplayString(boolean showShips) {
-    StringBuilder sb = new StringBuilder();
-    sb.append("   ");
-    for (int c = 0; c < cols; c++) sb.append(String.format("%2d ", c));
-    sb.append("\n");
+        GameEvents.BoardRender e = GameEvents.RENDER.on() ? new GameEvents.BoardRender() : null;
+        if (e != null) e.begin();
+        long t0 = Metrics.ENABLED ? System.nanoTime() : 0;
+        String out = render(showShips);
+        if (Metrics.ENABLED) Metrics.DISPLAY.record(System.nanoTime() - t0);
+        if (e != null) {
+            e.view = "text";
+            e.rows = rows;
+            e.cols = cols;
+            e.cells = rows * cols;
+            e.commit();
+        }
+        return out;
+    }
+
+    private String render(boolean showShips) {
+    StringBuilder sb = new StringBuilder((rows + 1) * (3 * cols + 4));
+    if (header == null) {
+        StringBuilder h = new StringBuilder("   ");
+        for (int c = 0; c < cols; c++) ConsoleRenderer.pad2(h, c).append(' ');
+        header = h.append('\n').toString();
+    }
+    sb.append(header);
 
     for (int r = 0; r < rows; r++) {
-        sb.append(String.format("%2d ", r));
+        ConsoleRenderer.pad2(sb, r).append(' ');
         for (int c = 0; c < cols; c++) {
-            CellState s = grid[r][c];
+            CellState s = stateAt(r * cols + c);
             char ch;
 
             if (null == s) ch = '?';
@@ -91,7 +448,7 @@ public class Board {
                 case HIT -> 'X';
                 default -> '?';
             }; // hide ships as dots
-            
+
 
             sb.append(" ").append(ch).append(" ");
         }
@@ -0,0 +1,57 @@
+package battleship;
+
+import java.util.List;
+
+// Read-only view of a Board at one moment, from Board.state(). It shares the board's
+// arrays; the board copies them before its next change, so a state never changes and
+// can be read from any thread. toBoard() turns it back into a playable board.
+public final class BoardState {
+    final int rows;
+    final int cols;
+    final Fleet fleet;
+    final long[] shipMask;
+    final char[] shipAt;
+    final List<Ship> ships;
+    final long[] hitMask;
+    final long[] missMask;
+    final int[] shipHits;
+    final int shipsAfloat;
+
+    BoardState(int rows, int cols, Fleet fleet, long[] shipMask, char[] shipAt, List<Ship> ships,
+               long[] hitMask, long[] missMask, int[] shipHits, int shipsAfloat) {
+        this.rows = rows;
+        this.cols = cols;
+        this.fleet = fleet;
+        this.shipMask = shipMask;
+        this.shipAt = shipAt;
+        this.ships = ships;
+        this.hitMask = hitMask;
+        this.missMask = missMask;
+        this.shipHits = shipHits;
+        this.shipsAfloat = shipsAfloat;
+    }
+
+    public int rows() { return rows; }
+    public int cols() { return cols; }
+    public Fleet fleet() { return fleet; }
+    public int shipsAfloat() { return shipsAfloat; }
+    public boolean allShipsSunk() { return shipsAfloat == 0; }
+
+    public CellState cellState(Pos p) {
+        if (p.row < 0 || p.row >= rows || p.col < 0 || p.col >= cols)
+            throw new IllegalArgumentException("Out of bounds: " + p);
+        return stateAt(p.row * cols + p.col);
+    }
+
+    CellState stateAt(int cell) {
+        if (Board.isSet(hitMask, cell)) return CellState.HIT;
+        if (Board.isSet(missMask, cell)) return CellState.MISS;
+        if (Board.isSet(shipMask, cell)) return CellState.SHIP;
+        return CellState.EMPTY;
+    }
+
+    // a new board in this position, with an empty undo history
+    public Board toBoard() {
+        return new Board(this);
+    }
+}
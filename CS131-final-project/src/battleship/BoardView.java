@@ -0,0 +1,294 @@
+package battleship;
+
+import javax.swing.JComponent;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Insets;
+import java.awt.Rectangle;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+
+// Swing view of one Board. Cells are painted straight from the model, mouse positions
+// are mapped to cells by division, and every change repaints only the cells it touched,
+// so the component costs the same whatever the board size and a new game is just
+// setBoard(...) plus one repaint.
+final class BoardView extends JComponent {
+    private static final long serialVersionUID = 1L;
+
+    interface Listener {
+        void cellClicked(int row, int col);
+        // (-1, -1) when the mouse leaves the grid
+        default void cellHovered(int row, int col) {}
+    }
+
+    private static final Color WATER = new Color(205, 225, 245);
+    private static final Color WATER_LOCKED = new Color(225, 228, 232);
+    private static final Color HOVER = new Color(150, 190, 235);
+    private static final Color PREVIEW_OK = new Color(0, 180, 0);
+    private static final Color PREVIEW_BAD = new Color(200, 50, 50);
+    private static final Color MARKED = new Color(255, 200, 60);
+    private static final Color SUNK_RED = new Color(139, 0, 0);
+    private static final Color BATTLESHIP_GREEN = new Color(0, 160, 0);
+    private static final Color CRUISER_ORANGE = new Color(255, 140, 0);
+    private static final Color SUBMARINE_PURPLE = new Color(180, 0, 180);
+    private static final Color DESTROYER_TEAL = new Color(0, 170, 170);
+
+    private final boolean showShips;
+    private Board board;
+    private Listener listener;
+
+    private int hoverRow = -1;
+    private int hoverCol = -1;
+
+    // placement preview: a run of previewSize cells starting at (previewRow, previewCol)
+    private int previewRow = -1;
+    private int previewCol;
+    private int previewSize;
+    private boolean previewHorizontal;
+    private boolean previewValid;
+
+    // cells picked for a salvo that has not been fired yet, one bit per cell
+    private long[] marked;
+
+    BoardView(Board board, boolean showShips) {
+        this.board = board;
+        this.showShips = showShips;
+        this.marked = new long[board.maskWords()];
+        setOpaque(true);
+
+        MouseAdapter mouse = new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                if (!isEnabled() || listener == null || e.getButton() != MouseEvent.BUTTON1) return;
+                int r = rowAt(e.getY()), c = colAt(e.getX());
+                if (r >= 0 && c >= 0) listener.cellClicked(r, c);
+            }
+
+            @Override
+            public void mouseMoved(MouseEvent e) {
+                int r = rowAt(e.getY()), c = colAt(e.getX());
+                if (r < 0 || c < 0) r = c = -1;
+                hover(r, c);
+            }
+
+            @Override
+            public void mouseExited(MouseEvent e) {
+                hover(-1, -1);
+            }
+        };
+        addMouseListener(mouse);
+        addMouseMotionListener(mouse);
+    }
+
+    void setListener(Listener listener) { this.listener = listener; }
+
+    // swaps in a new model; nothing is restyled, the next paint just reads the new board
+    void setBoard(Board board) {
+        this.board = board;
+        this.marked = new long[board.maskWords()];
+        hoverRow = hoverCol = previewRow = -1;
+        revalidate();
+        repaint();
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        if (enabled == isEnabled()) return;
+        super.setEnabled(enabled);
+        repaint();
+    }
+
+    void repaintCell(int row, int col) {
+        int s = cellSize();
+        repaint(originX(s) + col * s, originY(s) + row * s, s, s);
+    }
+
+    void repaintShip(Ship ship) {
+        Pos first = ship.getPositions().get(0);
+        Pos last = ship.getPositions().get(ship.getPositions().size() - 1);
+        repaintRun(first.row, first.col, ship.getPositions().size(), first.row == last.row);
+    }
+
+    void setMarked(int row, int col, boolean on) {
+        int cell = row * board.cols() + col;
+        if (on) marked[cell >>> 6] |= 1L << cell;
+        else marked[cell >>> 6] &= ~(1L << cell);
+        repaintCell(row, col);
+    }
+
+    void clearMarks() {
+        java.util.Arrays.fill(marked, 0);
+        repaint();
+    }
+
+    void showPreview(int row, int col, int size, boolean horizontal, boolean valid) {
+        clearPreview();
+        previewRow = row;
+        previewCol = col;
+        previewSize = size;
+        previewHorizontal = horizontal;
+        previewValid = valid;
+        repaintRun(row, col, size, horizontal);
+    }
+
+    void clearPreview() {
+        if (previewRow < 0) return;
+        repaintRun(previewRow, previewCol, previewSize, previewHorizontal);
+        previewRow = -1;
+    }
+
+    private void repaintRun(int row, int col, int size, boolean horizontal) {
+        int s = cellSize();
+        int w = horizontal ? size * s : s;
+        int h = horizontal ? s : size * s;
+        repaint(originX(s) + col * s, originY(s) + row * s, w, h);
+    }
+
+    private void hover(int row, int col) {
+        if (row == hoverRow && col == hoverCol) return;
+        if (hoverRow >= 0) repaintCell(hoverRow, hoverCol);
+        hoverRow = row;
+        hoverCol = col;
+        if (row >= 0) repaintCell(row, col);
+        if (listener != null) listener.cellHovered(row, col);
+    }
+
+    // --- geometry: square cells, grid centred in whatever space the layout gives us ---
+    private int cellSize() {
+        Insets in = getInsets();
+        int w = getWidth() - in.left - in.right, h = getHeight() - in.top - in.bottom;
+        return Math.max(1, Math.min(w / board.cols(), h / board.rows()));
+    }
+
+    private int originX(int s) {
+        Insets in = getInsets();
+        return in.left + (getWidth() - in.left - in.right - s * board.cols()) / 2;
+    }
+
+    private int originY(int s) {
+        Insets in = getInsets();
+        return in.top + (getHeight() - in.top - in.bottom - s * board.rows()) / 2;
+    }
+
+    private int rowAt(int y) {
+        int s = cellSize();
+        int r = Math.floorDiv(y - originY(s), s);
+        return r >= 0 && r < board.rows() ? r : -1;
+    }
+
+    private int colAt(int x) {
+        int s = cellSize();
+        int c = Math.floorDiv(x - originX(s), s);
+        return c >= 0 && c < board.cols() ? c : -1;
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        if (isPreferredSizeSet()) return super.getPreferredSize();
+        Insets in = getInsets();
+        int s = Math.max(4, Math.min(48, 480 / Math.max(board.rows(), board.cols())));
+        return new Dimension(board.cols() * s + in.left + in.right, board.rows() * s + in.top + in.bottom);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        g.setColor(getBackground());
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) clip = new Rectangle(0, 0, getWidth(), getHeight());
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+        // only the cells under the clip are visited, so a one-cell repaint is one cell of work
+        int s = cellSize(), ox = originX(s), oy = originY(s);
+        int r0 = Math.max(0, Math.floorDiv(clip.y - oy, s));
+        int r1 = Math.min(board.rows() - 1, Math.floorDiv(clip.y + clip.height - 1 - oy, s));
+        int c0 = Math.max(0, Math.floorDiv(clip.x - ox, s));
+        int c1 = Math.min(board.cols() - 1, Math.floorDiv(clip.x + clip.width - 1 - ox, s));
+
+        GameEvents.BoardRender event = GameEvents.RENDER.on() ? new GameEvents.BoardRender() : null;
+        if (event != null) event.begin();
+        int gap = s >= 8 ? 2 : 0;
+        boolean labels = s >= 14;
+        if (labels) g.setFont(getFont().deriveFont(Font.BOLD, s * 0.45f));
+        for (int r = r0; r <= r1; r++)
+            for (int c = c0; c <= c1; c++)
+                paintCell(g, r, c, ox + c * s, oy + r * s, s - gap, labels);
+        if (event != null) {
+            event.view = "swing";
+            event.rows = board.rows();
+            event.cols = board.cols();
+            event.cells = Math.max(0, r1 - r0 + 1) * Math.max(0, c1 - c0 + 1);
+            event.commit();
+        }
+    }
+
+    private void paintCell(Graphics g, int r, int c, int x, int y, int s, boolean labels) {
+        int cell = r * board.cols() + c;
+        CellState state = board.stateAt(cell);
+        Color bg;
+        Color fg = Color.BLACK;
+        String text = null;
+        switch (state) {
+            case HIT -> {
+                boolean sunk = board.sunkAt(cell);
+                bg = sunk ? SUNK_RED : Color.BLACK;
+                fg = sunk ? Color.WHITE : Color.RED;
+                text = "X";
+            }
+            case MISS -> {
+                bg = Color.WHITE;
+                fg = Color.BLUE;
+                text = "O";
+            }
+            case SHIP -> {
+                if (showShips) {
+                    ShipType type = board.shipAt(cell).type;
+                    bg = shipColor(type);
+                    text = shipLabel(type);
+                } else {
+                    bg = isEnabled() ? WATER : WATER_LOCKED;
+                }
+            }
+            default -> bg = isEnabled() ? WATER : WATER_LOCKED;
+        }
+        if (previewRow >= 0 && inPreview(r, c)) bg = previewValid ? PREVIEW_OK : PREVIEW_BAD;
+        else if (Board.isSet(marked, cell)) bg = MARKED;
+        else if (r == hoverRow && c == hoverCol && isEnabled() && text == null) bg = HOVER;
+
+        g.setColor(bg);
+        g.fillRect(x, y, s, s);
+        if (labels && text != null) {
+            FontMetrics fm = g.getFontMetrics();
+            g.setColor(fg);
+            g.drawString(text, x + (s - fm.stringWidth(text)) / 2, y + (s - fm.getHeight()) / 2 + fm.getAscent());
+        }
+    }
+
+    private boolean inPreview(int r, int c) {
+        int i = previewHorizontal ? c - previewCol : r - previewRow;
+        int along = previewHorizontal ? r - previewRow : c - previewCol;
+        return along == 0 && i >= 0 && i < previewSize;
+    }
+
+    static Color shipColor(ShipType type) {
+        return switch (type) {
+            case Carrier -> Color.DARK_GRAY;
+            case Battleship -> BATTLESHIP_GREEN;
+            case Cruiser -> CRUISER_ORANGE;
+            case Submarine -> SUBMARINE_PURPLE;
+            case Destroyer -> DESTROYER_TEAL;
+        };
+    }
+
+    static String shipLabel(ShipType type) {
+        return switch (type) {
+            case Carrier -> "C";
+            case Battleship -> "B";
+            case Cruiser -> "Cr";
+            case Submarine -> "S";
+            case Destroyer -> "D";
+        };
+    }
+}
@@ -0,0 +1,191 @@
+package battleship;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Scripted load client for GameServer. Opens one connection per bot and plays games
+// with a local ComputerPlayer choosing the shots; the bot keeps a shadow board of the
+// results it is told, which is all the targeting strategies read. thinkMs adds a pause
+// before every turn, so a few bots can keep many games open at once. Each turn's round
+// trip, from writing FIRE to reading its last RESULT, goes into the report. On a salvo
+// server the bots fire their whole volley in one FIRE line.
+//
+//   java battleship.BotClient [bots] [gamesPerBot] [opponent] [ai] [thinkMs] [host] [port]
+//
+// opponent is a server difficulty (EASY..EXPERT) or PLAYER to pair the bots with each
+// other; ai is the difficulty the bots themselves play at.
+public final class BotClient {
+
+    public static final class Report {
+        public final LongAdder wins = new LongAdder();
+        public final LongAdder losses = new LongAdder();
+        public final LongAdder draws = new LongAdder();
+        public final LongAdder aborted = new LongAdder();
+        public final LongAdder failedBots = new LongAdder();
+        public final LongAdder shots = new LongAdder();
+        final AtomicInteger open = new AtomicInteger();
+        final AtomicInteger peakOpen = new AtomicInteger();
+        final Queue<LatencyHistogram> perBot = new ConcurrentLinkedQueue<>();
+        final LatencyHistogram roundTrip = new LatencyHistogram();
+
+        public long games() { return wins.sum() + losses.sum() + draws.sum() + aborted.sum(); }
+
+        // most games the bots had in progress at the same time
+        public int peakOpenGames() { return peakOpen.get(); }
+
+        @Override
+        public String toString() {
+            return String.format("games=%d  wins=%d  losses=%d  draws=%d  aborted=%d  failed bots=%d  shots=%d  peak open games=%d%n"
+                                 + "FIRE -> RESULT round trip: %s",
+                                 games(), wins.sum(), losses.sum(), draws.sum(), aborted.sum(), failedBots.sum(),
+                                 shots.sum(), peakOpen.get(), roundTrip.summary());
+        }
+    }
+
+    private final String host;
+    private final int port;
+    private final String opponent;
+    private final ComputerPlayer.Difficulty ai;
+    private final long thinkMs;
+    private final Report report = new Report();
+
+    public BotClient(String host, int port, String opponent, ComputerPlayer.Difficulty ai, long thinkMs) {
+        this.host = host;
+        this.port = port;
+        this.opponent = opponent;
+        this.ai = ai;
+        this.thinkMs = thinkMs;
+    }
+
+    // runs the bots to completion and returns what they saw
+    public Report run(int bots, int gamesPerBot) throws InterruptedException {
+        ExecutorService pool = GameServer.newTaskExecutor();
+        try {
+            for (int b = 0; b < bots; b++) {
+                int id = b;
+                pool.execute(() -> {
+                    try {
+                        bot("bot" + id, gamesPerBot, new Random(id));
+                    } catch (IOException | RuntimeException e) {
+                        report.failedBots.increment();
+                    }
+                });
+            }
+        } finally {
+            pool.shutdown();
+        }
+        pool.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        for (LatencyHistogram h : report.perBot) h.addTo(report.roundTrip);
+        return report;
+    }
+
+    private void bot(String name, int games, Random rnd) throws IOException {
+        Socket s = new Socket();
+        s.setTcpNoDelay(true);
+        s.connect(new InetSocketAddress(host, port), 30_000);
+        LatencyHistogram rtt = new LatencyHistogram();
+        report.perBot.add(rtt);
+        try (PlayerConnection conn = new PlayerConnection(s)) {
+            expect(conn, "HELLO");
+            for (int g = 0; g < games; g++) {
+                conn.writeLine("JOIN " + name + " " + opponent);
+                playOne(conn, rnd, rtt);
+            }
+            conn.writeLine("QUIT");
+        }
+    }
+
+    private void playOne(PlayerConnection conn, Random rnd, LatencyHistogram rtt) throws IOException {
+        long firedAt = 0;
+        int awaiting = 0; // RESULTs still due for the last FIRE
+        Board shadow = null;
+        ComputerPlayer player = null;
+        boolean counted = false;
+        try {
+            while (true) {
+                String line = conn.readLine();
+                if (line == null) throw new IOException("Server closed the connection");
+                String[] w = Protocol.words(line);
+                switch (w[0]) {
+                    case "WAIT" -> { }
+                    case "GAME" -> {
+                        shadow = new Board(Integer.parseInt(w[2]), Integer.parseInt(w[3]), Fleet.parse(w[4]));
+                        player = new ComputerPlayer("bot", ai, new Random(rnd.nextLong()));
+                        counted = true;
+                        report.peakOpen.accumulateAndGet(report.open.incrementAndGet(), Math::max);
+                    }
+                    case "PLACE" -> conn.writeLine("AUTO");
+                    case "TURN" -> {
+                        if (thinkMs > 0) sleep(thinkMs);
+                        List<Pos> volley = w.length > 1 ? player.makeSalvo(shadow, Integer.parseInt(w[1]))
+                                                        : List.of(player.makeMove(shadow));
+                        StringBuilder fire = new StringBuilder("FIRE");
+                        for (Pos p : volley) fire.append(' ').append(p.row).append(' ').append(p.col);
+                        firedAt = System.nanoTime();
+                        conn.writeLine(fire.toString());
+                        awaiting = volley.size();
+                        report.shots.add(volley.size());
+                    }
+                    case "RESULT" -> {
+                        if (--awaiting == 0) rtt.record(System.nanoTime() - firedAt);
+                        Pos p = Pos.of(Integer.parseInt(w[1]), Integer.parseInt(w[2]));
+                        FireResult res = Protocol.parseResult(w, 3);
+                        if (!res.alreadyTried) shadow.recordShot(shadow.cellIndex(p), res.hit);
+                        player.informResult(p, res);
+                    }
+                    case "END" -> {
+                        switch (w[1]) {
+                            case "WIN" -> report.wins.increment();
+                            case "LOSE" -> report.losses.increment();
+                            case "DRAW" -> report.draws.increment();
+                            default -> report.aborted.increment();
+                        }
+                        return;
+                    }
+                    case "ERROR" -> throw new IOException("Server error: " + line);
+                    default -> throw new IOException("Unexpected message: " + line);
+                }
+            }
+        } finally {
+            if (counted) report.open.decrementAndGet();
+        }
+    }
+
+    private static void expect(PlayerConnection conn, String word) throws IOException {
+        String line = conn.readLine();
+        if (line == null || !line.startsWith(word)) throw new IOException("Expected " + word + ", got " + line);
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int bots = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int games = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        String opponent = args.length > 2 ? args[2].toUpperCase() : "MEDIUM";
+        ComputerPlayer.Difficulty ai = ComputerPlayer.Difficulty.valueOf(args.length > 3 ? args[3].toUpperCase() : "HARD");
+        long think = args.length > 4 ? Long.parseLong(args[4]) : 0;
+        String host = args.length > 5 ? args[5] : "localhost";
+        int port = args.length > 6 ? Integer.parseInt(args[6]) : GameServer.DEFAULT_PORT;
+
+        System.out.printf("%d bots x %d games vs %s on %s:%d, bots play %s, think %dms%n",
+                          bots, games, opponent, host, port, ai, think);
+        long start = System.nanoTime();
+        Report r = new BotClient(host, port, opponent, ai, think).run(bots, games);
+        double secs = (System.nanoTime() - start) / 1e9;
+        System.out.println(r);
+        System.out.printf("%.1f games/sec (%.2fs)%n", r.games() / secs, secs);
+    }
+}
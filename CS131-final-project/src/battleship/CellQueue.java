@@ -0,0 +1,53 @@
+package battleship;
+
+// FIFO of cell indices backed by an int ring buffer. A cell already in the queue is
+// not added twice, so the queue never holds more than one entry per board cell.
+final class CellQueue {
+    private final long[] queued;
+    private int[] ring = new int[16];
+    private int head;
+    private int size;
+
+    CellQueue(int cells) {
+        queued = new long[(cells + 63) >>> 6];
+    }
+
+    boolean isEmpty() { return size == 0; }
+    int size() { return size; }
+
+    // adds the cell unless it is already waiting
+    void offer(int cell) {
+        if (Board.isSet(queued, cell)) return;
+        queued[cell >>> 6] |= 1L << cell;
+        if (size == ring.length) grow();
+        ring[(head + size++) & (ring.length - 1)] = cell;
+    }
+
+    // next cell without taking it, or -1 when empty
+    int peek() { return size == 0 ? -1 : ring[head]; }
+
+    // the i-th waiting cell, counting from the head
+    int get(int i) { return ring[(head + i) & (ring.length - 1)]; }
+
+    // next cell, or -1 when empty
+    int poll() {
+        if (size == 0) return -1;
+        int cell = ring[head];
+        head = (head + 1) & (ring.length - 1);
+        size--;
+        queued[cell >>> 6] &= ~(1L << cell);
+        return cell;
+    }
+
+    void clear() {
+        while (size > 0) poll();
+        head = 0;
+    }
+
+    private void grow() {
+        int[] bigger = new int[ring.length * 2];
+        for (int i = 0; i < size; i++) bigger[i] = ring[(head + i) & (ring.length - 1)];
+        ring = bigger;
+        head = 0;
+    }
+}
@@ -1,105 +1,180 @@
 package battleship;
 import java.util.*;
 
+// Computer opponent used by the console game, the Swing GUI and the headless tools.
+// Shot selection is delegated to a TargetingStrategy; the difficulty levels are just
+// the built-in strategies. Strategies that allow it play their opening from the
+// OpeningBook, without any live computation, until the first hit. Against an opponent
+// the PlacementModel has seen before, the strategy gets that opponent's placement prior
+// instead and the book is skipped.
 public class ComputerPlayer implements IPlayer {
 
+    // snapshot of the cells this player has fired at
     public Set<Pos> getTried() {
-        return tried;
+        Set<Pos> out = new HashSet<>();
+        if (tried == null) return out;
+        for (int cell = 0; cell < rows * cols; cell++)
+            if (Board.isSet(tried, cell)) out.add(Pos.of(cell / cols, cell % cols));
+        return out;
     }
-	
-	public enum Difficulty { EASY, MEDIUM, HARD }
-    private final Difficulty difficulty;
+
+    public enum Difficulty {
+        EASY, MEDIUM, HARD, EXPERT;
+
+        // HARD hands over to the exact endgame search once few layouts are left
+        TargetingStrategy newStrategy(Random rnd) {
+            return this == EASY ? new RandomTargeting(rnd) : params().newStrategy(rnd);
+        }
+
+        TargetingStrategy baseStrategy(Random rnd) {
+            return this == EASY ? new RandomTargeting(rnd) : params().baseStrategy(rnd);
+        }
+
+        // the preset behind the difficulty; EASY has none
+        AiParams params() {
+            return switch (this) {
+                case EASY -> null;
+                case MEDIUM -> AiParams.MEDIUM;
+                case HARD -> AiParams.HARD;
+                case EXPERT -> AiParams.EXPERT;
+            };
+        }
+    }
+
+    private final Difficulty difficulty; // null when built around a custom strategy
+    private final String label;
     private final String name;
-    private final Random rnd = new Random();
+    private final Random rnd;
+    private final TargetingStrategy strategy;
+    private final Metrics.Timer moveTimer;  // null unless metrics are on
+    private final Metrics.Timer salvoTimer;
+
+    // sized on the first move, once the opponent board is known
+    private int rows;
+    private int cols;
+    private long[] tried;          // one bit per cell index
+    private boolean offBook;       // the opening book has nothing more for this game
+    private String opponent;       // name of the player being fired at, if known
 
-    //for medium hunt/target
-    
-    private final Set<Pos> tried = new HashSet<>();
-    private final Deque<Pos> targetQueue = new ArrayDeque<>();
     public ComputerPlayer(String name, Difficulty difficulty) {
+        this(name, difficulty, new Random());
+    }
+
+    // seeded constructor so headless runs are reproducible
+    public ComputerPlayer(String name, Difficulty difficulty, Random rnd) {
+        this(name, difficulty, difficulty.name(), difficulty.newStrategy(rnd), rnd);
+    }
+
+    // plugs in any targeting engine; label shows up in name()
+    public ComputerPlayer(String name, String label, TargetingStrategy strategy, Random rnd) {
+        this(name, null, label, strategy, rnd);
+    }
+
+    private ComputerPlayer(String name, Difficulty difficulty, String label, TargetingStrategy strategy, Random rnd) {
         this.name = name;
         this.difficulty = difficulty;
+        this.label = label;
+        this.strategy = strategy;
+        this.rnd = rnd;
+        this.offBook = !strategy.openingBook();
+        this.moveTimer = Metrics.ENABLED ? Metrics.timer("makeMove", label) : null;
+        this.salvoTimer = Metrics.ENABLED ? Metrics.timer("makeSalvo", label) : null;
     }
-  
-        @Override
+
+    public Difficulty difficulty() { return difficulty; }
+
+    // the name of the player this game is against, looked up in the PlacementModel on the first move
+    public void setOpponent(String name) { this.opponent = name; }
+
+    @Override
     public void placeShips(Board board) {
-    	
-    	// simple random placement with retry
-    	
-    	for (ShipType type : new ShipType[] {ShipType.Carrier, ShipType.Battleship, ShipType.Battleship, ShipType.Submarine, ShipType.Destroyer}) {
-    		boolean placed = false;
-    		int attempts = 0;
-    		while (!placed && attempts < 1000) {
-    			int r = rnd.nextInt(board.rows());
-    			int c = rnd.nextInt(board.cols());
-    			boolean horiz = rnd.nextBoolean();
-    			placed = board.placeShip(type, new Pos(r,c), horiz);
-    		}
-    		if (!placed) throw new IllegalStateException("Failed to place shipe: " + type);
-    		
-    		}
-    	}
+        // places the board's fleet; throws IllegalStateException if it cannot fit
+        FleetPlacer.place(board, rnd);
+    }
+
     @Override
     public Pos makeMove(Board opponentBoard) {
-        if (difficulty == Difficulty.EASY) return easyMove(opponentBoard);
-        if (difficulty == Difficulty.MEDIUM) return mediumMove(opponentBoard);
-        return hardMove(opponentBoard);
+        size(opponentBoard);
+        GameEvents.AiDecision e = decision(opponentBoard, 1);
+        long t0 = Metrics.ENABLED ? System.nanoTime() : 0;
+        int[] opening = fromBook(opponentBoard, 1);
+        Pos p = opening != null ? opponentBoard.cellPos(opening[0]) : strategy.nextTarget(opponentBoard);
+        if (Metrics.ENABLED) moveTimer.record(System.nanoTime() - t0);
+        if (e != null) e.commit();
+        return p;
     }
 
-    private Pos easyMove(Board b) {
-        while (true) {
-            Pos p = new Pos(rnd.nextInt(b.rows()), rnd.nextInt(b.cols()));
-            if (!alreadyTried(p, b)) return p;
+    @Override
+    public List<Pos> makeSalvo(Board opponentBoard, int shots) {
+        size(opponentBoard);
+        GameEvents.AiDecision e = decision(opponentBoard, shots);
+        long t0 = Metrics.ENABLED ? System.nanoTime() : 0;
+        int[] opening = fromBook(opponentBoard, shots);
+        List<Pos> volley;
+        if (opening != null) {
+            volley = new ArrayList<>(shots);
+            for (int cell : opening) volley.add(opponentBoard.cellPos(cell));
+        } else {
+            volley = strategy.nextVolley(opponentBoard, shots);
         }
+        if (Metrics.ENABLED) salvoTimer.record(System.nanoTime() - t0);
+        if (e != null) e.commit();
+        return volley;
     }
 
-    private Pos mediumMove(Board b) {
-        // if have queued target cells (after a hit), pop them
-        while (!targetQueue.isEmpty()) {
-            Pos p = targetQueue.poll();
-            if (b.inBounds(p) && !alreadyTried(p, b)) return p;
+    // OpeningBook cells for the next shots, or null once the game has left the book
+    private int[] fromBook(Board opponentBoard, int shots) {
+        if (offBook) return null;
+        int[] cells = new int[shots];
+        if (OpeningBook.shared().volley(opponentBoard, shots, rnd, cells) == 0) {
+            offBook = true;
+            return null;
         }
-        // otherwise random until hit
-        for (int tries = 0; tries < 10000; tries++) {
-            Pos p = new Pos(rnd.nextInt(b.rows()), rnd.nextInt(b.cols()));
-            if (!alreadyTried(p, b)) return p;
-        }
-        // fallback
-        return easyMove(b);
+        return cells;
     }
 
-    private Pos hardMove(Board b) {
-        // very simple probability density (checker board pattern)
-        for (int r = 0; r < b.rows(); r++)
-            for (int c = 0; c < b.cols(); c++) {
-                Pos p = new Pos(r, c);
-                if (!alreadyTried(p, b) && (r + c) % 2 == 0) return p;
-            }
-        return mediumMove(b);
+    // a started JFR event for the move about to be chosen, or null if none is wanted
+    private GameEvents.AiDecision decision(Board opponentBoard, int shots) {
+        if (!GameEvents.DECISION.on()) return null;
+        GameEvents.AiDecision e = new GameEvents.AiDecision();
+        e.strategy = label;
+        e.rows = rows;
+        e.cols = cols;
+        e.shots = shots;
+        e.candidates = opponentBoard.untried();
+        e.begin();
+        return e;
     }
 
-    public void informResult(Pos p, FireResult res) {
-        // computer can use result to change strategy (medium)
-        if (difficulty == Difficulty.MEDIUM) {
-            tried.add(p);
-            if (res.hit && !res.sunk) {
-                // enqueue neighbors
-                int[][] deltas = {{-1,0},{1,0},{0,-1},{0,1}};
-                for (int[] d : deltas) targetQueue.add(new Pos(p.row + d[0], p.col + d[1]));
-            } else if (res.sunk) {
-                // clear targetQueue as ship is sunk
-                targetQueue.clear();
-            }
-        } else {
-            tried.add(p);
-        }
+    private void size(Board opponentBoard) {
+        if (tried != null) return;
+        rows = opponentBoard.rows();
+        cols = opponentBoard.cols();
+        tried = new long[(rows * cols + 63) >>> 6];
+        if (opponent == null || !PlacementModel.shared().enabled()) return;
+        int[] prior = PlacementModel.shared().prior(opponent, opponentBoard);
+        if (prior != null && strategy.prior(prior)) offBook = true;
     }
 
-    private boolean alreadyTried(Pos p, Board b) {
-        CellState s = (CellState) b.cellState(p);
-        return s == CellState.HIT || s == CellState.MISS;
+    @Override
+    public void informResult(Pos p, FireResult res) {
+        if (tried == null) return; // never moved, so this is not one of our shots
+        int cell = p.row * cols + p.col;
+        tried[cell >>> 6] |= 1L << cell;
+        if (!GameEvents.UPDATE.on()) {
+            strategy.informResult(p, res);
+            return;
+        }
+        GameEvents.AiUpdate e = new GameEvents.AiUpdate();
+        e.begin();
+        strategy.informResult(p, res);
+        e.strategy = label;
+        e.row = p.row;
+        e.col = p.col;
+        e.result = GameEvents.result(res);
+        e.commit();
     }
 
     @Override
-    public String name() { return name + " (CPU-" + difficulty.name() + ")"; }
-}
\ No newline at end of file
+    public String name() { return name + " (CPU-" + label + ")"; }
+}
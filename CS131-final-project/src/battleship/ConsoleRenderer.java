@@ -0,0 +1,252 @@
+package battleship;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// Draws boards for the console game. On a terminal the boards stay pinned at the top of
+// the screen and only the cells a shot or placement changed are rewritten; prompts and
+// messages scroll underneath. Without a terminal (pipes, redirected output, TERM=dumb)
+// every show() prints the board in full, exactly as before. Boards that do not fit the
+// terminal side by side are printed the same way.
+abstract class ConsoleRenderer {
+
+    private static ConsoleRenderer stdout;
+
+    // shared renderer for System.out, so the controller and human players draw into the same screen
+    static synchronized ConsoleRenderer stdout() {
+        if (stdout == null) {
+            boolean tty = System.console() != null && !"dumb".equals(System.getenv("TERM"));
+            if (tty && !Boolean.getBoolean("battleship.plain")) {
+                int[] size = terminalSize();
+                stdout = new Ansi(System.out, size[0], size[1]);
+            } else {
+                stdout = new Plain(System.out);
+            }
+        }
+        return stdout;
+    }
+
+    // {lines, columns} of the terminal: stty, then the shell's LINES and COLUMNS, then 24x80
+    private static int[] terminalSize() {
+        try {
+            Process p = new ProcessBuilder("stty", "size")
+                    .redirectInput(new File("/dev/tty"))
+                    .redirectError(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            String[] out = new String(p.getInputStream().readAllBytes(), StandardCharsets.US_ASCII).trim().split("\\s+");
+            if (p.waitFor() == 0 && out.length == 2) return new int[] {Integer.parseInt(out[0]), Integer.parseInt(out[1])};
+        } catch (IOException | NumberFormatException e) {
+            // no stty or no /dev/tty, as on Windows
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return new int[] {env("LINES", 24), env("COLUMNS", 80)};
+    }
+
+    private static int env(String name, int fallback) {
+        try {
+            String v = System.getenv(name);
+            return v == null ? fallback : Integer.parseInt(v.trim());
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    // puts the board on screen under the given title
+    abstract void show(String title, Board board, boolean showShips);
+
+    // the board changed at p (a shot landed or a ship was placed)
+    abstract void cellChanged(Board board, Pos p);
+
+    void shipPlaced(Board board, Ship ship) {
+        for (Pos p : ship.getPositions()) cellChanged(board, p);
+    }
+
+    // hands the whole screen back to normal scrolling output
+    void close() {}
+
+    static final class Plain extends ConsoleRenderer {
+        private final PrintStream out;
+
+        Plain(PrintStream out) { this.out = out; }
+
+        @Override
+        void show(String title, Board board, boolean showShips) {
+            out.println(title);
+            out.println(board.toDisplayString(showShips));
+        }
+
+        @Override
+        void cellChanged(Board board, Pos p) {}
+    }
+
+    static final class Ansi extends ConsoleRenderer {
+        private static final String ESC = "\u001b[";
+        private static final int GAP = 4;          // blank columns between boards
+        private static final int PROMPT_LINES = 4; // scrolling lines kept below the boards
+
+        // One board on screen; the same board may appear twice, with and without ships.
+        // Row labels are as wide as the largest row number, and every column is one
+        // wider than the largest column number, with the cell under its last digit.
+        private static final class View {
+            final Board board;
+            final boolean showShips;
+            final String title;
+            final int label; // width of the row labels
+            final int pitch; // screen columns per board column
+            final String header;
+            int top;  // 1-based screen row of the title
+            int left; // 1-based screen column
+
+            View(String title, Board board, boolean showShips) {
+                this.title = title;
+                this.board = board;
+                this.showShips = showShips;
+                // never narrower than two digits, so small boards keep their layout
+                label = Math.max(2, digits(board.rows() - 1));
+                pitch = Math.max(2, digits(board.cols() - 1)) + 1;
+                StringBuilder sb = new StringBuilder(" ".repeat(label + 1));
+                for (int c = 0; c < board.cols(); c++) pad(sb, c, pitch - 1).append(' ');
+                header = sb.toString();
+            }
+
+            int width() { return Math.max(title.length(), label + 1 + pitch * board.cols()); }
+            int height() { return 2 + board.rows(); }
+
+            // 1-based screen column of a board column's cell
+            int cellColumn(int col) { return left + label + 1 + pitch * col + pitch - 2; }
+        }
+
+        private final PrintStream out;
+        private final int lines;   // terminal size, read once at startup
+        private final int columns;
+        private final List<View> views = new ArrayList<>();
+        private final StringBuilder buf = new StringBuilder();
+        private Plain plain;       // set once the boards outgrow the terminal
+
+        Ansi(PrintStream out, int lines, int columns) {
+            this.out = out;
+            this.lines = lines;
+            this.columns = columns;
+        }
+
+        @Override
+        void show(String title, Board board, boolean showShips) {
+            if (plain != null) {
+                plain.show(title, board, showShips);
+                return;
+            }
+            for (View v : views)
+                if (v.board == board && v.showShips == showShips) return; // already on screen and kept current
+            views.add(new View(title, board, showShips));
+            redraw();
+        }
+
+        @Override
+        void cellChanged(Board board, Pos p) {
+            buf.setLength(0);
+            for (View v : views) {
+                if (v.board != board) continue;
+                moveTo(v.top + 2 + p.row, v.cellColumn(p.col));
+                appendCell(v, p.row * board.cols() + p.col);
+            }
+            if (buf.length() == 0) return; // board not on screen
+            // the cursor sits in the scrolling prompt area; save it around the cell writes
+            buf.insert(0, "\u001b7").append("\u001b8");
+            flush();
+        }
+
+        @Override
+        void close() {
+            if (views.isEmpty()) return;
+            out.print(ESC + "r" + ESC + "999;1H\n"); // full-screen scrolling, cursor to the bottom
+            out.flush();
+            views.clear();
+        }
+
+        // Lays the boards out side by side, draws them in full and confines scrolling to
+        // the lines below. Only happens when a new board first appears. If the layout
+        // does not fit the terminal, hands over to Plain for good, starting with the
+        // board just added.
+        private void redraw() {
+            int left = 1, height = 0;
+            for (View v : views) {
+                v.top = 1;
+                v.left = left;
+                left += v.width() + GAP;
+                height = Math.max(height, v.height());
+            }
+            if (left - 1 - GAP > columns || height + 1 + PROMPT_LINES > lines) {
+                View last = views.get(views.size() - 1);
+                close();
+                plain = new Plain(out);
+                plain.show(last.title, last.board, last.showShips);
+                return;
+            }
+            buf.setLength(0);
+            buf.append(ESC).append("r").append(ESC).append("2J");
+            for (View v : views) drawView(v);
+            buf.append(ESC).append(height + 2).append('r');
+            moveTo(height + 2, 1);
+            flush();
+        }
+
+        private void drawView(View v) {
+            Board b = v.board;
+            moveTo(v.top, v.left);
+            buf.append(ESC).append("1m").append(v.title).append(ESC).append("0m");
+            moveTo(v.top + 1, v.left);
+            buf.append(v.header);
+            String lead = " ".repeat(v.pitch - 2);
+            for (int r = 0; r < b.rows(); r++) {
+                moveTo(v.top + 2 + r, v.left);
+                pad(buf, r, v.label).append(' ');
+                for (int c = 0; c < b.cols(); c++) {
+                    buf.append(lead);
+                    appendCell(v, r * b.cols() + c);
+                    buf.append(' ');
+                }
+            }
+        }
+
+        private void appendCell(View v, int cell) {
+            switch (v.board.stateAt(cell)) {
+                case HIT -> buf.append(ESC).append("1;31mX").append(ESC).append("0m");
+                case MISS -> buf.append(ESC).append("34mo").append(ESC).append("0m");
+                case SHIP -> buf.append(v.showShips ? 'S' : '.');
+                default -> buf.append('.');
+            }
+        }
+
+        private void moveTo(int row, int col) {
+            buf.append(ESC).append(row).append(';').append(col).append('H');
+        }
+
+        private void flush() {
+            out.append(buf);
+            out.flush();
+        }
+    }
+
+    // same layout as "%2d", without the formatter
+    static StringBuilder pad2(StringBuilder sb, int n) {
+        return pad(sb, n, 2);
+    }
+
+    // n right-aligned in width columns, like "%<width>d" for n >= 0
+    static StringBuilder pad(StringBuilder sb, int n, int width) {
+        for (int d = digits(n); d < width; d++) sb.append(' ');
+        return sb.append(n);
+    }
+
+    // decimal digits of n >= 0
+    static int digits(int n) {
+        int d = 1;
+        for (; n >= 10; n /= 10) d++;
+        return d;
+    }
+}
@@ -0,0 +1,250 @@
+package battleship;
+
+import java.util.*;
+
+// Probability-density targeting. For every ship length still afloat, cover[k][cell]
+// counts the legal placements of that length through the cell, i.e. placements that
+// stay on the board and avoid misses and sunk ships. A miss or sink only invalidates
+// placements through the affected cells, so each shot updates O(L^2) cells instead of
+// rescanning the board. The best cell is kept at the root of a max tree over the
+// per-cell scores.
+final class DensityMap {
+    // low bits of a score hold a per-game hash so ties are broken unpredictably
+    private static final int JITTER_BITS = 20;
+
+    private final TargetGrid grid;
+    private final int rows;
+    private final int cols;
+    private final int n;
+    private final long salt;
+
+    private final int[] lengths;   // distinct ship lengths in the fleet
+    private final int[] counts;    // ships of each length still afloat
+    private final long[] lengthWeight; // hunt-mode weight of a placement of each length
+    private final long[] hitWeight;    // target-mode weight of a placement by open hits on it
+    private final int[] prior;     // per-cell PlacementModel weights, or null
+    private final int[][] cover;
+    private final boolean[] blocked;
+    private final boolean[] pending; // picked for the salvo being chosen
+
+    private final long[] score;    // -1 once a cell has been fired at
+    private final int[] tree;
+    private final int leaves;
+
+    // scratch space for target mode, reset after every use
+    private final long[] weight;
+    private int[] touched = new int[64];
+
+    DensityMap(int rows, int cols, Fleet fleet, Random rnd) {
+        this(rows, cols, fleet, rnd, AiParams.EXPERT, null);
+    }
+
+    // The weights are the AiParams exponents scaled to integers; the defaults weigh every
+    // length alike and a placement by its hits squared. A prior from the PlacementModel
+    // scales every cell's score, in hunt and target mode alike.
+    DensityMap(int rows, int cols, Fleet fleet, Random rnd, AiParams params, int[] prior) {
+        this.grid = new TargetGrid(rows, cols, fleet);
+        this.rows = rows;
+        this.cols = cols;
+        this.n = rows * cols;
+        this.salt = rnd.nextLong();
+        this.prior = prior;
+
+        TreeMap<Integer, Integer> bySize = new TreeMap<>();
+        for (Fleet.Entry e : fleet.entries()) bySize.merge(e.size, e.count, Integer::sum);
+        lengths = new int[bySize.size()];
+        counts = new int[bySize.size()];
+        int k = 0;
+        for (Map.Entry<Integer, Integer> e : bySize.entrySet()) {
+            lengths[k] = e.getKey();
+            counts[k++] = e.getValue();
+        }
+        lengthWeight = new long[lengths.length];
+        for (k = 0; k < lengths.length; k++) lengthWeight[k] = Math.round(64 * Math.pow(lengths[k], params.lengthExponent));
+        hitWeight = new long[lengths[lengths.length - 1] + 1];
+        for (int h = 0; h < hitWeight.length; h++) hitWeight[h] = Math.round(16 * Math.pow(h, params.hitExponent));
+
+        cover = new int[lengths.length][n];
+        for (k = 0; k < lengths.length; k++) {
+            int len = lengths[k];
+            for (int r = 0; r < rows; r++)
+                for (int c = 0; c < cols; c++)
+                    cover[k][r * cols + c] = starts(c, cols, len) + starts(r, rows, len);
+        }
+        blocked = new boolean[n];
+        pending = new boolean[n];
+        weight = new long[n];
+
+        score = new long[n];
+        int size = 1;
+        while (size < n) size <<= 1;
+        leaves = size;
+        tree = new int[2 * leaves];
+        rebuild();
+    }
+
+    // Best cell to fire at next, or -1 if every cell has been tried. Shots the
+    // map was never told about are picked up from the board as they are found.
+    int next(Board board) {
+        while (true) {
+            int cell = grid.openHitCount() > 0 ? targetCell() : -1;
+            if (cell < 0) {
+                cell = tree[1];
+                if (cell < 0 || score[cell] < 0) return -1;
+            }
+            CellState s = board.stateAt(cell);
+            if (s == CellState.HIT) record(cell, FireResult.hit());
+            else if (s == CellState.MISS) record(cell, FireResult.miss());
+            else return cell;
+        }
+    }
+
+    // Salvo: the best cells to fire at together, into out; returns how many were found.
+    // Each pick is held out of the scores while the rest are chosen, then put back so
+    // its result is recorded like any other shot.
+    int volley(Board board, int shots, int[] out) {
+        int k = 0;
+        while (k < shots) {
+            int cell = next(board);
+            if (cell < 0) break;
+            out[k++] = cell;
+            pending[cell] = true;
+            refresh(cell);
+        }
+        for (int i = 0; i < k; i++) {
+            pending[out[i]] = false;
+            refresh(out[i]);
+        }
+        return k;
+    }
+
+    void record(int cell, FireResult res) {
+        if (grid.state(cell) != TargetGrid.UNKNOWN) return;
+        int[] sunk = grid.record(cell, res);
+        if (!res.hit) block(cell);
+        else refresh(cell);
+
+        if (res.sunk) {
+            for (int c : sunk) block(c);
+            int k = Arrays.binarySearch(lengths, res.sunkSize);
+            // a sink changes the weight of every remaining placement of that length
+            if (k >= 0 && counts[k] > 0) {
+                counts[k]--;
+                rebuild();
+            }
+        }
+    }
+
+    // number of placements of length len along one axis that cover position pos
+    private static int starts(int pos, int limit, int len) {
+        int lo = Math.max(0, pos - len + 1), hi = Math.min(pos, limit - len);
+        return Math.max(0, hi - lo + 1);
+    }
+
+    // removes every still-legal placement through cell
+    private void block(int cell) {
+        if (blocked[cell]) return;
+        int r = cell / cols, c = cell % cols;
+        for (int k = 0; k < lengths.length; k++) {
+            unplace(k, cell, c, cols, 1);
+            unplace(k, cell, r, rows, cols);
+        }
+        blocked[cell] = true;
+        refresh(cell);
+    }
+
+    private void unplace(int k, int cell, int pos, int limit, int step) {
+        int len = lengths[k];
+        int lo = Math.max(0, pos - len + 1), hi = Math.min(pos, limit - len);
+        for (int start = lo; start <= hi; start++) {
+            int first = cell - (pos - start) * step;
+            if (!legal(first, len, step)) continue;
+            for (int i = 0, c = first; i < len; i++, c += step) {
+                cover[k][c]--;
+                refresh(c);
+            }
+        }
+    }
+
+    private boolean legal(int first, int len, int step) {
+        for (int i = 0, c = first; i < len; i++, c += step)
+            if (blocked[c]) return false;
+        return true;
+    }
+
+    // Target mode: weigh the unknown cells of every legal placement through an open
+    // hit, favouring placements that already line up several hits.
+    private int targetCell() {
+        int used = 0;
+        for (int h = 0; h < grid.openHitCount(); h++) {
+            int cell = grid.openHit(h);
+            int r = cell / cols, c = cell % cols;
+            for (int k = 0; k < lengths.length; k++) {
+                if (counts[k] == 0) continue;
+                used = weigh(k, cell, c, cols, 1, used);
+                used = weigh(k, cell, r, rows, cols, used);
+            }
+        }
+        if (prior != null)
+            for (int i = 0; i < used; i++) weight[touched[i]] *= prior[touched[i]];
+        int best = -1;
+        for (int i = 0; i < used; i++) {
+            int c = touched[i];
+            if (best < 0 || weight[c] > weight[best] || (weight[c] == weight[best] && score[c] > score[best]))
+                best = c;
+        }
+        for (int i = 0; i < used; i++) weight[touched[i]] = 0;
+        return best;
+    }
+
+    private int weigh(int k, int cell, int pos, int limit, int step, int used) {
+        int len = lengths[k];
+        int lo = Math.max(0, pos - len + 1), hi = Math.min(pos, limit - len);
+        for (int start = lo; start <= hi; start++) {
+            int first = cell - (pos - start) * step;
+            if (!legal(first, len, step)) continue;
+            int hits = 0;
+            for (int i = 0, c = first; i < len; i++, c += step)
+                if (grid.state(c) == TargetGrid.HIT) hits++;
+            long w = counts[k] * hitWeight[hits];
+            for (int i = 0, c = first; i < len; i++, c += step) {
+                if (grid.state(c) != TargetGrid.UNKNOWN || pending[c]) continue;
+                if (weight[c] == 0) {
+                    if (used == touched.length) touched = Arrays.copyOf(touched, used * 2);
+                    touched[used++] = c;
+                }
+                weight[c] += w;
+            }
+        }
+        return used;
+    }
+
+    private long scoreOf(int cell) {
+        if (grid.state(cell) != TargetGrid.UNKNOWN || pending[cell]) return -1;
+        long density = 0;
+        for (int k = 0; k < lengths.length; k++) density += counts[k] * cover[k][cell] * lengthWeight[k];
+        if (prior != null) density *= prior[cell];
+        long h = (cell ^ salt) * 0x9E3779B97F4A7C15L;
+        return density << JITTER_BITS | (h >>> (64 - JITTER_BITS));
+    }
+
+    private void refresh(int cell) {
+        score[cell] = scoreOf(cell);
+        for (int j = (leaves + cell) >>> 1; j >= 1; j >>>= 1)
+            tree[j] = better(tree[2 * j], tree[2 * j + 1]);
+    }
+
+    private void rebuild() {
+        for (int i = 0; i < leaves; i++) {
+            tree[leaves + i] = i < n ? i : -1;
+            if (i < n) score[i] = scoreOf(i);
+        }
+        for (int j = leaves - 1; j >= 1; j--) tree[j] = better(tree[2 * j], tree[2 * j + 1]);
+    }
+
+    private int better(int a, int b) {
+        if (a < 0) return b;
+        if (b < 0) return a;
+        return score[a] >= score[b] ? a : b;
+    }
+}
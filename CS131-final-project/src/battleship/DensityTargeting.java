@@ -0,0 +1,73 @@
+package battleship;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// EXPERT: probability density over the legal placements of the remaining fleet.
+final class DensityTargeting implements TargetingStrategy {
+    private final Random rnd;
+    private final AiParams params;
+    private int[] prior;
+    private DensityMap density;
+    private int cols;
+
+    DensityTargeting(Random rnd) {
+        this(rnd, AiParams.EXPERT);
+    }
+
+    DensityTargeting(Random rnd, AiParams params) {
+        this.rnd = rnd;
+        this.params = params;
+    }
+
+    @Override
+    public Pos nextTarget(Board b) {
+        init(b);
+        int cell = density.next(b);
+        if (cell < 0) throw new IllegalStateException("No untried cells left");
+        return b.cellPos(cell);
+    }
+
+    @Override
+    public List<Pos> nextVolley(Board b, int shots) {
+        init(b);
+        int[] cells = new int[shots];
+        int n = density.volley(b, shots, cells);
+        if (n == 0) throw new IllegalStateException("No untried cells left");
+        List<Pos> out = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) out.add(b.cellPos(cells[i]));
+        return out;
+    }
+
+    @Override
+    public boolean openingBook() { return true; }
+
+    @Override
+    public boolean prior(int[] weights) {
+        prior = weights;
+        return true;
+    }
+
+    // Building the map is the only step that grows with the board; each shot after that
+    // updates it in O(L^2). The map is kept only once complete, so a move cancelled
+    // here starts over next time.
+    private void init(Board b) {
+        if (density != null) return;
+        DensityMap map = new DensityMap(b.rows(), b.cols(), b.fleet(), rnd, params, prior);
+        // shots fired before the map existed, such as an opening from the book
+        for (int c = 0; c < b.rows() * b.cols(); c++) {
+            if (c % b.cols() == 0) TargetingStrategy.checkCancelled();
+            CellState s = b.stateAt(c);
+            if (s == CellState.HIT) map.record(c, FireResult.hit());
+            else if (s == CellState.MISS) map.record(c, FireResult.miss());
+        }
+        cols = b.cols();
+        density = map;
+    }
+
+    @Override
+    public void informResult(Pos p, FireResult res) {
+        if (density != null) density.record(p.row * cols + p.col, res);
+    }
+}
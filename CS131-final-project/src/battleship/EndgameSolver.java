@@ -0,0 +1,530 @@
+package battleship;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+// Exact endgame search for the AI players. Once few enough fleet layouts agree with
+// what the AI has seen (misses, open hits and the ships already sunk), all of them are
+// listed and each shot is chosen to minimise the expected number of shots still needed,
+// every layout counting as equally likely. A layout needs each of its untried ship
+// cells hit whatever order they are fired in, so that part of the cost is fixed and the
+// search minimises the expected number of misses instead. Two shortcuts keep it small:
+// a cell that every layout has a ship on costs no miss and never loses information, so
+// it is taken first without branching, and of several cells covered by exactly the same
+// layouts only one is tried, since after it hits the others are such free cells.
+//
+// The layouts are listed once, when their count first drops to maxLayouts, and then
+// filtered by every result that comes in. Only the cells some layout uses (at most 64
+// of them, the region) matter from then on, so a search state is two bit sets: the
+// layouts still possible and the region cells fired at. That pair is the memo key, and
+// it stays valid from one move to the next, so later moves mostly read answers an
+// earlier search already worked out. The search is exponential in the layouts, hence
+// the budgets: when a listing runs out the caller plays its own move, and when a search
+// does the solver falls back to the most likely cell until fewer layouts remain.
+//
+// Listing is only tried once at most MAX_UNKNOWN cells are left untried; before that
+// there are far too many layouts and the attempt would be wasted. The placements the
+// listing draws from are found once, with one pass over the board, and after that only
+// pruned, since shots can rule placements out but never bring new ones in.
+final class EndgameSolver {
+    private static final int LISTING_BUDGET = 20_000; // placements looked at per listing attempt
+    private static final int SEARCH_BUDGET = 2_000;   // search states expanded per move
+    private static final int MEMO_LIMIT = 200_000;
+    private static final int MAX_BACKOFF = 64;         // moves between listing attempts at most
+    private static final int MAX_UNKNOWN = 256;        // untried cells at which listing starts
+
+    // every move this JVM's solvers chose, reported by Simulator
+    static final LatencyHistogram SOLVE_TIME = new LatencyHistogram();
+    static final LongAdder EXACT = new LongAdder();
+    static final LongAdder OVER_BUDGET = new LongAdder(); // searches given up for the most likely cell
+
+    private static final RuntimeException OUT_OF_BUDGET = new RuntimeException("budget", null, false, false) {
+        private static final long serialVersionUID = 1L;
+    };
+
+    private final int rows;
+    private final int cols;
+    private final int n;
+    private final int maxLayouts; // the solver switches on at this many consistent layouts, at most 64
+    private final long[] tried; // every cell fired at, as the solver was told
+    private int untried;
+
+    // The layouts found when the solver switched on. Region cell i is board cell
+    // region[i]; on[i] has a bit for each layout with a ship there, and shipOf holds that
+    // ship's index + 1 per layout and region cell. Ship s of layout l is ships * l + s in
+    // shipCells (its region cells) and shipLen.
+    private boolean active;
+    private int[] region;
+    private final int[] regionIndex; // per board cell, -1 outside the region
+    private int ships;
+    private long[] on;
+    private byte[] shipOf;
+    private long[] shipCells;
+    private int[] shipLen;
+    private long alive;
+    private long shot;          // region cells fired at
+    private final HashMap<Key, Double> values = new HashMap<>(); // expected misses of a search state
+    private final HashMap<Key, Double> bounds = new HashMap<>(); // lower bounds from searches cut off early
+    private int nodes;
+    private int hopeless; // a search at this many layouts ran out of budget; wait for fewer
+    private int backoff;  // a failed listing doubles the wait before the next; a hit resets it
+    private int retryIn;
+
+    // placements of the ships afloat, found on the first listing and pruned on later ones
+    private int[] placeFirst;
+    private int[] placeStep;
+    private int[] placeLen;
+    private int placeCount;
+
+    EndgameSolver(int rows, int cols, int maxLayouts) {
+        this.rows = rows;
+        this.cols = cols;
+        this.n = rows * cols;
+        this.maxLayouts = maxLayouts;
+        this.tried = new long[(n + 63) >>> 6];
+        this.untried = n;
+        this.regionIndex = new int[n];
+        Arrays.fill(regionIndex, -1);
+    }
+
+    // Cell the solver would fire at, or -1 while too many layouts remain. The grid must
+    // have been told about exactly the shots passed to record().
+    int next(TargetGrid grid) {
+        if (!active) {
+            if (untried > MAX_UNKNOWN) return -1;
+            if (retryIn > 0) {
+                retryIn--;
+                return -1;
+            }
+            if (!activate(grid)) {
+                backoff = Math.min(Math.max(1, backoff * 2), MAX_BACKOFF);
+                retryIn = backoff;
+                return -1;
+            }
+            backoff = 0;
+        }
+        long t0 = System.nanoTime();
+        int cell = choose();
+        SOLVE_TIME.recordShared(System.nanoTime() - t0);
+        return cell;
+    }
+
+    void record(int cell, FireResult res) {
+        if (res.alreadyTried || Board.isSet(tried, cell)) return;
+        tried[cell >>> 6] |= 1L << cell;
+        untried--;
+        if (!active) {
+            if (res.hit) backoff = retryIn = 0;
+            return;
+        }
+        int i = regionIndex[cell];
+        if (i < 0) {
+            // no layout has a ship there
+            if (res.hit) active = false;
+            return;
+        }
+        int outcome = !res.hit ? 0 : res.sunk ? 2 + res.sunkSize : 1;
+        for (long bits = alive; bits != 0; bits &= bits - 1) {
+            int l = Long.numberOfTrailingZeros(bits);
+            if (outcome(l, i, shot) != outcome) alive &= ~(1L << l);
+        }
+        shot |= 1L << i;
+        // nothing listed fits what happened, e.g. a sunk ship was put on the wrong cells
+        if (alive == 0) active = false;
+    }
+
+    // --- search ---
+
+    private int choose() {
+        int count = Long.bitCount(alive);
+        int forced = forced(alive, count, shot);
+        if (forced >= 0) return region[forced];
+        int[] order = candidates(alive, shot);
+        if (order.length == 0) return -1;
+        if (count >= hopeless) return region[order[0]];
+
+        nodes = 0;
+        int best = -1;
+        double bestMisses = Double.MAX_VALUE;
+        try {
+            for (int i : order) {
+                double miss = 1 - (double) Long.bitCount(on[i] & alive) / count;
+                if (miss >= bestMisses) break; // the rest miss more often before anything else is counted
+                double m = miss + after(alive, count, shot, i, bestMisses - miss);
+                if (m < bestMisses) {
+                    bestMisses = m;
+                    best = i;
+                }
+            }
+            EXACT.increment();
+        } catch (RuntimeException e) {
+            if (e != OUT_OF_BUDGET) throw e;
+            OVER_BUDGET.increment();
+            hopeless = count;
+            best = order[0];
+        }
+        if (values.size() + bounds.size() > MEMO_LIMIT) {
+            values.clear();
+            bounds.clear();
+        }
+        return best < 0 ? -1 : region[best];
+    }
+
+    // Least expected misses from this state on. Once it is clear the answer is not below
+    // cutoff the search stops and returns a lower bound that is at least cutoff instead.
+    private double misses(long set, int count, long done, double cutoff) {
+        if (count == 1) return 0;
+        // shots at cells no layout here uses no longer matter, so they are left out of the key
+        long used = 0;
+        for (int i = 0; i < region.length; i++)
+            if ((on[i] & set) != 0) used |= 1L << i;
+        Key key = new Key(set, done & used);
+        Double known = values.get(key);
+        if (known != null) return known;
+        Double bound = bounds.get(key);
+        if (bound != null && bound >= cutoff) return bound;
+        if (++nodes > SEARCH_BUDGET) throw OUT_OF_BUDGET;
+        if ((nodes & 255) == 0) TargetingStrategy.checkCancelled();
+
+        double best;
+        int forced = forced(set, count, done);
+        if (forced >= 0) {
+            best = after(set, count, done, forced, cutoff);
+        } else {
+            int[] order = candidates(set, done);
+            double floor = order.length == 0 ? 0 : leastMisses(count, Long.bitCount(on[order[0]] & set));
+            if (floor >= cutoff) {
+                bounds.put(key, floor);
+                return floor;
+            }
+            best = order.length == 0 ? 0 : cutoff;
+            for (int i : order) {
+                double miss = 1 - (double) Long.bitCount(on[i] & set) / count;
+                if (miss >= best) break;
+                best = Math.min(best, miss + after(set, count, done, i, best - miss));
+            }
+        }
+        if (best < cutoff) values.put(key, best);
+        else bounds.put(key, best);
+        return best;
+    }
+
+    // Expected misses after firing at region cell i, over the results it can have; stops
+    // early, with a lower bound, once the total cannot come in under cutoff.
+    private double after(long set, int count, long done, int i, double cutoff) {
+        long[] parts = new long[3];
+        parts[0] = set & ~on[i];
+        for (long bits = set & on[i]; bits != 0; bits &= bits - 1) {
+            int l = Long.numberOfTrailingZeros(bits);
+            int o = outcome(l, i, done);
+            if (o >= parts.length) parts = Arrays.copyOf(parts, o + 1);
+            parts[o] |= 1L << l;
+        }
+        long next = done | 1L << i;
+        double sum = 0, limit = cutoff * count;
+        for (int o = 0; o < parts.length && sum < limit; o++) {
+            int size = Long.bitCount(parts[o]);
+            if (size > 0) sum += size * misses(parts[o], size, next, (limit - sum) / size);
+        }
+        return sum / count;
+    }
+
+    // Lower bound on the expected misses when no cell is on more than most of count layouts:
+    // however the shots are chosen, the first k of them all miss with probability at least
+    // 1 - k * most / count, and each of those misses counts.
+    private static double leastMisses(int count, int most) {
+        double sum = 0;
+        for (int k = 1; k * most < count; k++) sum += 1 - (double) k * most / count;
+        return sum;
+    }
+
+    // a region cell not yet fired at that every layout in the set has a ship on, or -1
+    private int forced(long set, int count, long done) {
+        for (int i = 0; i < region.length; i++)
+            if ((done & 1L << i) == 0 && Long.bitCount(on[i] & set) == count) return i;
+        return -1;
+    }
+
+    // One region cell not yet fired at for each distinct set of layouts covering one,
+    // most often covered first.
+    private int[] candidates(long set, long done) {
+        long[] order = new long[region.length];
+        long[] seen = new long[region.length];
+        int k = 0;
+        outer:
+        for (int i = 0; i < region.length; i++) {
+            long covering = on[i] & set;
+            if (covering == 0 || (done & 1L << i) != 0) continue;
+            for (int j = 0; j < k; j++)
+                if (seen[j] == covering) continue outer;
+            seen[k] = covering;
+            order[k++] = (long) -Long.bitCount(covering) << 32 | i;
+        }
+        Arrays.sort(order, 0, k);
+        int[] cells = new int[k];
+        for (int j = 0; j < k; j++) cells[j] = (int) order[j];
+        return cells;
+    }
+
+    // result of firing at region cell i if layout l is the real one: 0 for a miss, 1 for
+    // a hit, 2 + length for a sink
+    private int outcome(int l, int i, long done) {
+        int s = shipOf[l * region.length + i];
+        if (s == 0) return 0;
+        s += l * ships - 1;
+        return (shipCells[s] & ~done & ~(1L << i)) != 0 ? 1 : 2 + shipLen[s];
+    }
+
+    private static final class Key {
+        private final long set;
+        private final long done;
+
+        Key(long set, long done) {
+            this.set = set;
+            this.done = done;
+        }
+
+        @Override
+        public int hashCode() {
+            // the high half of the product depends on every bit of both sets
+            long h = (set ^ Long.rotateLeft(done, 32)) * 0x9E3779B97F4A7C15L;
+            return (int) (h >>> 32) ^ (int) h;
+        }
+
+        @Override
+        public boolean equals(Object o) { return o instanceof Key k && set == k.set && done == k.done; }
+    }
+
+    // --- listing the layouts ---
+
+    // Lists the layouts of the ships still afloat that cover every open hit and avoid
+    // misses and sunk ships. A ship lying only on hits would have been reported sunk,
+    // so each one needs an unknown cell too. False if there are too many to list, or
+    // they spread over more than 64 cells.
+    private boolean activate(TargetGrid grid) {
+        int count = 0, length = 0;
+        for (int k = 1; k <= grid.maxSize(); k++) {
+            count += grid.remaining(k);
+            length += k * grid.remaining(k);
+        }
+        // every ship cell of a layout is a region cell
+        if (count == 0 || length > 64) return false;
+        int[] fleet = new int[count];
+        for (int k = grid.maxSize(), i = 0; k >= 1; k--)
+            for (int j = 0; j < grid.remaining(k); j++) fleet[i++] = k;
+
+        if (placeFirst == null) listPlacements(grid, fleet);
+        else prunePlacements(grid);
+        Listing listing = new Listing(grid, fleet);
+        try {
+            listing.cover(0);
+        } catch (RuntimeException e) {
+            if (e != OUT_OF_BUDGET) throw e;
+            return false;
+        }
+        List<int[]> found = listing.found;
+        if (found.isEmpty()) return false;
+
+        if (region != null) for (int c : region) regionIndex[c] = -1;
+        int[] cellsUsed = new int[64];
+        int cells = 0;
+        for (int[] layout : found) {
+            for (int p : layout) {
+                for (int k = 0, c = placeFirst[p]; k < placeLen[p]; k++, c += placeStep[p]) {
+                    if (regionIndex[c] >= 0) continue;
+                    if (cells == 64) {
+                        for (int i = 0; i < cells; i++) regionIndex[cellsUsed[i]] = -1;
+                        region = null;
+                        return false;
+                    }
+                    cellsUsed[cells] = c;
+                    regionIndex[c] = cells++;
+                }
+            }
+        }
+        region = Arrays.copyOf(cellsUsed, cells);
+
+        ships = fleet.length;
+        on = new long[cells];
+        shipOf = new byte[found.size() * cells];
+        shipCells = new long[found.size() * ships];
+        shipLen = new int[found.size() * ships];
+        for (int l = 0; l < found.size(); l++) {
+            for (int s = 0; s < ships; s++) {
+                int p = found.get(l)[s], at = l * ships + s;
+                shipLen[at] = placeLen[p];
+                for (int k = 0, c = placeFirst[p]; k < placeLen[p]; k++, c += placeStep[p]) {
+                    int i = regionIndex[c];
+                    shipCells[at] |= 1L << i;
+                    shipOf[l * cells + i] = (byte) (s + 1);
+                    on[i] |= 1L << l;
+                }
+            }
+        }
+        alive = found.size() == 64 ? -1L : (1L << found.size()) - 1;
+        shot = 0;
+        for (int i = 0; i < cells; i++)
+            if (Board.isSet(tried, region[i])) shot |= 1L << i;
+        values.clear();
+        bounds.clear();
+        hopeless = Integer.MAX_VALUE;
+        active = true;
+        return true;
+    }
+
+    // every placement of every afloat length that avoids misses and sunk cells and has an unknown cell
+    private void listPlacements(TargetGrid grid, int[] fleet) {
+        int[] f = new int[64], st = new int[64], ln = new int[64];
+        int k = 0;
+        for (int size = fleet[0]; size >= 1; size--) {
+            if (grid.remaining(size) == 0) continue;
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < cols; c++) {
+                    for (int horiz = 0; horiz < (size == 1 ? 1 : 2); horiz++) {
+                        int s = horiz == 1 ? 1 : cols;
+                        if (horiz == 1 ? c + size > cols : r + size > rows) continue;
+                        boolean open = true, unknown = false;
+                        for (int i = 0, cell = r * cols + c; i < size && open; i++, cell += s) {
+                            byte state = grid.state(cell);
+                            open = state == TargetGrid.UNKNOWN || state == TargetGrid.HIT;
+                            unknown |= state == TargetGrid.UNKNOWN;
+                        }
+                        if (!open || !unknown) continue;
+                        if (k == f.length) {
+                            f = Arrays.copyOf(f, 2 * k);
+                            st = Arrays.copyOf(st, 2 * k);
+                            ln = Arrays.copyOf(ln, 2 * k);
+                        }
+                        f[k] = r * cols + c;
+                        st[k] = s;
+                        ln[k++] = size;
+                    }
+                }
+            }
+        }
+        placeFirst = f;
+        placeStep = st;
+        placeLen = ln;
+        placeCount = k;
+    }
+
+    // drops the placements that shots since the last listing have ruled out; keeps the order
+    private void prunePlacements(TargetGrid grid) {
+        int k = 0;
+        for (int p = 0; p < placeCount; p++) {
+            if (grid.remaining(placeLen[p]) == 0) continue;
+            boolean open = true, unknown = false;
+            for (int i = 0, cell = placeFirst[p]; i < placeLen[p] && open; i++, cell += placeStep[p]) {
+                byte state = grid.state(cell);
+                open = state == TargetGrid.UNKNOWN || state == TargetGrid.HIT;
+                unknown |= state == TargetGrid.UNKNOWN;
+            }
+            if (!open || !unknown) continue;
+            placeFirst[k] = placeFirst[p];
+            placeStep[k] = placeStep[p];
+            placeLen[k++] = placeLen[p];
+        }
+        placeCount = k;
+    }
+
+    // Backtracking over placements. Ships are first laid through the first open hit
+    // still uncovered, which prunes hard; once every hit is covered the remaining ships
+    // go anywhere, in placement order within a length. Both orders can reach the same
+    // layout, so layouts are kept as sorted placement lists in a set.
+    private final class Listing {
+        final TargetGrid grid;
+        final int[] fleet;        // afloat ship lengths, longest first
+        final boolean[] used;
+        final int[] chosen;
+        final long[] occupied = new long[(n + 63) >>> 6];
+        final Set<List<Integer>> seen = new HashSet<>();
+        final List<int[]> found = new ArrayList<>();
+        int steps;
+
+        Listing(TargetGrid grid, int[] fleet) {
+            this.grid = grid;
+            this.fleet = fleet;
+            this.used = new boolean[fleet.length];
+            this.chosen = new int[fleet.length];
+        }
+
+        void cover(int placed) {
+            int hit = -1;
+            for (int i = 0; i < grid.openHitCount() && hit < 0; i++)
+                if (!Board.isSet(occupied, grid.openHit(i))) hit = grid.openHit(i);
+            if (hit < 0) {
+                spread(0, -1);
+                return;
+            }
+            if (placed == fleet.length) return;
+            for (int s = 0; s < fleet.length; s++) {
+                // one ship of each length is enough, the others would list the same layouts
+                if (used[s] || s > 0 && fleet[s] == fleet[s - 1] && !used[s - 1]) continue;
+                for (int p = 0; p < placeCount; p++) {
+                    if (++steps > LISTING_BUDGET) throw OUT_OF_BUDGET;
+                    if ((steps & 1023) == 0) TargetingStrategy.checkCancelled();
+                    if (placeLen[p] != fleet[s] || !covers(p, hit) || !put(p)) continue;
+                    used[s] = true;
+                    chosen[s] = p;
+                    cover(placed + 1);
+                    used[s] = false;
+                    take(p);
+                }
+            }
+        }
+
+        // lays the unused ships from index s on; last is the placement laid just before
+        void spread(int s, int last) {
+            while (s < fleet.length && used[s]) s++;
+            if (s == fleet.length) {
+                keep();
+                return;
+            }
+            int from = last >= 0 && placeLen[last] == fleet[s] ? last + 1 : 0;
+            for (int p = from; p < placeCount; p++) {
+                if (++steps > LISTING_BUDGET) throw OUT_OF_BUDGET;
+                if ((steps & 1023) == 0) TargetingStrategy.checkCancelled();
+                if (placeLen[p] != fleet[s] || !put(p)) continue;
+                used[s] = true;
+                chosen[s] = p;
+                spread(s + 1, p);
+                used[s] = false;
+                take(p);
+            }
+        }
+
+        void keep() {
+            int[] layout = chosen.clone();
+            // same-length ships are interchangeable, so sort within each length
+            for (int a = 0, b; a < layout.length; a = b) {
+                for (b = a + 1; b < layout.length && fleet[b] == fleet[a]; ) b++;
+                Arrays.sort(layout, a, b);
+            }
+            List<Integer> key = new ArrayList<>(layout.length);
+            for (int p : layout) key.add(p);
+            if (!seen.add(key)) return;
+            if (found.size() == maxLayouts) throw OUT_OF_BUDGET;
+            found.add(layout);
+        }
+
+        boolean covers(int p, int cell) {
+            for (int i = 0, c = placeFirst[p]; i < placeLen[p]; i++, c += placeStep[p])
+                if (c == cell) return true;
+            return false;
+        }
+
+        // marks the placement's cells, unless one is taken
+        boolean put(int p) {
+            for (int i = 0, c = placeFirst[p]; i < placeLen[p]; i++, c += placeStep[p])
+                if (Board.isSet(occupied, c)) return false;
+            for (int i = 0, c = placeFirst[p]; i < placeLen[p]; i++, c += placeStep[p])
+                occupied[c >>> 6] |= 1L << c;
+            return true;
+        }
+
+        void take(int p) {
+            for (int i = 0, c = placeFirst[p]; i < placeLen[p]; i++, c += placeStep[p])
+                occupied[c >>> 6] &= ~(1L << c);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package battleship;
+
+import java.util.List;
+
+// Plays another strategy until an EndgameSolver can take over, i.e. until few enough
+// fleet layouts are left that the best shot can be worked out exactly, and whenever the
+// solver gives up on a move. Salvo volleys always come from the inner strategy.
+final class EndgameTargeting implements TargetingStrategy {
+    private final TargetingStrategy inner;
+    private final int maxLayouts;
+    private TargetGrid grid;
+    private EndgameSolver solver;
+    private int cols;
+    private int known; // shots the grid has recorded
+
+    EndgameTargeting(TargetingStrategy inner, int maxLayouts) {
+        this.inner = inner;
+        this.maxLayouts = maxLayouts;
+    }
+
+    @Override
+    public Pos nextTarget(Board b) {
+        if (grid == null) {
+            grid = new TargetGrid(b.rows(), b.cols(), b.fleet());
+            solver = new EndgameSolver(b.rows(), b.cols(), maxLayouts);
+            cols = b.cols();
+        }
+        syncWith(b);
+        int cell = solver.next(grid);
+        return cell >= 0 ? b.cellPos(cell) : inner.nextTarget(b);
+    }
+
+    @Override
+    public List<Pos> nextVolley(Board b, int shots) {
+        return inner.nextVolley(b, shots);
+    }
+
+    @Override
+    public boolean openingBook() { return inner.openingBook(); }
+
+    @Override
+    public boolean prior(int[] weights) { return inner.prior(weights); }
+
+    @Override
+    public void informResult(Pos p, FireResult res) {
+        inner.informResult(p, res);
+        if (grid == null) return;
+        int cell = p.row * cols + p.col;
+        if (!res.alreadyTried && grid.state(cell) == TargetGrid.UNKNOWN) known++;
+        grid.record(cell, res);
+        solver.record(cell, res);
+    }
+
+    // Picks up shots the player was never told about, e.g. when a front end skips
+    // informResult or only mirrors the opponent's board with recordShot. Counting the
+    // board's fired cells is cheap; the full scan only runs when that count is ahead.
+    private void syncWith(Board b) {
+        int n = b.rows() * cols;
+        if (n - b.untried() == known) return;
+        for (int c = 0; c < n; c++) {
+            if (grid.state(c) != TargetGrid.UNKNOWN) continue;
+            CellState s = b.stateAt(c);
+            FireResult res;
+            if (s == CellState.HIT) res = FireResult.hit();
+            else if (s == CellState.MISS) res = FireResult.miss();
+            else continue;
+            grid.record(c, res);
+            solver.record(c, res);
+            known++;
+        }
+    }
+}
@@ -1,23 +1,37 @@
 package battleship;
 
 public class FireResult {
+    // results are immutable, so every shot shares these instances instead of allocating
+    private static final FireResult MISS = new FireResult(false, false, null, 0, false);
+    private static final FireResult HIT = new FireResult(true, false, null, 0, false);
+    private static final FireResult ALREADY = new FireResult(false, false, null, 0, true);
+    private static final FireResult[] SUNK = new FireResult[ShipType.values().length];
+    static {
+        for (ShipType t : ShipType.values()) SUNK[t.ordinal()] = new FireResult(true, true, t, t.size, false);
+    }
+
     public final boolean hit;
     public final boolean sunk;
     public final ShipType sunkType;
+    public final int sunkSize; // length of the sunk ship, 0 unless sunk
     public final boolean alreadyTried;
-    public Object sunkShip;
 
-    private FireResult(boolean hit, boolean sunk, ShipType sunkType, boolean alreadyTried) {
+    private FireResult(boolean hit, boolean sunk, ShipType sunkType, int sunkSize, boolean alreadyTried) {
         this.hit = hit;
         this.sunk = sunk;
         this.sunkType = sunkType;
+        this.sunkSize = sunkSize;
         this.alreadyTried = alreadyTried;
     }
 
-    public static FireResult miss() { return new FireResult(false, false, null, false); }
-    public static FireResult hit()  { return new FireResult(true, false, null, false); }
-    public static FireResult sunk(ShipType type) { return new FireResult(true, true, type, false); }
-    public static FireResult already() { return new FireResult(false, false, null, true); }
+    public static FireResult miss() { return MISS; }
+    public static FireResult hit()  { return HIT; }
+    public static FireResult sunk(ShipType type) { return SUNK[type.ordinal()]; }
+    // only ships of a non-standard length need a fresh instance
+    public static FireResult sunk(ShipType type, int size) {
+        return size == type.size ? SUNK[type.ordinal()] : new FireResult(true, true, type, size, false);
+    }
+    public static FireResult already() { return ALREADY; }
 
     @Override
     public String toString() {
@@ -0,0 +1,119 @@
+package battleship;
+
+import java.util.*;
+
+// The ships each side puts on its board, as a list of (type, length, count) entries.
+// The type names the ship in prompts and sink reports; the length is what is placed,
+// so a fleet can use non-standard sizes. Specs are comma separated entries of the form
+// Type[:length][*count], e.g. "Carrier,Battleship*2,Destroyer:3*100".
+public final class Fleet {
+
+    public static final class Entry {
+        public final ShipType type;
+        public final int size;
+        public final int count;
+
+        Entry(ShipType type, int size, int count) {
+            if (size <= 0 || count <= 0) throw new IllegalArgumentException("Bad fleet entry: " + type + ":" + size + "*" + count);
+            this.type = type;
+            this.size = size;
+            this.count = count;
+        }
+
+        @Override
+        public String toString() {
+            return type.name() + (size != type.size ? ":" + size : "") + (count != 1 ? "*" + count : "");
+        }
+    }
+
+    private static final Fleet STANDARD;
+    static {
+        List<Entry> std = new ArrayList<>();
+        for (ShipType t : ShipType.values()) std.add(new Entry(t, t.size, 1));
+        STANDARD = new Fleet(std);
+    }
+
+    private final List<Entry> entries;
+    // one slot per ship, in entry order
+    private final ShipType[] types;
+    private final int[] sizes;
+    private final int totalCells;
+    private final int maxSize;
+
+    public Fleet(List<Entry> entries) {
+        if (entries.isEmpty()) throw new IllegalArgumentException("Empty fleet");
+        this.entries = List.copyOf(entries);
+        long ships = 0, cells = 0;
+        int max = 0;
+        for (Entry e : entries) {
+            ships += e.count;
+            cells += (long) e.size * e.count;
+            max = Math.max(max, e.size);
+        }
+        if (cells > Integer.MAX_VALUE) throw new IllegalArgumentException("Fleet too large");
+        types = new ShipType[(int) ships];
+        sizes = new int[(int) ships];
+        int i = 0;
+        for (Entry e : entries) {
+            for (int k = 0; k < e.count; k++, i++) {
+                types[i] = e.type;
+                sizes[i] = e.size;
+            }
+        }
+        totalCells = (int) cells;
+        maxSize = max;
+    }
+
+    // one of each ShipType at its usual size
+    public static Fleet standard() { return STANDARD; }
+
+    public static Fleet parse(String spec) {
+        List<Entry> out = new ArrayList<>();
+        for (String token : spec.split(",")) {
+            String t = token.trim();
+            if (t.isEmpty()) continue;
+            try {
+                int count = 1;
+                int star = t.indexOf('*');
+                if (star >= 0) {
+                    count = Integer.parseInt(t.substring(star + 1).trim());
+                    t = t.substring(0, star).trim();
+                }
+                int colon = t.indexOf(':');
+                String name = colon >= 0 ? t.substring(0, colon).trim() : t;
+                ShipType type = typeNamed(name);
+                int size = colon >= 0 ? Integer.parseInt(t.substring(colon + 1).trim()) : type.size;
+                out.add(new Entry(type, size, count));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Bad fleet entry: " + token.trim());
+            }
+        }
+        return new Fleet(out);
+    }
+
+    private static ShipType typeNamed(String name) {
+        for (ShipType t : ShipType.values())
+            if (t.name().equalsIgnoreCase(name)) return t;
+        throw new IllegalArgumentException("Unknown ship type: " + name);
+    }
+
+    public List<Entry> entries() { return entries; }
+    public int shipCount() { return sizes.length; }
+    public ShipType type(int ship) { return types[ship]; }
+    public int size(int ship) { return sizes[ship]; }
+    public int totalCells() { return totalCells; }
+    public int maxSize() { return maxSize; }
+
+    // Cheap necessary condition for the fleet to fit: enough cells and no ship longer
+    // than the board. FleetPlacer has the final word.
+    public boolean fits(int rows, int cols) {
+        return totalCells <= (long) rows * cols && maxSize <= Math.max(rows, cols);
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner j = new StringJoiner(",");
+        for (Entry e : entries) j.add(e.toString());
+        return j.toString();
+    }
+}
@@ -0,0 +1,154 @@
+package battleship;
+
+import java.util.Random;
+
+// Random fleet placement that always terminates. For every cell hRun/vRun hold the
+// number of free cells starting there and running right/down, so "does a ship of
+// length s fit here" is one comparison. Ships go down longest first: a few random
+// probes, and if those all miss, an exact count of the legal placements and a uniform
+// pick among them. A ship with no legal placement left restarts the layout; after
+// MAX_RESTARTS the placer gives up with an IllegalStateException. Each attempt costs
+// O(ships * (rows * cols)) at worst, so the whole call is bounded.
+final class FleetPlacer {
+    private static final int PROBES = 24;
+    private static final int MAX_RESTARTS = 50;
+
+    private final int rows;
+    private final int cols;
+    private final boolean[] taken;  // cells already covered on the board before we start
+    private final int[] hRun;
+    private final int[] vRun;
+
+    private FleetPlacer(Board board) {
+        rows = board.rows();
+        cols = board.cols();
+        taken = new boolean[rows * cols];
+        for (int cell = 0; cell < taken.length; cell++) taken[cell] = board.stateAt(cell) == CellState.SHIP;
+        hRun = new int[taken.length];
+        vRun = new int[taken.length];
+    }
+
+    // Places board.fleet() on the board. Throws IllegalStateException if it cannot be done.
+    static void place(Board board, Random rnd) {
+        place(board, board.fleet(), rnd);
+    }
+
+    static void place(Board board, Fleet fleet, Random rnd) {
+        FleetPlacer p = new FleetPlacer(board);
+        int free = 0;
+        for (boolean t : p.taken) if (!t) free++;
+        if (fleet.totalCells() > free || fleet.maxSize() > Math.max(p.rows, p.cols))
+            throw new IllegalStateException("Fleet " + fleet + " does not fit on a " + p.rows + "x" + p.cols + " board");
+        if (board.getShips().size() + fleet.shipCount() > Board.MAX_SHIPS)
+            throw new IllegalStateException("Fleet " + fleet + " has more than " + Board.MAX_SHIPS + " ships");
+
+        int n = fleet.shipCount();
+        int[] order = longestFirst(fleet);
+        int[] firsts = new int[n];
+        boolean[] horiz = new boolean[n];
+        for (int attempt = 0; attempt < MAX_RESTARTS; attempt++) {
+            if (p.layout(fleet, order, rnd, firsts, horiz)) {
+                for (int i = 0; i < n; i++) {
+                    Pos start = board.cellPos(firsts[i]);
+                    if (!board.placeShip(fleet.type(i), fleet.size(i), start, horiz[i]))
+                        throw new IllegalStateException("Placement rejected by board: " + fleet.type(i) + " at " + start);
+                }
+                return;
+            }
+        }
+        // every attempt dead-ended: the fleet is at best a near-perfect packing of the board
+        throw new IllegalStateException("Could not place fleet " + fleet + " on a " + p.rows + "x" + p.cols
+                                        + " board in " + MAX_RESTARTS + " attempts");
+    }
+
+    // ship indices sorted by length, longest first (counting sort, lengths are small)
+    private static int[] longestFirst(Fleet fleet) {
+        int n = fleet.shipCount(), max = fleet.maxSize();
+        int[] start = new int[max + 2];
+        for (int i = 0; i < n; i++) start[max - fleet.size(i) + 1]++;
+        for (int k = 1; k < start.length; k++) start[k] += start[k - 1];
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) order[start[max - fleet.size(i)]++] = i;
+        return order;
+    }
+
+    // one layout attempt into firsts/horiz; false on a dead end
+    private boolean layout(Fleet fleet, int[] order, Random rnd, int[] firsts, boolean[] horiz) {
+        resetRuns();
+        for (int i : order) {
+            int size = fleet.size(i);
+            int pick = probe(size, rnd);
+            if (pick < 0) pick = enumerate(size, rnd);
+            if (pick < 0) return false;
+            boolean h = (pick & 1) == 0;
+            int first = pick >>> 1;
+            occupy(first, size, h);
+            firsts[i] = first;
+            horiz[i] = h;
+        }
+        return true;
+    }
+
+    // placements are encoded as cell << 1 | (vertical ? 1 : 0)
+    private int probe(int size, Random rnd) {
+        int n = rows * cols;
+        for (int t = 0; t < PROBES; t++) {
+            int cell = rnd.nextInt(n);
+            boolean h = size == 1 || rnd.nextBoolean();
+            if ((h ? hRun[cell] : vRun[cell]) >= size) return cell << 1 | (h ? 0 : 1);
+        }
+        return -1;
+    }
+
+    // uniform pick among every legal placement, or -1 if there are none
+    private int enumerate(int size, Random rnd) {
+        int n = rows * cols;
+        boolean vertical = size > 1; // a single cell has one placement, not two
+        long total = 0;
+        for (int cell = 0; cell < n; cell++) {
+            if (hRun[cell] >= size) total++;
+            if (vertical && vRun[cell] >= size) total++;
+        }
+        if (total == 0) return -1;
+        long k = (long) (rnd.nextDouble() * total);
+        for (int cell = 0; cell < n; cell++) {
+            if (hRun[cell] >= size && k-- == 0) return cell << 1;
+            if (vertical && vRun[cell] >= size && k-- == 0) return cell << 1 | 1;
+        }
+        return -1;
+    }
+
+    private void resetRuns() {
+        for (int r = 0; r < rows; r++) {
+            int run = 0;
+            for (int c = cols - 1; c >= 0; c--) {
+                int cell = r * cols + c;
+                run = taken[cell] ? 0 : run + 1;
+                hRun[cell] = run;
+            }
+        }
+        for (int c = 0; c < cols; c++) {
+            int run = 0;
+            for (int r = rows - 1; r >= 0; r--) {
+                int cell = r * cols + c;
+                run = taken[cell] ? 0 : run + 1;
+                vRun[cell] = run;
+            }
+        }
+    }
+
+    // Marks a ship's cells as used. Only runs that reached into the ship shrink: the free
+    // cells left of and above each of its cells.
+    private void occupy(int first, int size, boolean horizontal) {
+        int r0 = first / cols, c0 = first % cols;
+        for (int i = 0; i < size; i++) {
+            int r = horizontal ? r0 : r0 + i, c = horizontal ? c0 + i : c0;
+            int cell = r * cols + c;
+            hRun[cell] = 0;
+            vRun[cell] = 0;
+            // inside the ship these stop at once, the neighbour is already 0
+            for (int cc = c - 1, d = 1; cc >= 0 && hRun[r * cols + cc] > 0; cc--, d++) hRun[r * cols + cc] = d;
+            for (int rr = r - 1, d = 1; rr >= 0 && vRun[rr * cols + c] > 0; rr--, d++) vRun[rr * cols + c] = d;
+        }
+    }
+}
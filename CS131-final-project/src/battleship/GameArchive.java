@@ -0,0 +1,345 @@
+package battleship;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Append-only archive of finished games, written and read through memory-mapped
+// segments. Each game is one entry: a fixed 64-byte header followed by one int per
+// ship sunk during the game. Writers reserve space by bumping an AtomicLong, so any
+// number of threads append without taking a lock; an entry never straddles a segment,
+// and a segment's unused tail is marked as padding. close() writes the file header
+// and an index of entry offsets after the data. While the archive is open the header's
+// tail is 0; opening an archive left that way by a crashed writer finds the tail again
+// by walking the entries (see recoverTail).
+//
+//   file header (4096 bytes): MAGIC VERSION segmentSize tail count indexOffset
+//   entry header (64 bytes):  see the field offsets below
+//   sink record (int):        target board << 31 | ship type << 28 | shooter's shot number
+//
+// Readers scan with Entry, a flyweight over the mapped bytes, so analytics never
+// build objects per game (see ArchiveStats).
+public final class GameArchive implements Closeable {
+    static final int MAGIC = 0x48435241; // "ARCH" little-endian
+    static final int VERSION = 1;
+    static final int FILE_HEADER = 4096;
+    static final int SEGMENT = 1 << 26;
+    private static final int MAX_SEGMENTS = 1 << 16;
+
+    // entry header layout
+    static final int ENTRY = 0x454D4147; // "GAME", written last once the entry is complete
+    static final int PAD = 0x44444150;   // "PADD", rest of the segment is unused
+    static final int ENTRY_HEADER = 64;
+    private static final int F_MAGIC = 0;
+    private static final int F_LENGTH = 4;
+    private static final int F_GAME_ID = 8;
+    private static final int F_SEED = 16;
+    private static final int F_P1 = 24;
+    private static final int F_P2 = 25;
+    private static final int F_WINNER = 26;
+    private static final int F_P1_FIRST = 27;
+    private static final int F_ROWS = 28;
+    private static final int F_COLS = 32;
+    private static final int F_SHOTS1 = 36;
+    private static final int F_SHOTS2 = 40;
+    private static final int F_SINKS = 44;
+
+    // player kinds stored in the header: Difficulty ordinals, then these
+    public static final int MONTECARLO = 0xFE;
+    public static final int OTHER = 0xFF;
+    private static final ShipType[] TYPES = ShipType.values();
+
+    private final FileChannel ch;
+    private final AtomicLong tail;
+    private final AtomicLong count;
+    private final AtomicReferenceArray<MappedByteBuffer> segments = new AtomicReferenceArray<>(MAX_SEGMENTS);
+    private volatile boolean closed;
+
+    // Opens an archive for appending, creating it if it does not exist.
+    public GameArchive(Path file) throws IOException {
+        boolean fresh = !Files.exists(file) || Files.size(file) == 0;
+        ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        tail = new AtomicLong(FILE_HEADER);
+        count = new AtomicLong();
+        if (!fresh) {
+            try {
+                ByteBuffer h = readHeader(ch);
+                if (h.getLong(12) != 0) {
+                    tail.set(h.getLong(12));
+                    count.set(h.getLong(20));
+                } else {
+                    recoverTail(ch.size());
+                }
+            } catch (IOException | RuntimeException e) {
+                ch.close();
+                throw e;
+            }
+        }
+        long n = count.get();
+        // mark the file as open; the real header goes back on close
+        ByteBuffer h = ByteBuffer.allocate(36).order(ByteOrder.LITTLE_ENDIAN);
+        h.putInt(MAGIC).putInt(VERSION).putInt(SEGMENT).putLong(0).putLong(n).putLong(0).flip();
+        ch.write(h, 0);
+    }
+
+    public static int playerKind(IPlayer p) {
+        if (p instanceof MonteCarloPlayer) return MONTECARLO;
+        if (p instanceof ComputerPlayer cp && cp.difficulty() != null) return cp.difficulty().ordinal();
+        return OTHER;
+    }
+
+    public static String kindName(int kind) {
+        if (kind == MONTECARLO) return "MONTECARLO";
+        if (kind < ComputerPlayer.Difficulty.values().length) return ComputerPlayer.Difficulty.values()[kind].name();
+        return "OTHER";
+    }
+
+    // Appends one finished game. sinks holds sinkCount records built with sinkRecord().
+    public void append(long gameId, long seed, int p1Kind, int p2Kind, boolean p1First, int winner,
+                       int rows, int cols, int shots1, int shots2, int[] sinks, int sinkCount) {
+        if (closed) throw new IllegalStateException("Archive is closed");
+        int length = (ENTRY_HEADER + 4 * sinkCount + 7) & ~7;
+        if (length > SEGMENT) throw new IllegalArgumentException("Game too large for the archive: " + sinkCount + " sinks");
+        long at = reserve(length);
+        ByteBuffer seg = segment((int) ((at - FILE_HEADER) / SEGMENT));
+        int o = (int) ((at - FILE_HEADER) % SEGMENT);
+        seg.putInt(o + F_LENGTH, length);
+        seg.putLong(o + F_GAME_ID, gameId);
+        seg.putLong(o + F_SEED, seed);
+        seg.put(o + F_P1, (byte) p1Kind);
+        seg.put(o + F_P2, (byte) p2Kind);
+        seg.put(o + F_WINNER, (byte) winner);
+        seg.put(o + F_P1_FIRST, (byte) (p1First ? 1 : 0));
+        seg.putInt(o + F_ROWS, rows);
+        seg.putInt(o + F_COLS, cols);
+        seg.putInt(o + F_SHOTS1, shots1);
+        seg.putInt(o + F_SHOTS2, shots2);
+        seg.putInt(o + F_SINKS, sinkCount);
+        for (int i = 0; i < sinkCount; i++) seg.putInt(o + ENTRY_HEADER + 4 * i, sinks[i]);
+        seg.putInt(o + F_MAGIC, ENTRY);
+        count.incrementAndGet();
+    }
+
+    // target is 0 for board1 (player 1's ships) or 1 for board2; shot is the shooter's shot number
+    public static int sinkRecord(int target, ShipType type, int shot) {
+        return target << 31 | type.ordinal() << 28 | (shot & 0x0FFFFFFF);
+    }
+
+    public long games() { return count.get(); }
+
+    // Claims length bytes. An entry that would cross into the next segment instead
+    // pads out the current one and retries at the start of the next.
+    private long reserve(int length) {
+        while (true) {
+            long start = tail.get();
+            long segEnd = FILE_HEADER + ((start - FILE_HEADER) / SEGMENT + 1) * SEGMENT;
+            if (start + length <= segEnd) {
+                if (tail.compareAndSet(start, start + length)) return start;
+            } else if (tail.compareAndSet(start, segEnd)) {
+                int s = (int) ((start - FILE_HEADER) / SEGMENT);
+                if (s + 1 >= MAX_SEGMENTS) throw new IllegalStateException("Archive is full");
+                ByteBuffer seg = segment(s);
+                int o = (int) ((start - FILE_HEADER) % SEGMENT);
+                seg.putInt(o + F_LENGTH, (int) (segEnd - start));
+                seg.putInt(o + F_MAGIC, PAD);
+            }
+        }
+    }
+
+    // Sets tail and count for an archive whose writer never reached close(): walks the
+    // ENTRY and PAD records from FILE_HEADER and stops at the first one that is missing,
+    // unfinished (an entry's magic is written last) or does not fit its segment. Entries
+    // finished after an unfinished one are lost; the next append overwrites them.
+    private void recoverTail(long size) {
+        long at = FILE_HEADER, n = 0;
+        while (at + ENTRY_HEADER <= size) {
+            ByteBuffer seg = segment((int) ((at - FILE_HEADER) / SEGMENT));
+            int o = (int) ((at - FILE_HEADER) % SEGMENT);
+            int magic = seg.getInt(o + F_MAGIC), length = seg.getInt(o + F_LENGTH);
+            if (magic != ENTRY && magic != PAD) break;
+            if (length < (magic == ENTRY ? ENTRY_HEADER : 8) || (length & 7) != 0 || o + (long) length > SEGMENT) break;
+            if (magic == ENTRY) n++;
+            at += length;
+        }
+        tail.set(at);
+        count.set(n);
+    }
+
+    // maps segments on first use; two threads racing here both map and one copy wins
+    private ByteBuffer segment(int s) {
+        MappedByteBuffer b = segments.get(s);
+        if (b == null) {
+            try {
+                b = ch.map(FileChannel.MapMode.READ_WRITE, FILE_HEADER + (long) s * SEGMENT, SEGMENT);
+            } catch (IOException e) {
+                throw new java.io.UncheckedIOException(e);
+            }
+            b.order(ByteOrder.LITTLE_ENDIAN);
+            if (!segments.compareAndSet(s, null, b)) b = segments.get(s);
+        }
+        return b;
+    }
+
+    // Flushes the data, writes the offset index after it and the final file header.
+    // Appends still running on other threads must have finished.
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            long end = tail.get();
+            for (int s = 0; s < MAX_SEGMENTS && segments.get(s) != null; s++) segments.get(s).force();
+
+            long indexOffset = end;
+            long n = 0;
+            ByteBuffer idx = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+            long pos = indexOffset;
+            for (long at = FILE_HEADER; at < end; ) {
+                ByteBuffer seg = segment((int) ((at - FILE_HEADER) / SEGMENT));
+                int o = (int) ((at - FILE_HEADER) % SEGMENT);
+                int magic = seg.getInt(o + F_MAGIC), length = seg.getInt(o + F_LENGTH);
+                if (length <= 0) throw new IOException("Corrupt archive entry at " + at);
+                if (magic == ENTRY) {
+                    if (!idx.hasRemaining()) pos = drain(idx, pos);
+                    idx.putLong(at);
+                    n++;
+                }
+                at += length;
+            }
+            pos = drain(idx, pos);
+            ch.truncate(pos);
+
+            ByteBuffer h = ByteBuffer.allocate(36).order(ByteOrder.LITTLE_ENDIAN);
+            h.putInt(MAGIC).putInt(VERSION).putInt(SEGMENT).putLong(end).putLong(n).putLong(indexOffset).flip();
+            ch.write(h, 0);
+            ch.force(true);
+        } finally {
+            ch.close();
+        }
+    }
+
+    private long drain(ByteBuffer buf, long pos) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) pos += ch.write(buf, pos);
+        buf.clear();
+        return pos;
+    }
+
+    static ByteBuffer readHeader(FileChannel ch) throws IOException {
+        ByteBuffer h = ByteBuffer.allocate(36).order(ByteOrder.LITTLE_ENDIAN);
+        while (h.hasRemaining() && ch.read(h, h.position()) > 0) { }
+        if (h.position() < 36 || h.getInt(0) != MAGIC) throw new IOException("Not a game archive");
+        if (h.getInt(4) != VERSION || h.getInt(8) != SEGMENT) throw new IOException("Unsupported archive format");
+        return h;
+    }
+
+    // ------------------------------------------------------------------ reading
+
+    public interface Visitor {
+        void visit(Entry e);
+    }
+
+    // Read-only view of a closed archive. Segments are mapped lazily and shared by all scans.
+    public static final class Reader implements Closeable {
+        private final FileChannel ch;
+        private final long end;
+        private final long count;
+        private final long indexOffset;
+        private final MappedByteBuffer[] segments;
+
+        public Reader(Path file) throws IOException {
+            ch = FileChannel.open(file, StandardOpenOption.READ);
+            try {
+                ByteBuffer h = readHeader(ch);
+                end = h.getLong(12);
+                count = h.getLong(20);
+                indexOffset = h.getLong(28);
+                if (end == 0)
+                    throw new IOException("Archive is open for writing, or its writer crashed"
+                                          + " (opening it for appending recovers it): " + file);
+            } catch (IOException e) {
+                ch.close();
+                throw e;
+            }
+            segments = new MappedByteBuffer[segmentCount()];
+        }
+
+        public long games() { return count; }
+        public int segmentCount() { return (int) ((end - FILE_HEADER + SEGMENT - 1) / SEGMENT); }
+
+        // Visits every entry of one segment in order. Segments can be scanned in parallel.
+        public void scanSegment(int s, Visitor v) throws IOException {
+            ByteBuffer seg = map(s);
+            Entry e = new Entry(seg);
+            for (int o = 0; o + ENTRY_HEADER <= seg.limit(); ) {
+                int magic = seg.getInt(o + F_MAGIC), length = seg.getInt(o + F_LENGTH);
+                if (magic == PAD || length <= 0) break;
+                if (magic == ENTRY) {
+                    e.at = o;
+                    v.visit(e);
+                }
+                o += length;
+            }
+        }
+
+        public void scan(Visitor v) throws IOException {
+            for (int s = 0; s < segmentCount(); s++) scanSegment(s, v);
+        }
+
+        // the i-th game in the order the archive stored them, through the offset index
+        public Entry game(long i) throws IOException {
+            if (i < 0 || i >= count) throw new IndexOutOfBoundsException("No game " + i);
+            ByteBuffer b = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+            while (b.hasRemaining() && ch.read(b, indexOffset + 8 * i + b.position()) > 0) { }
+            long at = b.getLong(0);
+            Entry e = new Entry(map((int) ((at - FILE_HEADER) / SEGMENT)));
+            e.at = (int) ((at - FILE_HEADER) % SEGMENT);
+            return e;
+        }
+
+        private synchronized ByteBuffer map(int s) throws IOException {
+            if (segments[s] == null) {
+                long start = FILE_HEADER + (long) s * SEGMENT;
+                segments[s] = ch.map(FileChannel.MapMode.READ_ONLY, start, Math.min(SEGMENT, end - start));
+                segments[s].order(ByteOrder.LITTLE_ENDIAN);
+            }
+            // every caller gets its own view, so absolute reads need no coordination
+            return segments[s].duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        @Override
+        public void close() throws IOException { ch.close(); }
+    }
+
+    // Flyweight over one entry; only valid inside the visit call that handed it out.
+    public static final class Entry {
+        private final ByteBuffer b;
+        private int at;
+
+        private Entry(ByteBuffer b) { this.b = b; }
+
+        public long gameId() { return b.getLong(at + F_GAME_ID); }
+        public long seed() { return b.getLong(at + F_SEED); }
+        public int player1() { return b.get(at + F_P1) & 0xFF; }
+        public int player2() { return b.get(at + F_P2) & 0xFF; }
+        public int winner() { return b.get(at + F_WINNER); }
+        public boolean player1First() { return b.get(at + F_P1_FIRST) != 0; }
+        public int rows() { return b.getInt(at + F_ROWS); }
+        public int cols() { return b.getInt(at + F_COLS); }
+        public int shots1() { return b.getInt(at + F_SHOTS1); }
+        public int shots2() { return b.getInt(at + F_SHOTS2); }
+        public int sinks() { return b.getInt(at + F_SINKS); }
+        int sink(int i) { return b.getInt(at + ENTRY_HEADER + 4 * i); }
+        public int sinkTarget(int i) { return sink(i) >>> 31; }
+        public ShipType sinkType(int i) { return TYPES[(sink(i) >>> 28) & 7]; }
+        public int sinkShot(int i) { return sink(i) & 0x0FFFFFFF; }
+    }
+}
@@ -8,15 +8,34 @@ public class GameController {
     private final IPlayer player;
     private final IPlayer opponent;
     private final Scanner scanner;
+    private final ConsoleRenderer renderer = ConsoleRenderer.stdout();
+    private GameLog log;              // optional, see setLog
+    private GameLog.Recorder record;
+    private boolean salvo;            // one shot per surviving ship each turn, see setSalvo
 
     public GameController(int rows, int cols, IPlayer p1, IPlayer p2, Scanner scanner) {
-        this.playerBoard = new Board(rows, cols);
-        this.computerBoard = new Board(rows, cols);
+        this(rows, cols, Fleet.standard(), p1, p2, scanner);
+    }
+
+    public GameController(int rows, int cols, Fleet fleet, IPlayer p1, IPlayer p2, Scanner scanner) {
+        this.playerBoard = new Board(rows, cols, fleet);
+        this.computerBoard = new Board(rows, cols, fleet);
         this.player = p1;
         this.opponent = p2;
         this.scanner = scanner;
+        // names the shooter in JFR shot events
+        playerBoard.shooter(p2.name());
+        computerBoard.shooter(p1.name());
+        if (p1 instanceof ComputerPlayer c) c.setOpponent(p2.name());
+        if (p2 instanceof ComputerPlayer c) c.setOpponent(p1.name());
     }
 
+    // records the game into log once it is over
+    public void setLog(GameLog log) { this.log = log; }
+
+    // Salvo rules: each turn a player fires one shot per ship it has left, all at once
+    public void setSalvo(boolean salvo) { this.salvo = salvo; }
+
     public void setupAndPlay() {
         System.out.println("\n--- Battleship Setup ---");
 
@@ -33,32 +52,33 @@ public class GameController {
 
     // Handles ship placement
     private void placeShips(Board board, IPlayer player, boolean showBoard) {
-        for (ShipType type : ShipType.values()) {
+        if (!(player instanceof HumanPlayerConsole)) {
+            // computer players place their whole fleet themselves
+            player.placeShips(board);
+            return;
+        }
+        Fleet fleet = board.fleet();
+        for (int i = 0; i < fleet.shipCount(); i++) {
+            ShipType type = fleet.type(i);
+            int size = fleet.size(i);
             boolean placed = false;
             while (!placed) {
-                if (player instanceof HumanPlayerConsole human) {
-                    System.out.println(board.toDisplayString(showBoard));
-                    System.out.printf("Place %s (size %d). Enter row col orientation(H/V): ",
-                            type.name(), type.size);
-                    String line = scanner.nextLine().trim();
-                    try {
-                        String[] parts = line.split("\\s+");
-                        int row = Integer.parseInt(parts[0]);
-                        int col = Integer.parseInt(parts[1]);
-                        boolean horizontal = parts[2].equalsIgnoreCase("H");
-                        placed = board.placeShip(type, new Pos(row, col), horizontal);
-                        if (!placed)
-                            System.out.println("❌ Invalid placement, try again.");
-                    } catch (Exception e) {
-                        System.out.println("❌ Format: row col H/V (example: 2 3 H)");
-                    }
-                } else {
-                    // Computer places ships randomly
-                    Random rand = new Random();
-                    int row = rand.nextInt(board.rows());
-                    int col = rand.nextInt(board.cols());
-                    boolean horizontal = rand.nextBoolean();
-                    placed = board.placeShip(type, new Pos(row, col), horizontal);
+                renderer.show(player.name() + "'s Board:", board, showBoard);
+                System.out.printf("Place %s (size %d). Enter row col orientation(H/V): ",
+                        type.name(), size);
+                String line = scanner.nextLine().trim();
+                try {
+                    String[] parts = line.split("\\s+");
+                    int row = Integer.parseInt(parts[0]);
+                    int col = Integer.parseInt(parts[1]);
+                    boolean horizontal = parts[2].equalsIgnoreCase("H");
+                    placed = board.placeShip(type, size, Pos.of(row, col), horizontal);
+                    if (placed)
+                        renderer.shipPlaced(board, board.getShips().get(board.getShips().size() - 1));
+                    else
+                        System.out.println("❌ Invalid placement, try again.");
+                } catch (Exception e) {
+                    System.out.println("❌ Format: row col H/V (example: 2 3 H)");
                 }
             }
         }
@@ -66,57 +86,66 @@ public class GameController {
 
     // Main game loop
     private void playGame() {
+        if (log != null) record = log.record(0, playerBoard, computerBoard);
         while (true) {
-            // Show both boards (computer ships hidden)
-            System.out.println("\nYour Board:");
-            System.out.println(playerBoard.toDisplayString(true));
-
-            System.out.println("Enemy Board:");
-            System.out.println(computerBoard.toDisplayString(false)); // hides computer ships
+            // Show the first player's own board; a human player shows the enemy board when asked to fire
+            System.out.println();
+            renderer.show(player.name() + "'s Board:", playerBoard, true);
 
             // Player fires
-            Pos target = getPlayerTarget();
-            FireResult result = computerBoard.fireAt(target);
-            System.out.println(result);
-
-            if (computerBoard.allShipsSunk()) {
-                System.out.println("\n🎉 You win! You sank all enemy ships!");
+            if (turn(player, computerBoard, playerBoard)) {
+                System.out.println("\n🎉 " + player.name() + " wins! All enemy ships sunk!");
+                renderer.close();
+                saveRecord(1);
                 break;
             }
 
-            // Computer's turn
-            System.out.println("\nComputer's turn...");
-            Pos compTarget = randomTarget();
-            System.out.println("Computer fires at " + compTarget);
-            FireResult compResult = playerBoard.fireAt(compTarget);
-            System.out.println(compResult);
-
-            if (playerBoard.allShipsSunk()) {
-                System.out.println("\n💥 You lose! The computer sank all your ships.");
+            // Opponent's turn
+            System.out.println("\n" + opponent.name() + "'s turn...");
+            if (turn(opponent, playerBoard, computerBoard)) {
+                System.out.println("\n💥 " + opponent.name() + " wins! All of " + player.name() + "'s ships are sunk.");
+                renderer.close();
+                saveRecord(2);
                 break;
             }
         }
     }
 
-    private Pos getPlayerTarget() {
-        while (true) {
-            System.out.print("Enter target row col: ");
-            String line = scanner.nextLine().trim();
-            try {
-                String[] parts = line.split("\\s+");
-                int row = Integer.parseInt(parts[0]);
-                int col = Integer.parseInt(parts[1]);
-                return new Pos(row, col);
-            } catch (Exception e) {
-                System.out.println("❌ Invalid format. Example: 3 4");
-            }
+    // one shot by shooter, or a salvo from its own board's surviving ships; returns true
+    // once the target board has no ships left
+    private boolean turn(IPlayer shooter, Board target, Board own) {
+        if (salvo) {
+            int shots = own.shipsAfloat();
+            System.out.println(shooter.name() + " fires a salvo of " + shots + (shots == 1 ? " shot" : " shots"));
+            List<Pos> volley = shooter.makeSalvo(target, shots);
+            FireResult[] results = target.fireAt(volley);
+            if (record != null) record.volley(target, volley, results);
+            for (int i = 0; i < results.length; i++) shown(shooter, target, volley.get(i), results[i]);
+            return target.allShipsSunk();
         }
+        Pos p = shooter.makeMove(target);
+        FireResult result = target.fireAt(p);
+        if (record != null) record.shot(target, p, result);
+        shown(shooter, target, p, result);
+        return target.allShipsSunk();
     }
 
-    private Pos randomTarget() {
-        Random rand = new Random();
-        int row = rand.nextInt(playerBoard.rows());
-        int col = rand.nextInt(playerBoard.cols());
-        return new Pos(row, col);
+    private void shown(IPlayer shooter, Board target, Pos p, FireResult result) {
+        shooter.informResult(p, result);
+        if (!result.alreadyTried) renderer.cellChanged(target, p);
+        System.out.println(shooter.name() + " fires at " + p + ": " + result);
+    }
+
+    // logs the game if asked to and teaches the PlacementModel the human players' fleets
+    private void saveRecord(int winner) {
+        if (PlacementModel.learnsFrom(player)) PlacementModel.shared().record(player.name(), playerBoard);
+        if (PlacementModel.learnsFrom(opponent)) PlacementModel.shared().record(opponent.name(), computerBoard);
+        if (record == null) return;
+        record.end(winner);
+        try {
+            log.append(record);
+        } catch (java.io.IOException e) {
+            System.out.println("Could not write game log: " + e.getMessage());
+        }
     }
 }
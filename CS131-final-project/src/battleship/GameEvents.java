@@ -0,0 +1,132 @@
+package battleship;
+
+import jdk.jfr.*;
+
+// Java Flight Recorder events for the engine and the AI. Every emitting site checks
+// its Type first, e.g. "if (GameEvents.SHOT.on())", and only builds the event when
+// that returns true. Until a recording has been started in this JVM the check is one
+// static read and jdk.jfr is never touched, so the tools pay nothing for the events
+// (loading the JFR classes alone costs ~200ms); with a recording running, an event
+// type that the recording leaves disabled costs one field read.
+//
+// Shots and placements can run to millions per second in the simulator, so those two
+// are off unless a recording's settings enable them (battleship.ShotFired#enabled=true).
+// The rest are on by default, which is what a continuous recording picks up; the two
+// AI events only keep calls slower than 1ms unless the settings lower the threshold.
+final class GameEvents {
+    static final Type SHOT = new Type(ShotFired.class);
+    static final Type SUNK = new Type(ShipSunk.class);
+    static final Type DECISION = new Type(AiDecision.class);
+    static final Type UPDATE = new Type(AiUpdate.class);
+    static final Type PLACEMENT = new Type(PlacementAttempt.class);
+    static final Type RENDER = new Type(BoardRender.class);
+    static final Type CPU_TURN = new Type(CpuTurn.class);
+
+    private GameEvents() {}
+
+    static final class Type {
+        private final Class<? extends Event> event;
+        private EventType type; // looked up once a recording exists; a racy lookup is harmless
+
+        private Type(Class<? extends Event> event) { this.event = event; }
+
+        boolean on() {
+            if (!FlightRecorder.isInitialized()) return false;
+            EventType t = type;
+            if (t == null) type = t = EventType.getEventType(event);
+            return t.isEnabled();
+        }
+    }
+
+    // shared result names, so no String is built per event
+    static String result(FireResult res) {
+        return res.alreadyTried ? "ALREADY" : res.sunk ? "SUNK" : res.hit ? "HIT" : "MISS";
+    }
+
+    @Name("battleship.ShotFired")
+    @Label("Shot Fired")
+    @Category("Battleship")
+    @Enabled(false)
+    @StackTrace(false)
+    static final class ShotFired extends Event {
+        @Label("Player") String player;
+        @Label("Row") int row;
+        @Label("Column") int col;
+        @Label("Result") String result;
+        @Label("Board Rows") int rows;
+        @Label("Board Columns") int cols;
+    }
+
+    @Name("battleship.ShipSunk")
+    @Label("Ship Sunk")
+    @Category("Battleship")
+    @StackTrace(false)
+    static final class ShipSunk extends Event {
+        @Label("Player") @Description("Who sank it") String player;
+        @Label("Ship Type") String shipType;
+        @Label("Size") int size;
+        @Label("Shots") @Description("Shots taken at this board so far") int shots;
+    }
+
+    @Name("battleship.AiDecision")
+    @Label("AI Decision")
+    @Category({"Battleship", "AI"})
+    @Threshold("1 ms")
+    @StackTrace(false)
+    static final class AiDecision extends Event {
+        @Label("Strategy") String strategy;
+        @Label("Board Rows") int rows;
+        @Label("Board Columns") int cols;
+        @Label("Shots") @Description("1, or the size of a salvo") int shots;
+        @Label("Candidates") @Description("Untried cells the strategy chose from") int candidates;
+    }
+
+    @Name("battleship.AiUpdate")
+    @Label("AI Update")
+    @Category({"Battleship", "AI"})
+    @Threshold("1 ms")
+    @Description("A strategy taking in the result of one of its shots")
+    @StackTrace(false)
+    static final class AiUpdate extends Event {
+        @Label("Strategy") String strategy;
+        @Label("Row") int row;
+        @Label("Column") int col;
+        @Label("Result") String result;
+    }
+
+    @Name("battleship.PlacementAttempt")
+    @Label("Placement Attempt")
+    @Category("Battleship")
+    @Enabled(false)
+    @StackTrace(false)
+    static final class PlacementAttempt extends Event {
+        @Label("Ship Type") String shipType;
+        @Label("Size") int size;
+        @Label("Row") int row;
+        @Label("Column") int col;
+        @Label("Horizontal") boolean horizontal;
+        @Label("Accepted") boolean accepted;
+    }
+
+    @Name("battleship.BoardRender")
+    @Label("Board Render")
+    @Category("Battleship")
+    @StackTrace(false)
+    static final class BoardRender extends Event {
+        @Label("View") @Description("text or swing") String view;
+        @Label("Board Rows") int rows;
+        @Label("Board Columns") int cols;
+        @Label("Cells") @Description("Cells drawn") int cells;
+    }
+
+    @Name("battleship.CpuTurn")
+    @Label("GUI CPU Turn")
+    @Category({"Battleship", "AI"})
+    @Description("From the start of the CPU's turn in the GUI to its shots landing, including any wait for the time budget")
+    @StackTrace(false)
+    static final class CpuTurn extends Event {
+        @Label("Difficulty") String difficulty;
+        @Label("Shots") int shots;
+        @Label("Fallback") @Description("The move budget ran out and random cells were played") boolean fallback;
+    }
+}
@@ -0,0 +1,267 @@
+package battleship;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Append-only binary log of finished games. Each game is recorded into its own
+// Recorder while it is played and written out as one frame when it ends, so several
+// threads can share a log. Layout:
+//
+//   file    := MAGIC VERSION frame* index indexOffset:long MAGIC
+//   frame   := FRAME length:int entry block
+//   entry   := turns snapshots snapshotOffset*
+//   block   := GAME id rows cols fleetSpec interval ships(board1) ships(board2) record* END winner
+//   ships   := count (type:byte size (cell << 1 | vertical))*
+//   record  := shotTag cell | SNAPSHOT hits1 misses1 hits2 misses2
+//   index   := games (blockOffset turns snapshots snapshotOffset*)*
+//
+// Numbers are unsigned varints except the frame header, the fixed-width trailer and the
+// snapshot masks, which are raw little-endian. A shot is one tag byte (target board and
+// result) plus its varint cell index, so an 8x8 game costs about two bytes per shot. A
+// snapshot of both boards' hit/miss masks follows every interval-th shot; snapshot
+// offsets count from the start of the block. The index at the end, written by close(),
+// lets GameReplay find every game and jump to the snapshot before any turn without
+// reading the blocks. Every frame carries its own length and entry as well, so a log
+// whose writer crashed, or is still running, is read by walking the frames from the
+// start; a frame cut short at the end is ignored.
+public final class GameLog implements Closeable {
+    static final int MAGIC = 0x474C5342; // "BSLG" little-endian
+    static final int VERSION = 2;
+    static final int FRAME = 0x4D524647; // "GFRM" little-endian, starts every frame
+    public static final int DEFAULT_SNAPSHOT_INTERVAL = 64;
+
+    // record tags; a shot tag is SHOT | target board << 2 | result code
+    static final int SHOT = 0x00;
+    static final int SNAPSHOT = 0x10;
+    static final int GAME = 0x11;
+    static final int END = 0x12;
+
+    static final int MISS = 0;
+    static final int HIT = 1;
+    static final int SUNK = 2;
+    static final int ALREADY = 3;
+
+    private final OutputStream out;
+    private final ByteArrayOutputStream index = new ByteArrayOutputStream();
+    private final int snapshotInterval;
+    private long position;
+    private int games;
+    private boolean closed;
+
+    public GameLog(Path file) throws IOException {
+        this(file, DEFAULT_SNAPSHOT_INTERVAL);
+    }
+
+    public GameLog(Path file, int snapshotInterval) throws IOException {
+        if (snapshotInterval <= 0) throw new IllegalArgumentException("Bad snapshot interval: " + snapshotInterval);
+        this.snapshotInterval = snapshotInterval;
+        this.out = new BufferedOutputStream(Files.newOutputStream(file), 1 << 16);
+        writeIntLE(out, MAGIC);
+        out.write(VERSION);
+        position = 5;
+    }
+
+    // starts recording a game whose ships are already on both boards
+    public Recorder record(long gameId, Board board1, Board board2) {
+        return new Recorder(gameId, board1, board2, snapshotInterval);
+    }
+
+    // a recorder not tied to any log yet, for games that are only saved on request
+    public static Recorder recorder(long gameId, Board board1, Board board2) {
+        return new Recorder(gameId, board1, board2, DEFAULT_SNAPSHOT_INTERVAL);
+    }
+
+    // writes a finished game as one frame
+    public synchronized void append(Recorder game) throws IOException {
+        if (closed) throw new IOException("Log is closed");
+        ByteArrayOutputStream entry = new ByteArrayOutputStream(16);
+        writeVarLong(entry, game.turns);
+        writeVarLong(entry, game.snapshotCount);
+        for (int i = 0; i < game.snapshotCount; i++) writeVarLong(entry, game.snapshots[i]);
+        writeIntLE(out, FRAME);
+        writeIntLE(out, entry.size() + game.buf.size());
+        entry.writeTo(out);
+        game.buf.writeTo(out);
+
+        position += 8 + entry.size();
+        writeVarLong(index, position);
+        entry.writeTo(index);
+        position += game.buf.size();
+        games++;
+    }
+
+    public synchronized int games() { return games; }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try (OutputStream o = out) {
+            ByteArrayOutputStream head = new ByteArrayOutputStream();
+            writeVarLong(head, games);
+            head.writeTo(o);
+            index.writeTo(o);
+            writeLongLE(o, position);
+            writeIntLE(o, MAGIC);
+        }
+    }
+
+    // One game's records, buffered in memory until the game is appended to a log.
+    public static final class Recorder {
+        private final ByteArrayOutputStream buf = new ByteArrayOutputStream(256);
+        private final Board board1;
+        private final Board board2;
+        private final int interval;
+        private final long[] hits;
+        private final long[] misses;
+        private long[] snapshots = new long[4]; // offsets within the block
+        private int snapshotCount;
+        private int turns;
+        private boolean ended;
+        // the salvo being written by volley(); shots after volleyNext have not landed yet
+        private Board volleyTarget;
+        private java.util.List<Pos> volley;
+        private FireResult[] volleyResults;
+        private int volleyNext;
+
+        private Recorder(long gameId, Board board1, Board board2, int interval) {
+            this.board1 = board1;
+            this.board2 = board2;
+            this.interval = interval;
+            this.hits = new long[board1.maskWords()];
+            this.misses = new long[board1.maskWords()];
+
+            buf.write(GAME);
+            writeVarLong(buf, gameId);
+            writeVarLong(buf, board1.rows());
+            writeVarLong(buf, board1.cols());
+            byte[] fleet = board1.fleet().toString().getBytes(StandardCharsets.UTF_8);
+            writeVarLong(buf, fleet.length);
+            buf.write(fleet, 0, fleet.length);
+            writeVarLong(buf, interval);
+            writeShips(board1);
+            writeShips(board2);
+        }
+
+        private void writeShips(Board b) {
+            writeVarLong(buf, b.getShips().size());
+            for (Ship s : b.getShips()) {
+                Pos first = s.getPositions().get(0);
+                boolean vertical = s.size() > 1 && s.getPositions().get(1).row != first.row;
+                buf.write(s.type.ordinal());
+                writeVarLong(buf, s.size());
+                writeVarLong(buf, (long) b.cellIndex(first) << 1 | (vertical ? 1 : 0));
+            }
+        }
+
+        // a shot at target (one of the two recorded boards) and what it did
+        public void shot(Board target, Pos p, FireResult res) {
+            if (ended) throw new IllegalStateException("Game already ended");
+            int board = target == board1 ? 0 : target == board2 ? 1 : -1;
+            if (board < 0) throw new IllegalArgumentException("Board is not part of this game");
+            int code = res.alreadyTried ? ALREADY : res.sunk ? SUNK : res.hit ? HIT : MISS;
+            buf.write(SHOT | board << 2 | code);
+            writeVarLong(buf, target.cellIndex(p));
+            if (++turns % interval == 0) snapshot();
+        }
+
+        // A salvo at target that the board has already resolved in one go. A snapshot
+        // that falls inside the volley leaves out the shots recorded after it.
+        public void volley(Board target, java.util.List<Pos> shots, FireResult[] res) {
+            volleyTarget = target;
+            volley = shots;
+            volleyResults = res;
+            try {
+                for (int i = 0; i < res.length; i++) {
+                    volleyNext = i + 1;
+                    shot(target, shots.get(i), res[i]);
+                }
+            } finally {
+                volley = null;
+                volleyTarget = null;
+                volleyResults = null;
+            }
+        }
+
+        private void snapshot() {
+            if (snapshotCount == snapshots.length) snapshots = java.util.Arrays.copyOf(snapshots, snapshotCount * 2);
+            snapshots[snapshotCount++] = buf.size();
+            buf.write(SNAPSHOT);
+            writeMasks(board1);
+            writeMasks(board2);
+        }
+
+        private void writeMasks(Board b) {
+            b.copyShots(hits, misses);
+            if (b == volleyTarget) {
+                for (int i = volleyNext; i < volleyResults.length; i++) {
+                    if (volleyResults[i].alreadyTried) continue;
+                    int cell = b.cellIndex(volley.get(i));
+                    hits[cell >>> 6] &= ~(1L << cell);
+                    misses[cell >>> 6] &= ~(1L << cell);
+                }
+            }
+            for (long w : hits) writeLongLE(buf, w);
+            for (long w : misses) writeLongLE(buf, w);
+        }
+
+        // winner is 1 or 2, 0 for a draw or an abandoned game
+        public void end(int winner) {
+            if (ended) return;
+            ended = true;
+            buf.write(END);
+            buf.write(winner);
+        }
+
+        public int turns() { return turns; }
+    }
+
+    // --- encoding helpers shared with GameReplay ---
+
+    static void writeVarLong(OutputStream o, long v) {
+        try {
+            while ((v & ~0x7FL) != 0) {
+                o.write((int) (v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            o.write((int) v);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static long readVarLong(InputStream in) throws IOException {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) throw new EOFException();
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    static void writeLongLE(OutputStream o, long v) {
+        try {
+            for (int i = 0; i < 8; i++) o.write((int) (v >>> (8 * i)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static long readLongLE(InputStream in) throws IOException {
+        long v = 0;
+        for (int i = 0; i < 8; i++) {
+            int b = in.read();
+            if (b < 0) throw new EOFException();
+            v |= (long) b << (8 * i);
+        }
+        return v;
+    }
+
+    private static void writeIntLE(OutputStream o, int v) throws IOException {
+        for (int i = 0; i < 4; i++) o.write(v >>> (8 * i));
+    }
+}
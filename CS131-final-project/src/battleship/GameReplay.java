@@ -0,0 +1,324 @@
+package battleship;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+// Reads logs written by GameLog. Only the index is held in memory; game blocks are
+// streamed from the file on demand, and boardsAt() rebuilds a position from the
+// nearest snapshot plus at most one snapshot interval of shots. A log without its
+// trailing index (writer crashed or still running) is indexed by walking its frames.
+//
+//   java battleship.GameReplay <log>                 list the games
+//   java battleship.GameReplay <log> <game>          replay a game shot by shot
+//   java battleship.GameReplay <log> <game> <turn>   show both boards after a turn
+public final class GameReplay implements Closeable {
+
+    public interface ShotListener {
+        void shot(int turn, int target, Pos p, FireResult result);
+    }
+
+    // decoded block header: everything needed to rebuild the boards before turn 1
+    public static final class Game {
+        public final long id;
+        public final int rows;
+        public final int cols;
+        public final Fleet fleet;
+        public final int turns;
+        private final int interval;
+        private final long[] shipRecords1;
+        private final long[] shipRecords2;
+
+        private Game(long id, int rows, int cols, Fleet fleet, int turns, int interval,
+                     long[] ships1, long[] ships2) {
+            this.id = id;
+            this.rows = rows;
+            this.cols = cols;
+            this.fleet = fleet;
+            this.turns = turns;
+            this.interval = interval;
+            this.shipRecords1 = ships1;
+            this.shipRecords2 = ships2;
+        }
+    }
+
+    private final FileChannel ch;
+    private final long[] offsets;
+    private final int[] turns;
+    private final long[][] snapshots;
+
+    public GameReplay(Path file) throws IOException {
+        ch = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = ch.size();
+            if (size < 5) throw new IOException("Not a game log: " + file);
+            DataInputStream head = new DataInputStream(in(0));
+            if (Integer.reverseBytes(head.readInt()) != GameLog.MAGIC) throw new IOException("Not a game log: " + file);
+            int version = head.read();
+            if (version != GameLog.VERSION) throw new IOException("Unsupported log version " + version);
+
+            Index index = readIndex(size);
+            if (index == null) index = scanFrames(size);
+            offsets = index.offsets;
+            turns = index.turns;
+            snapshots = index.snapshots;
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+    }
+
+    private static final class Index {
+        final long[] offsets;
+        final int[] turns;
+        final long[][] snapshots;
+
+        Index(int games) {
+            offsets = new long[games];
+            turns = new int[games];
+            snapshots = new long[games][];
+        }
+    }
+
+    // the index close() writes, or null if the log does not end in one
+    private Index readIndex(long size) throws IOException {
+        if (size < 17) return null;
+        DataInputStream tail = new DataInputStream(in(size - 12));
+        long indexOffset = Long.reverseBytes(tail.readLong());
+        if (Integer.reverseBytes(tail.readInt()) != GameLog.MAGIC || indexOffset < 5 || indexOffset > size - 12)
+            return null;
+
+        InputStream idx = in(indexOffset);
+        Index index = new Index((int) GameLog.readVarLong(idx));
+        for (int g = 0; g < index.offsets.length; g++) {
+            index.offsets[g] = GameLog.readVarLong(idx);
+            index.turns[g] = (int) GameLog.readVarLong(idx);
+            index.snapshots[g] = readSnapshots(idx);
+        }
+        return index;
+    }
+
+    // The same index rebuilt by walking the frames from the start of the file. Stops at
+    // the first frame that is cut short or does not start with FRAME.
+    private Index scanFrames(long size) throws IOException {
+        java.util.List<long[]> found = new java.util.ArrayList<>(); // { blockOffset, turns, snapshot offsets... }
+        ByteBuffer head = ByteBuffer.allocate(8).order(java.nio.ByteOrder.LITTLE_ENDIAN);
+        long pos = 5;
+        while (pos + 8 <= size) {
+            head.clear();
+            if (ch.read(head, pos) < 8 || head.getInt(0) != GameLog.FRAME) break;
+            long end = pos + 8 + (head.getInt(4) & 0xFFFFFFFFL);
+            if (end > size) break;
+
+            CountingInput in = new CountingInput(in(pos + 8));
+            long turns = GameLog.readVarLong(in);
+            long[] snaps = readSnapshots(in);
+            long[] game = new long[2 + snaps.length];
+            game[0] = pos + 8 + in.count;
+            game[1] = turns;
+            System.arraycopy(snaps, 0, game, 2, snaps.length);
+            found.add(game);
+            pos = end;
+        }
+        Index index = new Index(found.size());
+        for (int g = 0; g < found.size(); g++) {
+            long[] game = found.get(g);
+            index.offsets[g] = game[0];
+            index.turns[g] = (int) game[1];
+            index.snapshots[g] = java.util.Arrays.copyOfRange(game, 2, game.length);
+        }
+        return index;
+    }
+
+    private static long[] readSnapshots(InputStream in) throws IOException {
+        long[] s = new long[(int) GameLog.readVarLong(in)];
+        for (int i = 0; i < s.length; i++) s[i] = GameLog.readVarLong(in);
+        return s;
+    }
+
+    // counts the bytes read through it, to find where a frame's entry ends
+    private static final class CountingInput extends FilterInputStream {
+        long count;
+
+        CountingInput(InputStream in) { super(in); }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) count++;
+            return b;
+        }
+    }
+
+    public int games() { return offsets.length; }
+    public int turns(int game) { return turns[game]; }
+
+    public Game game(int game) throws IOException {
+        return readHeader(game, in(offsets[game]));
+    }
+
+    // Both boards as they stood after the given number of shots (0 = right after
+    // placement): { board holding player 1's ships, board holding player 2's ships }.
+    public Board[] boardsAt(int game, int turn) throws IOException {
+        if (turn < 0 || turn > turns[game]) throw new IllegalArgumentException("No turn " + turn + " in game " + game);
+        InputStream in = in(offsets[game]);
+        Game g = readHeader(game, in);
+        Board[] boards = { newBoard(g, g.shipRecords1), newBoard(g, g.shipRecords2) };
+
+        int done = 0;
+        int snap = Math.min(turn / g.interval, snapshots[game].length);
+        if (snap > 0) {
+            in = in(offsets[game] + snapshots[game][snap - 1]);
+            if (in.read() != GameLog.SNAPSHOT) throw new IOException("Corrupt log: snapshot expected");
+            int words = boards[0].maskWords();
+            long[] hits = new long[words], misses = new long[words];
+            for (Board b : boards) {
+                for (int i = 0; i < words; i++) hits[i] = GameLog.readLongLE(in);
+                for (int i = 0; i < words; i++) misses[i] = GameLog.readLongLE(in);
+                b.restoreShots(hits, misses);
+            }
+            done = snap * g.interval;
+        }
+        while (done < turn) {
+            if (readShot(in, boards, null, done + 1)) done++;
+        }
+        return boards;
+    }
+
+    // Streams every shot of a game to the listener, checking each against the rebuilt
+    // boards. Returns the winner (1, 2, or 0 for a draw).
+    public int replay(int game, ShotListener listener) throws IOException {
+        InputStream in = in(offsets[game]);
+        Game g = readHeader(game, in);
+        Board[] boards = { newBoard(g, g.shipRecords1), newBoard(g, g.shipRecords2) };
+        int turn = 0;
+        while (true) {
+            in.mark(1);
+            int tag = in.read();
+            if (tag == GameLog.END) return in.read();
+            if (tag < 0) throw new EOFException("Game " + game + " has no END record");
+            in.reset();
+            if (readShot(in, boards, listener, turn + 1)) turn++;
+        }
+    }
+
+    // Reads one record; applies it if it is a shot. Returns false for a snapshot.
+    private static boolean readShot(InputStream in, Board[] boards, ShotListener listener, int turn) throws IOException {
+        int tag = in.read();
+        if (tag < 0) throw new EOFException();
+        if (tag == GameLog.SNAPSHOT) {
+            long skip = 4L * boards[0].maskWords() * 8;
+            while (skip > 0) {
+                long n = in.skip(skip);
+                if (n <= 0) throw new EOFException();
+                skip -= n;
+            }
+            return false;
+        }
+        if ((tag & ~0x07) != GameLog.SHOT) throw new IOException("Corrupt log: unexpected tag " + tag);
+        Board target = boards[(tag >>> 2) & 1];
+        Pos p = target.cellPos((int) GameLog.readVarLong(in));
+        FireResult res = target.fireAt(p);
+        int code = res.alreadyTried ? GameLog.ALREADY : res.sunk ? GameLog.SUNK : res.hit ? GameLog.HIT : GameLog.MISS;
+        if (code != (tag & 3)) throw new IOException("Log does not match the board at turn " + turn + " " + p);
+        if (listener != null) listener.shot(turn, (tag >>> 2) & 1, p, res);
+        return true;
+    }
+
+    private Game readHeader(int game, InputStream in) throws IOException {
+        if (in.read() != GameLog.GAME) throw new IOException("Corrupt log: game " + game + " has no header");
+        long id = GameLog.readVarLong(in);
+        int rows = (int) GameLog.readVarLong(in);
+        int cols = (int) GameLog.readVarLong(in);
+        byte[] spec = new byte[(int) GameLog.readVarLong(in)];
+        new DataInputStream(in).readFully(spec);
+        int interval = (int) GameLog.readVarLong(in);
+        long[] ships1 = readShips(in);
+        long[] ships2 = readShips(in);
+        return new Game(id, rows, cols, Fleet.parse(new String(spec, StandardCharsets.UTF_8)), turns[game], interval,
+                        ships1, ships2);
+    }
+
+    // each ship packed as type << 56 | size << 32 | (cell << 1 | vertical)
+    private static long[] readShips(InputStream in) throws IOException {
+        long[] ships = new long[(int) GameLog.readVarLong(in)];
+        for (int i = 0; i < ships.length; i++) {
+            long type = in.read();
+            long size = GameLog.readVarLong(in);
+            long placement = GameLog.readVarLong(in);
+            ships[i] = type << 56 | size << 32 | placement;
+        }
+        return ships;
+    }
+
+    private static Board newBoard(Game g, long[] ships) throws IOException {
+        Board b = new Board(g.rows, g.cols, g.fleet);
+        ShipType[] types = ShipType.values();
+        for (long s : ships) {
+            int type = (int) (s >>> 56), size = (int) (s >>> 32) & 0xFFFFFF, placement = (int) s;
+            if (type >= types.length || !b.placeShip(types[type], size, b.cellPos(placement >>> 1), (placement & 1) == 0))
+                throw new IOException("Corrupt log: bad ship record");
+        }
+        return b;
+    }
+
+    // Buffered stream from offset. Reads are positional, so every stream keeps its own
+    // position and several may be open on the same file at once.
+    private InputStream in(long offset) {
+        return new BufferedInputStream(new InputStream() {
+            private long pos = offset;
+
+            @Override
+            public int read() throws IOException {
+                byte[] one = new byte[1];
+                return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int n = ch.read(ByteBuffer.wrap(b, off, len), pos);
+                if (n > 0) pos += n;
+                return n;
+            }
+        }, 1 << 14);
+    }
+
+    @Override
+    public void close() throws IOException { ch.close(); }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("usage: GameReplay <log> [game [turn]]");
+            return;
+        }
+        try (GameReplay log = new GameReplay(Paths.get(args[0]))) {
+            if (args.length == 1) {
+                System.out.println(log.games() + " games");
+                for (int g = 0; g < log.games(); g++) {
+                    Game game = log.game(g);
+                    System.out.println("#" + g + "  id=" + game.id + "  " + game.rows + "x" + game.cols
+                                       + "  turns=" + game.turns + "  fleet=" + game.fleet);
+                }
+                return;
+            }
+            int game = Integer.parseInt(args[1]);
+            if (args.length == 2) {
+                int winner = log.replay(game, (turn, target, p, res) ->
+                    System.out.println(turn + ": P" + (2 - target) + " fires at " + p + ": " + res));
+                System.out.println(winner == 0 ? "No winner" : "Player " + winner + " wins");
+                return;
+            }
+            int turn = Integer.parseInt(args[2]);
+            Board[] b = log.boardsAt(game, turn);
+            System.out.println("After turn " + turn + " of " + log.turns(game));
+            System.out.println("Player 1's board:");
+            System.out.println(b[0].toDisplayString(true));
+            System.out.println("Player 2's board:");
+            System.out.println(b[1].toDisplayString(true));
+        }
+    }
+}
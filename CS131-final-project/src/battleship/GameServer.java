@@ -0,0 +1,256 @@
+package battleship;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+// Hosts many games at once for clients speaking Protocol over TCP. Every connection
+// is one task that blocks on its socket, so the server runs them on virtual threads
+// when the JVM has them (Java 21+) and on a pool of small-stack platform threads
+// otherwise. A game is a Match between RemotePlayers and/or server-side
+// ComputerPlayers; per game the server holds two boards and one line buffer per
+// remote player.
+//
+//   java battleship.GameServer [port] [rows] [cols] [fleet] [maxConnections] [idleTimeoutSeconds] [CLASSIC|SALVO]
+public final class GameServer implements Closeable {
+    public static final int DEFAULT_PORT = 7878;
+    private static final int PLATFORM_STACK = 256 * 1024;
+    private static final byte[] FULL = "ERROR server full\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final ServerSocket server;
+    private final int rows;
+    private final int cols;
+    private final Fleet fleet;
+    private final boolean salvo;
+    private final int idleTimeoutMillis;
+    private final Semaphore slots;
+    private final ExecutorService tasks = newTaskExecutor();
+    private final AtomicReference<Seat> waiting = new AtomicReference<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicInteger activeGames = new AtomicInteger();
+    private final AtomicLong gamesStarted = new AtomicLong();
+    private final AtomicLong gamesFinished = new AtomicLong();
+    private Thread acceptor;
+
+    // a client waiting for another to JOIN ... PLAYER; done completes when its game ends
+    private static final class Seat {
+        final RemotePlayer player;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        Seat(RemotePlayer player) { this.player = player; }
+    }
+
+    public GameServer(int port, int rows, int cols, Fleet fleet, int maxConnections, int idleTimeoutMillis)
+            throws IOException {
+        this(port, rows, cols, fleet, false, maxConnections, idleTimeoutMillis);
+    }
+
+    // salvo: every game on this server is played under Salvo rules, see Match.salvo
+    public GameServer(int port, int rows, int cols, Fleet fleet, boolean salvo, int maxConnections, int idleTimeoutMillis)
+            throws IOException {
+        if (!fleet.fits(rows, cols)) throw new IllegalArgumentException("Fleet " + fleet + " does not fit " + rows + "x" + cols);
+        this.server = new ServerSocket();
+        server.setReuseAddress(true);
+        server.bind(new InetSocketAddress(port), 1024);
+        this.rows = rows;
+        this.cols = cols;
+        this.fleet = fleet;
+        this.salvo = salvo;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.slots = new Semaphore(maxConnections);
+    }
+
+    // Virtual threads through reflection, so the code still builds for Java 17.
+    static ExecutorService newTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger n = new AtomicInteger();
+            return Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(null, r, "game-" + n.incrementAndGet(), PLATFORM_STACK);
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    public GameServer start() {
+        acceptor = new Thread(this::acceptLoop, "game-server-accept");
+        acceptor.start();
+        return this;
+    }
+
+    public int port() { return server.getLocalPort(); }
+    public int connections() { return connections.get(); }
+    public int activeGames() { return activeGames.get(); }
+    public long gamesFinished() { return gamesFinished.get(); }
+
+    private void acceptLoop() {
+        while (!server.isClosed()) {
+            Socket s;
+            try {
+                s = server.accept();
+            } catch (IOException e) {
+                if (server.isClosed()) return;
+                continue;
+            }
+            if (!slots.tryAcquire()) {
+                refuse(s);
+                continue;
+            }
+            connections.incrementAndGet();
+            try {
+                tasks.execute(() -> serve(s));
+            } catch (RejectedExecutionException e) {
+                closeQuietly(s);
+                release();
+            }
+        }
+    }
+
+    // Runs on the acceptor, so a flood of refused clients costs no threads. The line
+    // fits the empty send buffer of a fresh socket and the close does not linger, so
+    // neither can block.
+    private static void refuse(Socket s) {
+        try (s) {
+            s.getOutputStream().write(FULL);
+        } catch (IOException ignored) {
+        }
+    }
+
+    private void serve(Socket s) {
+        try (PlayerConnection conn = new PlayerConnection(s)) {
+            s.setSoTimeout(idleTimeoutMillis);
+            s.setTcpNoDelay(true);
+            conn.writeLine("HELLO battleship " + Protocol.VERSION);
+            String line;
+            while ((line = conn.readLine()) != null) {
+                String[] w = Protocol.words(line);
+                switch (w[0]) {
+                    case "JOIN" -> join(conn, w);
+                    case "QUIT" -> { return; }
+                    default -> conn.writeLine("ERROR expected JOIN or QUIT");
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
+            // client went away or timed out; its game, if any, was already ended
+        } finally {
+            release();
+        }
+    }
+
+    private void release() {
+        connections.decrementAndGet();
+        slots.release();
+    }
+
+    private void join(PlayerConnection conn, String[] w) throws IOException {
+        if (w.length < 3) {
+            conn.writeLine("ERROR usage: JOIN <name> <EASY|MEDIUM|HARD|EXPERT|PLAYER>");
+            return;
+        }
+        RemotePlayer me = new RemotePlayer(w[1], conn);
+        if (w[2].equals("PLAYER")) {
+            Seat mine = new Seat(me);
+            while (true) {
+                Seat other = waiting.get();
+                if (other == null) {
+                    if (waiting.compareAndSet(null, mine)) {
+                        me.waiting();
+                        // the opponent's task runs the game on our connection
+                        try {
+                            mine.done.get(idleTimeoutMillis == 0 ? Long.MAX_VALUE : idleTimeoutMillis, TimeUnit.MILLISECONDS);
+                        } catch (TimeoutException e) {
+                            if (waiting.compareAndSet(mine, null)) {
+                                conn.writeLine("ERROR no opponent");
+                                return;
+                            }
+                            mine.done.join(); // picked up just now
+                        } catch (InterruptedException | ExecutionException e) {
+                            throw new IOException("Interrupted while waiting for an opponent");
+                        }
+                        return;
+                    }
+                } else if (waiting.compareAndSet(other, null)) {
+                    try {
+                        play(other.player, me);
+                    } finally {
+                        other.done.complete(null);
+                    }
+                    return;
+                }
+            }
+        }
+        ComputerPlayer.Difficulty d;
+        try {
+            d = ComputerPlayer.Difficulty.valueOf(w[2]);
+        } catch (IllegalArgumentException e) {
+            conn.writeLine("ERROR unknown opponent " + w[2]);
+            return;
+        }
+        play(me, new ComputerPlayer("Server", d, new Random()));
+    }
+
+    private void play(IPlayer p1, IPlayer p2) {
+        long id = gamesStarted.incrementAndGet();
+        activeGames.incrementAndGet();
+        int winner = -1;
+        try {
+            if (p1 instanceof RemotePlayer r) r.startGame(id, rows, cols, fleet, salvo);
+            if (p2 instanceof RemotePlayer r) r.startGame(id, rows, cols, fleet, salvo);
+            winner = new Match(rows, cols, fleet, p1, p2).salvo(salvo).play(id % 2 == 0);
+        } catch (UncheckedIOException | IllegalStateException e) {
+            // a remote player broke the protocol or disconnected; the game is abandoned
+        } finally {
+            activeGames.decrementAndGet();
+            gamesFinished.incrementAndGet();
+            if (p1 instanceof RemotePlayer r) r.endGame(outcome(winner, 1));
+            if (p2 instanceof RemotePlayer r) r.endGame(outcome(winner, 2));
+        }
+    }
+
+    private static String outcome(int winner, int player) {
+        if (winner < 0) return "ABORT";
+        if (winner == 0) return "DRAW";
+        return winner == player ? "WIN" : "LOSE";
+    }
+
+    private static void closeQuietly(Socket s) {
+        try {
+            s.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+        tasks.shutdownNow();
+        Seat w = waiting.getAndSet(null);
+        if (w != null) w.done.complete(null);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int rows = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int cols = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+        Fleet fleet = args.length > 3 ? Fleet.parse(args[3]) : Fleet.standard();
+        int maxConnections = args.length > 4 ? Integer.parseInt(args[4]) : 20000;
+        int idle = args.length > 5 ? Integer.parseInt(args[5]) : 300;
+        boolean salvo = args.length > 6 && args[6].equalsIgnoreCase("SALVO");
+
+        GameServer s = new GameServer(port, rows, cols, fleet, salvo, maxConnections, idle * 1000).start();
+        System.out.printf("Battleship server on port %d, %dx%d, fleet %s%s, up to %d connections%n",
+                          s.port(), rows, cols, fleet, salvo ? ", salvo" : "", maxConnections);
+        while (true) {
+            Thread.sleep(10_000);
+            System.out.printf("connections=%d  active games=%d  finished=%d%n",
+                              s.connections(), s.activeGames(), s.gamesFinished());
+        }
+    }
+}
@@ -5,6 +5,7 @@ import java.util.*;
 public class HumanPlayerConsole implements IPlayer {
     private final Scanner scanner;
     private final String playerName;
+    private final ConsoleRenderer renderer = ConsoleRenderer.stdout();
 
     public HumanPlayerConsole(String name, Scanner scanner) {
         this.playerName = name;
@@ -14,12 +15,14 @@ public class HumanPlayerConsole implements IPlayer {
     @Override
     public void placeShips(Board board) {
         System.out.println(playerName + ": place your ships.");
-        for (ShipType type : new ShipType[]{ShipType.Carrier, ShipType.Battleship, ShipType.Cruiser, ShipType.Submarine, ShipType.Destroyer}) {
+        Fleet fleet = board.fleet();
+        for (int i = 0; i < fleet.shipCount(); i++) {
+            ShipType type = fleet.type(i);
+            int size = fleet.size(i);
             boolean placed = false;
             while (!placed) {
-                System.out.println("Board:");
-                System.out.println(board.toDisplayString(true));
-                System.out.printf("Place %s (size %d). Enter start row col and orientation (h or v). Example: 0 0 h%n", type.name(), type.size);
+                renderer.show("Board:", board, true);
+                System.out.printf("Place %s (size %d). Enter start row col and orientation (h or v). Example: 0 0 h%n", type.name(), size);
                 System.out.print("> ");
                 String line = scanner.nextLine().trim();
                 String[] parts = line.split("\\s+");
@@ -29,7 +32,8 @@ public class HumanPlayerConsole implements IPlayer {
                     int c = Integer.parseInt(parts[1]);
                     String orient = parts[2].toLowerCase();
                     boolean horiz = orient.startsWith("h");
-                    if (board.placeShip(type, new Pos(r, c), horiz)) {
+                    if (board.placeShip(type, size, Pos.of(r, c), horiz)) {
+                        renderer.shipPlaced(board, board.getShips().get(board.getShips().size() - 1));
                         placed = true;
                     } else {
                         System.out.println("Invalid placement (collision/out-of-bounds). Try again.");
@@ -44,8 +48,7 @@ public class HumanPlayerConsole implements IPlayer {
     @Override
     public Pos makeMove(Board opponentBoard) {
         while (true) {
-            System.out.println("Opponent board (your hits/misses so far):");
-            System.out.println(opponentBoard.toDisplayString(false));
+            renderer.show("Opponent board (your hits/misses so far):", opponentBoard, false);
             System.out.println(playerName + ", enter row and col to fire at (e.g., 0 0):");
             System.out.print("> ");
             String line = scanner.nextLine().trim();
@@ -54,7 +57,7 @@ public class HumanPlayerConsole implements IPlayer {
             try {
                 int r = Integer.parseInt(parts[0]);
                 int c = Integer.parseInt(parts[1]);
-                Pos p = new Pos(r, c);
+                Pos p = Pos.of(r, c);
                 if (!opponentBoard.inBounds(p)) {
                     System.out.println("Out of bounds. Try again.");
                     continue;
@@ -67,6 +70,32 @@ public class HumanPlayerConsole implements IPlayer {
         }
     }
 
+    // the whole salvo on one line, so the board is shown once per turn
+    @Override
+    public List<Pos> makeSalvo(Board opponentBoard, int shots) {
+        if (shots == 1) return List.of(makeMove(opponentBoard));
+        while (true) {
+            renderer.show("Opponent board (your hits/misses so far):", opponentBoard, false);
+            System.out.printf("%s, enter %d targets as row col pairs (e.g., 0 0 2 5):%n", playerName, shots);
+            System.out.print("> ");
+            String[] parts = scanner.nextLine().trim().split("\\s+");
+            if (parts.length != 2 * shots) { System.out.println("Expected " + shots + " row col pairs."); continue; }
+            try {
+                List<Pos> out = new ArrayList<>(shots);
+                for (int i = 0; i < shots; i++) {
+                    Pos p = Pos.of(Integer.parseInt(parts[2 * i]), Integer.parseInt(parts[2 * i + 1]));
+                    if (!opponentBoard.inBounds(p)) throw new IllegalArgumentException("Out of bounds: " + p);
+                    out.add(p);
+                }
+                return out;
+            } catch (NumberFormatException ex) {
+                System.out.println("Bad numbers. Try again.");
+            } catch (IllegalArgumentException ex) {
+                System.out.println(ex.getMessage() + ". Try again.");
+            }
+        }
+    }
+
     @Override
     public String name() { return playerName; }
 }
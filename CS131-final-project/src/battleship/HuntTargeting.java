@@ -0,0 +1,141 @@
+package battleship;
+
+import java.util.Random;
+
+// MEDIUM and HARD: hunt at random until a hit, then work through the hit's
+// neighbours until the ship sinks. HARD hunts on the (row + col) even checkerboard
+// first, since every ship of length 2 or more covers at least one of those cells; in
+// general every ship at least AiParams.paritySpacing long covers a cell with
+// (row + col) % spacing == 0. The neighbour order, the spacing and whether a line of
+// hits is extended first come from AiParams. With a prior from the PlacementModel the
+// hunt draws cells in proportion to it instead of uniformly.
+final class HuntTargeting implements TargetingStrategy {
+    private final Random rnd;
+    private final int[][] deltas;
+    private final boolean followLine;
+    private final boolean adaptiveParity;
+    private int spacing;
+    private int[] prior;
+
+    private int rows;
+    private int cols;
+    private CellQueue targetQueue;
+    private CellQueue lineQueue;   // cells extending a line of hits, tried first
+    private RemainingCells open;
+    private RemainingCells openParity;
+    private long[] hits;
+    private int[] afloat;          // ships afloat by length
+
+    HuntTargeting(Random rnd, AiParams params) {
+        this.rnd = rnd;
+        this.deltas = params.neighbours();
+        this.followLine = params.followLine;
+        this.adaptiveParity = params.adaptiveParity;
+        this.spacing = params.paritySpacing;
+    }
+
+    @Override
+    public boolean prior(int[] weights) {
+        prior = weights;
+        return true;
+    }
+
+    @Override
+    public Pos nextTarget(Board b) {
+        if (open == null) {
+            rows = b.rows();
+            cols = b.cols();
+            targetQueue = new CellQueue(rows * cols);
+            lineQueue = new CellQueue(rows * cols);
+            open = RemainingCells.untried(b);
+            hits = new long[(rows * cols + 63) >>> 6];
+            afloat = new int[b.fleet().maxSize() + 1];
+            for (int i = 0; i < b.fleet().shipCount(); i++) afloat[b.fleet().size(i)]++;
+            if (adaptiveParity) spacing = Math.max(spacing, shortestAfloat());
+            if (spacing > 1) openParity = RemainingCells.untriedParity(b, spacing);
+        }
+        // if have queued target cells (after a hit), take the first one still open
+        int cell = first(lineQueue, b);
+        if (cell < 0) cell = first(targetQueue, b);
+        if (cell >= 0) return b.cellPos(cell);
+        cell = openParity != null ? sample(openParity, b) : -1;
+        if (cell < 0) cell = sample(open, b);
+        if (cell < 0) throw new IllegalStateException("No untried cells left");
+        return b.cellPos(cell);
+    }
+
+    @Override
+    public void informResult(Pos p, FireResult res) {
+        if (open == null) return;
+        int cell = p.row * cols + p.col;
+        open.remove(cell);
+        if (openParity != null) openParity.remove(cell);
+        if (res.hit) hits[cell >>> 6] |= 1L << cell;
+        if (res.hit && !res.sunk) {
+            // enqueue in-bounds neighbours we have not fired at yet
+            for (int[] d : deltas) {
+                int r = p.row + d[0], c = p.col + d[1];
+                if (!inBounds(r, c)) continue;
+                if (open.contains(r * cols + c)) targetQueue.offer(r * cols + c);
+                else if (followLine && Board.isSet(hits, r * cols + c)) extendLine(p.row, p.col, d);
+            }
+        } else if (res.sunk) {
+            // clear targetQueue as ship is sunk
+            targetQueue.clear();
+            lineQueue.clear();
+            if (res.sunkSize < afloat.length && afloat[res.sunkSize] > 0) afloat[res.sunkSize]--;
+            if (adaptiveParity) widenParity();
+        }
+    }
+
+    private int sample(RemainingCells cells, Board b) {
+        return prior != null ? cells.sampleWeighted(b, rnd, prior) : cells.sampleUntried(b, rnd);
+    }
+
+    // A cell leaves the queue once its result is in, not when it is handed out, so a
+    // move the GUI abandons before firing it does not lose a neighbour of a hit.
+    private int first(CellQueue q, Board b) {
+        while (!q.isEmpty() && !open.contains(q.peek())) q.poll();
+        for (int i = 0; i < q.size(); i++) {
+            int cell = q.get(i);
+            if (open.contains(cell) && isOpen(b.stateAt(cell))) return cell;
+        }
+        return -1;
+    }
+
+    // queues the open cells at both ends of the run of hits through (row, col) along d
+    private void extendLine(int row, int col, int[] d) {
+        for (int sign = -1; sign <= 1; sign += 2) {
+            int r = row, c = col;
+            while (inBounds(r, c) && Board.isSet(hits, r * cols + c)) {
+                r += sign * d[0];
+                c += sign * d[1];
+            }
+            if (inBounds(r, c) && open.contains(r * cols + c)) lineQueue.offer(r * cols + c);
+        }
+    }
+
+    private void widenParity() {
+        int shortest = shortestAfloat();
+        if (shortest <= spacing) return;
+        spacing = shortest;
+        openParity = new RemainingCells(rows * cols);
+        for (int r = 0; r < rows; r++)
+            for (int c = RemainingCells.firstOnLattice(r, spacing); c < cols; c += spacing)
+                if (open.contains(r * cols + c)) openParity.add(r * cols + c);
+    }
+
+    private int shortestAfloat() {
+        for (int len = 1; len < afloat.length; len++)
+            if (afloat[len] > 0) return len;
+        return 1;
+    }
+
+    private boolean inBounds(int r, int c) {
+        return r >= 0 && r < rows && c >= 0 && c < cols;
+    }
+
+    private static boolean isOpen(CellState s) {
+        return s != CellState.HIT && s != CellState.MISS;
+    }
+}
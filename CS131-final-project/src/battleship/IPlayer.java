@@ -1,7 +1,23 @@
 package battleship;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public interface IPlayer {
     void placeShips(Board board);
     Pos makeMove(Board opponentBoard);
     String name();
+
+    // result of the shot this player just fired; players that learn from it override this
+    default void informResult(Pos p, FireResult res) {}
+
+    // Salvo rules: the shots of one turn, fired together. The results come back through
+    // informResult in the same order once the whole volley has landed. By default the
+    // player is asked for each shot in turn, which suits players that read the board
+    // themselves; computer players override it to pick distinct cells.
+    default List<Pos> makeSalvo(Board opponentBoard, int shots) {
+        List<Pos> out = new ArrayList<>(shots);
+        for (int i = 0; i < shots; i++) out.add(makeMove(opponentBoard));
+        return out;
+    }
 }
@@ -0,0 +1,89 @@
+package battleship;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Log-linear histogram of durations in nanoseconds: each power of two is split into
+// SUB buckets, so a reported percentile is within 1/SUB (12.5%) of the true value. One
+// thread records and any thread may read, which is how the event loops and the
+// reporter share them; record() is a plain read and lazy write, not a CAS.
+// recordShared() is the variant for histograms that several threads write.
+final class LatencyHistogram {
+    private static final int SUB_BITS = 3;
+    private static final int SUB = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB + SUB;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private volatile long max;
+
+    private static final VarHandle MAX;
+    static {
+        try {
+            MAX = MethodHandles.lookup().findVarHandle(LatencyHistogram.class, "max", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        int i = index(nanos);
+        counts.lazySet(i, counts.get(i) + 1);
+        if (nanos > max) max = nanos;
+    }
+
+    void recordShared(long nanos) {
+        if (nanos < 0) nanos = 0;
+        counts.incrementAndGet(index(nanos));
+        long m;
+        while (nanos > (m = max) && !MAX.compareAndSet(this, m, nanos)) { }
+    }
+
+    private static int index(long v) {
+        if (v < SUB) return (int) v;
+        int shift = 63 - Long.numberOfLeadingZeros(v) - SUB_BITS;
+        return (shift + 1) * SUB + (int) ((v >>> shift) & (SUB - 1));
+    }
+
+    // largest value that falls in bucket i
+    private static long upper(int i) {
+        if (i < SUB) return i;
+        int shift = i / SUB - 1;
+        long base = (long) (SUB + i % SUB) << shift;
+        return base + (1L << shift) - 1;
+    }
+
+    void addTo(LatencyHistogram total) {
+        for (int i = 0; i < BUCKETS; i++) {
+            long c = counts.get(i);
+            if (c != 0) total.counts.addAndGet(i, c);
+        }
+        if (max > total.max) total.max = max;
+    }
+
+    long count() {
+        long n = 0;
+        for (int i = 0; i < BUCKETS; i++) n += counts.get(i);
+        return n;
+    }
+
+    long max() { return max; }
+
+    long percentile(double fraction) {
+        long n = count();
+        if (n == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(fraction * n)), seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) return Math.min(upper(i), max);
+        }
+        return max;
+    }
+
+    // "n=… p50=…us p99=…us p99.9=…us max=…us"
+    String summary() {
+        return String.format("n=%d p50=%.0fus p99=%.0fus p99.9=%.0fus max=%.0fus", count(), percentile(0.5) / 1e3,
+                             percentile(0.99) / 1e3, percentile(0.999) / 1e3, max / 1e3);
+    }
+}
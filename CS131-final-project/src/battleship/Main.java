@@ -4,6 +4,18 @@ import java.util.Scanner;
 public class Main {
     @SuppressWarnings("ConvertToTryWithResources")
     public static void main(String[] args) {
+        // optional: --fleet "Carrier,Battleship*2,Destroyer:3*4" (see Fleet for the format)
+        //           --log game.bslog (binary record of the game, see GameReplay)
+        //           --salvo (one shot per surviving ship each turn)
+        Fleet fleet = Fleet.standard();
+        String logFile = null;
+        boolean salvo = false;
+        for (String a : args) if (a.equals("--salvo")) salvo = true;
+        for (int i = 0; i + 1 < args.length; i++) {
+            if (args[i].equals("--fleet")) fleet = Fleet.parse(args[i + 1]);
+            if (args[i].equals("--log")) logFile = args[i + 1];
+        }
+
         System.out.println("Battleship (Console) - CS Project");
         Scanner scanner = new Scanner(System.in);
 
@@ -17,6 +29,11 @@ public class Main {
                 cols = Integer.parseInt(parts[1]);
             } catch (Exception ignored) { System.out.println("Using default 8x8."); }
         }
+        if (!fleet.fits(rows, cols)) {
+            System.out.println("Fleet " + fleet + " does not fit on a " + rows + "x" + cols + " board.");
+            scanner.close();
+            return;
+        }
 
         System.out.println("Your game mode is human vs computer." + " Press enter to continue: ");
         int mode = 1;
@@ -43,7 +60,7 @@ public class Main {
                 System.out.print("Enter your name: ");
                 String name = scanner.nextLine().trim();
                 p1 = new HumanPlayerConsole(name.isEmpty() ? "Player" : name, scanner);
-                System.out.println("Choose computer difficulty: 1) EASY 2) MEDIUM 3) HARD (default MEDIUM)");
+                System.out.println("Choose computer difficulty: 1) EASY 2) MEDIUM 3) HARD 4) EXPERT (default MEDIUM)");
                 int d = 2;
                 try {
                     String ds = scanner.nextLine().trim();
@@ -52,12 +69,23 @@ public class Main {
                 ComputerPlayer.Difficulty diff = ComputerPlayer.Difficulty.MEDIUM;
                 if (d == 1) diff = ComputerPlayer.Difficulty.EASY;
                 if (d == 3) diff = ComputerPlayer.Difficulty.HARD;
+                if (d == 4) diff = ComputerPlayer.Difficulty.EXPERT;
                 p2 = new ComputerPlayer("Computer", diff);
             }
         }
 
-        GameController controller = new GameController(rows, cols, p1, p2, scanner);
-        controller.setupAndPlay();
+        GameController controller = new GameController(rows, cols, fleet, p1, p2, scanner);
+        controller.setSalvo(salvo);
+        if (logFile == null) {
+            controller.setupAndPlay();
+        } else {
+            try (GameLog log = new GameLog(java.nio.file.Paths.get(logFile))) {
+                controller.setLog(log);
+                controller.setupAndPlay();
+            } catch (java.io.IOException e) {
+                System.out.println("Game log error: " + e.getMessage());
+            }
+        }
         scanner.close();
     }
 }
@@ -0,0 +1,202 @@
+package battleship;
+
+import java.util.List;
+
+// One game between two players with no console I/O, used by the headless tools.
+public class Match {
+    private final Board board1; // holds p1's ships, p2 fires at it
+    private final Board board2; // holds p2's ships, p1 fires at it
+    private final IPlayer p1; // null for a remote seat, see stepped()
+    private final IPlayer p2;
+    private final String name1;
+    private final String name2;
+    private final int maxShots;
+    private int shots1;
+    private int shots2;
+    private GameLog log; // optional, see logTo
+    private long gameId;
+    private GameArchive archive; // optional, see archiveTo
+    private long seed;
+    private boolean salvo;
+    private int[] sinks;
+    private int sinkCount;
+
+    private GameLog.Recorder record;
+    private boolean p1First;
+    private boolean p1Turn;
+    private int winner;
+
+    public Match(int rows, int cols, IPlayer p1, IPlayer p2) {
+        this(rows, cols, Fleet.standard(), p1, p2);
+    }
+
+    public Match(int rows, int cols, Fleet fleet, IPlayer p1, IPlayer p2) {
+        this(rows, cols, fleet, p1, p1.name(), p2, p2.name());
+    }
+
+    // A game driven only through the step API below. A null player is a remote seat
+    // known by name alone: its ships are placed on board(seat) and its shots passed to
+    // fire() by the caller. Such a match cannot play().
+    static Match stepped(int rows, int cols, Fleet fleet, IPlayer p1, String name1, IPlayer p2, String name2) {
+        return new Match(rows, cols, fleet, p1, name1, p2, name2);
+    }
+
+    private Match(int rows, int cols, Fleet fleet, IPlayer p1, String name1, IPlayer p2, String name2) {
+        this.board1 = new Board(rows, cols, fleet);
+        this.board2 = new Board(rows, cols, fleet);
+        this.p1 = p1;
+        this.p2 = p2;
+        this.name1 = name1;
+        this.name2 = name2;
+        // names the shooter in JFR shot events
+        board1.shooter(name2);
+        board2.shooter(name1);
+        if (p1 instanceof ComputerPlayer c) c.setOpponent(name2);
+        if (p2 instanceof ComputerPlayer c) c.setOpponent(name1);
+        // a player that never repeats a cell needs at most rows*cols shots
+        this.maxShots = 2 * rows * cols;
+    }
+
+    // appends the game to log when play() finishes
+    public Match logTo(GameLog log, long gameId) {
+        this.log = log;
+        this.gameId = gameId;
+        return this;
+    }
+
+    // appends the game's summary to archive when play() finishes; seed is only stored
+    public Match archiveTo(GameArchive archive, long gameId, long seed) {
+        this.archive = archive;
+        this.gameId = gameId;
+        this.seed = seed;
+        this.sinks = new int[2 * board1.fleet().shipCount()];
+        return this;
+    }
+
+    // Salvo rules: every turn a player fires one shot per ship it still has afloat, and
+    // the whole volley lands before the turn passes
+    public Match salvo(boolean salvo) {
+        this.salvo = salvo;
+        return this;
+    }
+
+    public boolean isSalvo() { return salvo; }
+
+    // Returns 1 or 2 for the winner, or 0 if both players ran out of shots.
+    public int play(boolean p1First) {
+        if (p1 == null || p2 == null) throw new IllegalStateException("A remote seat has no player to ask for moves");
+        p1.placeShips(board1);
+        p2.placeShips(board2);
+        begin(p1First);
+        while (toMove() != 0) {
+            IPlayer shooter = toMove() == 1 ? p1 : p2;
+            Board target = toMove() == 1 ? board2 : board1;
+            if (salvo) {
+                List<Pos> volley = shooter.makeSalvo(target, volleySize());
+                FireResult[] res = fire(volley);
+                for (int i = 0; i < res.length; i++) shooter.informResult(volley.get(i), res[i]);
+            } else {
+                Pos p = shooter.makeMove(target);
+                shooter.informResult(p, fire(p));
+            }
+        }
+        return finish();
+    }
+
+    // --- step-by-step play, for front ends that get moves from events instead of
+    // calling IPlayer.makeMove (see NioGameServer). play() is built on these.
+
+    // player 1's or player 2's own board, to place ships on before begin()
+    Board board(int player) { return player == 1 ? board1 : board2; }
+
+    void begin(boolean p1First) {
+        record = log == null ? null : log.record(gameId, board1, board2);
+        this.p1First = p1First;
+        p1Turn = p1First;
+        if (!canShoot(p1Turn)) p1Turn = !p1Turn;
+    }
+
+    // 1 or 2 for the player whose shot it is, 0 once the game is over
+    int toMove() {
+        if (winner != 0 || !canShoot(p1Turn)) return 0;
+        return p1Turn ? 1 : 2;
+    }
+
+    // the current player's shot; the turn then passes on, skipping a player who is out of shots
+    FireResult fire(Pos p) {
+        if (toMove() == 0) throw new IllegalStateException("Game is over");
+        Board target = p1Turn ? board2 : board1;
+        FireResult res = target.fireAt(p);
+        if (record != null) record.shot(target, p, res);
+        landed(res);
+        endTurn();
+        return res;
+    }
+
+    // shots the player to move fires this turn: 1, or under salvo rules one per ship afloat
+    int volleySize() {
+        if (!salvo) return 1;
+        int left = maxShots - (p1Turn ? shots1 : shots2);
+        return Math.min((p1Turn ? board1 : board2).shipsAfloat(), left);
+    }
+
+    // the current player's salvo of 1 to volleySize() shots, resolved together
+    FireResult[] fire(List<Pos> volley) {
+        if (toMove() == 0) throw new IllegalStateException("Game is over");
+        if (volley.isEmpty() || volley.size() > volleySize())
+            throw new IllegalArgumentException("Expected 1 to " + volleySize() + " shots, got " + volley.size());
+        Board target = p1Turn ? board2 : board1;
+        FireResult[] res = target.fireAt(volley);
+        if (record != null) record.volley(target, volley, res);
+        for (FireResult r : res) landed(r);
+        endTurn();
+        return res;
+    }
+
+    private void landed(FireResult res) {
+        if (p1Turn) sink(1, ++shots1, res);
+        else sink(0, ++shots2, res);
+    }
+
+    private void endTurn() {
+        if (p1Turn ? board2.allShipsSunk() : board1.allShipsSunk()) winner = p1Turn ? 1 : 2;
+        if (canShoot(!p1Turn)) p1Turn = !p1Turn;
+    }
+
+    private boolean canShoot(boolean player1) {
+        return player1 ? shots1 < maxShots : shots2 < maxShots;
+    }
+
+    // writes the finished game to the log, archive and PlacementModel; returns the winner
+    int finish() {
+        learn(p1, name1, board1);
+        learn(p2, name2, board2);
+        if (record != null) {
+            record.end(winner);
+            try {
+                log.append(record);
+            } catch (java.io.IOException e) {
+                throw new java.io.UncheckedIOException(e);
+            }
+            record = null;
+        }
+        if (archive != null) {
+            archive.append(gameId, seed, GameArchive.playerKind(p1), GameArchive.playerKind(p2), p1First, winner,
+                           board1.rows(), board1.cols(), shots1, shots2, sinks, sinkCount);
+            archive = null;
+        }
+        return winner;
+    }
+
+    // remote seats are people, so always worth learning from
+    private static void learn(IPlayer p, String name, Board own) {
+        if (p == null || PlacementModel.learnsFrom(p)) PlacementModel.shared().record(name, own);
+    }
+
+    private void sink(int target, int shot, FireResult res) {
+        if (archive != null && res.sunk) sinks[sinkCount++] = GameArchive.sinkRecord(target, res.sunkType, shot);
+    }
+
+    public int shots1() { return shots1; }
+    public int shots2() { return shots2; }
+}
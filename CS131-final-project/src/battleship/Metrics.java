@@ -0,0 +1,183 @@
+package battleship;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.*;
+
+// Counters and latency histograms for the engine's hot paths, switched on with
+// -Dbattleship.metrics=true. ENABLED is a static final, so with metrics off the JIT
+// folds every "if (Metrics.ENABLED)" guard away and the instrumented code runs as if
+// it were not there. With metrics on, counters are LongAdders and each timer is a set
+// of LatencyHistograms striped by thread, so simulator workers and server loops do
+// not fight over one cache line.
+//
+// Every metric is published as an MBean under "battleship:type=Counter|Timer,name=..."
+// and the whole set is printed to stderr as a text report when the JVM exits.
+final class Metrics {
+    static final boolean ENABLED = Boolean.getBoolean("battleship.metrics");
+
+    private static final Map<String, LongAdder> COUNTERS = new ConcurrentSkipListMap<>();
+    private static final Map<String, Timer> TIMERS = new ConcurrentHashMap<>();
+
+    static final LongAdder SHOTS = counter("shots");
+    static final LongAdder HITS = counter("hits");
+    static final LongAdder SINKS = counter("sinks");
+    static final LongAdder ALREADY_TRIED = counter("alreadyTried");
+    static final LongAdder PLACEMENTS_REJECTED = counter("placementsRejected");
+
+    // null with metrics off: a Timer's stripes take a few hundred KB, and every use
+    // sits behind an ENABLED check anyway
+    static final Timer FIRE_AT = ENABLED ? timer("Board.fireAt") : null;
+    static final Timer FIRE_VOLLEY = ENABLED ? timer("Board.fireVolley") : null;
+    static final Timer PLACE_SHIP = ENABLED ? timer("Board.placeShip") : null;
+    static final Timer DISPLAY = ENABLED ? timer("Board.toDisplayString") : null;
+
+    static {
+        if (ENABLED) Runtime.getRuntime().addShutdownHook(new Thread(() -> System.err.print(report()), "metrics-report"));
+    }
+
+    private Metrics() {}
+
+    // Latency of one operation. Threads record into the stripe their identity hash
+    // picks, so two threads only share a stripe by collision.
+    static final class Timer {
+        private final LatencyHistogram[] stripes;
+
+        private Timer() {
+            int n = Integer.highestOneBit(Runtime.getRuntime().availableProcessors()) << 2;
+            stripes = new LatencyHistogram[Math.min(n, 64)];
+            for (int i = 0; i < stripes.length; i++) stripes[i] = new LatencyHistogram();
+        }
+
+        void record(long nanos) {
+            int h = System.identityHashCode(Thread.currentThread()) * 0x9E3779B9;
+            stripes[(h >>> 16) & (stripes.length - 1)].recordShared(nanos);
+        }
+
+        // the stripes merged, for reporting
+        LatencyHistogram total() {
+            LatencyHistogram h = new LatencyHistogram();
+            for (LatencyHistogram s : stripes) s.addTo(h);
+            return h;
+        }
+    }
+
+    static LongAdder counter(String name) {
+        return COUNTERS.computeIfAbsent(name, n -> {
+            LongAdder a = new LongAdder();
+            register("Counter", n, new Bean(new String[] {"Count"}, attr -> a.sum()));
+            return a;
+        });
+    }
+
+    static Timer timer(String name) {
+        return TIMERS.computeIfAbsent(name, n -> {
+            Timer t = new Timer();
+            register("Timer", n, new Bean(new String[] {"Count", "P50Nanos", "P99Nanos", "P999Nanos", "MaxNanos"}, attr -> {
+                LatencyHistogram h = t.total();
+                return switch (attr) {
+                    case "Count" -> h.count();
+                    case "P50Nanos" -> h.percentile(0.5);
+                    case "P99Nanos" -> h.percentile(0.99);
+                    case "P999Nanos" -> h.percentile(0.999);
+                    default -> h.max();
+                };
+            }));
+            return t;
+        });
+    }
+
+    // Timer for one kind of player, e.g. "makeMove.HARD". Keyed by strategy rather than
+    // player name, so a server with many players keeps a bounded set of timers.
+    static Timer timer(String op, String player) {
+        return timer(op + "." + player);
+    }
+
+    // counters, then one line per timer that has recorded anything
+    static String report() {
+        StringBuilder sb = new StringBuilder("--- battleship metrics ---\n");
+        for (Map.Entry<String, LongAdder> e : COUNTERS.entrySet())
+            sb.append(String.format("%-28s %d%n", e.getKey(), e.getValue().sum()));
+        for (Map.Entry<String, Timer> e : new java.util.TreeMap<>(TIMERS).entrySet()) {
+            LatencyHistogram h = e.getValue().total();
+            if (h.count() == 0) continue;
+            sb.append(String.format("%-28s n=%d p50=%s p99=%s p99.9=%s max=%s%n", e.getKey(), h.count(),
+                                    time(h.percentile(0.5)), time(h.percentile(0.99)), time(h.percentile(0.999)),
+                                    time(h.max())));
+        }
+        return sb.toString();
+    }
+
+    private static String time(long nanos) {
+        if (nanos < 10_000) return nanos + "ns";
+        if (nanos < 10_000_000) return String.format("%.1fus", nanos / 1e3);
+        return String.format("%.1fms", nanos / 1e6);
+    }
+
+    private static void register(String type, String name, Bean bean) {
+        if (!ENABLED) return;
+        try {
+            ManagementFactory.getPlatformMBeanServer()
+                             .registerMBean(bean, new ObjectName("battleship:type=" + type + ",name=" + name.replaceAll("[^\\w.-]", "_")));
+        } catch (JMException e) {
+            // already registered by another class loader, or no MBean server; the report still works
+        }
+    }
+
+    // read-only MBean whose attributes are computed on every read
+    private static final class Bean implements DynamicMBean {
+        interface Reader {
+            long read(String attribute);
+        }
+
+        private final String[] names;
+        private final Reader reader;
+
+        Bean(String[] names, Reader reader) {
+            this.names = names;
+            this.reader = reader;
+        }
+
+        @Override
+        public Object getAttribute(String attribute) throws AttributeNotFoundException {
+            for (String n : names) if (n.equals(attribute)) return reader.read(attribute);
+            throw new AttributeNotFoundException(attribute);
+        }
+
+        @Override
+        public AttributeList getAttributes(String[] attributes) {
+            AttributeList out = new AttributeList();
+            for (String a : attributes) {
+                try {
+                    out.add(new Attribute(a, getAttribute(a)));
+                } catch (AttributeNotFoundException ignored) {
+                }
+            }
+            return out;
+        }
+
+        @Override
+        public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+            throw new AttributeNotFoundException("Read-only: " + attribute.getName());
+        }
+
+        @Override
+        public AttributeList setAttributes(AttributeList attributes) { return new AttributeList(); }
+
+        @Override
+        public Object invoke(String action, Object[] params, String[] signature) throws ReflectionException {
+            throw new ReflectionException(new NoSuchMethodException(action));
+        }
+
+        @Override
+        public MBeanInfo getMBeanInfo() {
+            MBeanAttributeInfo[] attrs = new MBeanAttributeInfo[names.length];
+            for (int i = 0; i < names.length; i++)
+                attrs[i] = new MBeanAttributeInfo(names[i], "long", names[i], true, false, false);
+            return new MBeanInfo(Metrics.class.getName(), "battleship metric", attrs, null, null, null);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package battleship;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+// Computer player that targets by Monte Carlo posterior sampling, see MonteCarloTargeting.
+public class MonteCarloPlayer extends ComputerPlayer {
+
+    public MonteCarloPlayer(String name) {
+        this(name, 20, 10000, ForkJoinPool.commonPool(), new Random());
+    }
+
+    public MonteCarloPlayer(String name, long budgetMillis, int maxSamples, ForkJoinPool pool, Random rnd) {
+        super(name, "MONTECARLO", new MonteCarloTargeting(budgetMillis, maxSamples, pool, rnd), rnd);
+    }
+}
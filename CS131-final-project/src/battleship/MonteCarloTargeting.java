@@ -0,0 +1,302 @@
+package battleship;
+
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Posterior-sampling targeting. Every move it draws random fleet layouts that agree with
+// the misses, open hits and sunk ships seen so far and fires at the unknown cell
+// the samples occupy most often. Sampling is split across a fork-join pool and runs
+// until the per-move time budget or the sample cap is reached, so more cores means
+// more samples per move. A budget of 0 drops the time limit: every move then draws
+// exactly maxSamples layouts in a fixed number of tasks, so a seeded game plays the
+// same on any machine.
+final class MonteCarloTargeting implements TargetingStrategy {
+    // random placements tried per ship before a sample is thrown away
+    private static final int PLACEMENT_TRIES = 100;
+    // tasks a fixed-count move is split into, whatever the pool's parallelism
+    private static final int FIXED_TASKS = 8;
+
+    private final long budgetNanos;
+    private final int maxSamples;
+    private final ForkJoinPool pool;
+    private final Random rnd;
+
+    private TargetGrid grid;
+    private int cols;
+
+    MonteCarloTargeting(long budgetMillis, int maxSamples, ForkJoinPool pool, Random rnd) {
+        this.budgetNanos = budgetMillis * 1_000_000L;
+        this.maxSamples = maxSamples;
+        this.pool = pool;
+        this.rnd = rnd;
+    }
+
+    @Override
+    public Pos nextTarget(Board opponentBoard) {
+        init(opponentBoard);
+        syncWith(opponentBoard);
+
+        int[] counts = sample();
+        int best = -1;
+        if (counts != null) {
+            for (int c = 0; c < counts.length; c++)
+                if (grid.state(c) == TargetGrid.UNKNOWN && (best < 0 || counts[c] > counts[best])) best = c;
+        }
+        if (best < 0) best = fallback();
+        return opponentBoard.cellPos(best);
+    }
+
+    // Salvo: one round of sampling, then the most occupied unknown cells. If no sample
+    // was accepted the volley opens with the usual fallback and fills up in cell order.
+    @Override
+    public List<Pos> nextVolley(Board opponentBoard, int shots) {
+        init(opponentBoard);
+        syncWith(opponentBoard);
+        int[] counts = sample();
+        int cells = grid.rows * cols;
+        boolean[] picked = new boolean[cells];
+        List<Pos> out = new ArrayList<>(shots);
+        if (counts == null) {
+            int first = fallback();
+            picked[first] = true;
+            out.add(opponentBoard.cellPos(first));
+        }
+        while (out.size() < shots) {
+            int best = -1;
+            for (int c = 0; c < cells; c++)
+                if (!picked[c] && grid.state(c) == TargetGrid.UNKNOWN
+                    && (best < 0 || counts != null && counts[c] > counts[best])) best = c;
+            if (best < 0) break;
+            picked[best] = true;
+            out.add(opponentBoard.cellPos(best));
+        }
+        return out;
+    }
+
+    // occupancy counts for the position on the board, for OpeningBook; null if no sample fitted
+    int[] occupancy(Board opponentBoard) {
+        init(opponentBoard);
+        syncWith(opponentBoard);
+        return sample();
+    }
+
+    @Override
+    public boolean openingBook() { return true; }
+
+    private void init(Board b) {
+        if (grid == null) {
+            grid = new TargetGrid(b.rows(), b.cols(), b.fleet());
+            cols = b.cols();
+        }
+    }
+
+    @Override
+    public void informResult(Pos p, FireResult res) {
+        if (grid != null) grid.record(p.row * cols + p.col, res);
+    }
+
+    // picks up shots the player was never told about, e.g. when a front end skips informResult
+    private void syncWith(Board b) {
+        for (int c = 0; c < b.rows() * cols; c++) {
+            if (grid.state(c) != TargetGrid.UNKNOWN) continue;
+            CellState s = b.stateAt(c);
+            if (s == CellState.HIT) grid.record(c, FireResult.hit());
+            else if (s == CellState.MISS) grid.record(c, FireResult.miss());
+        }
+    }
+
+    // Occupancy counts over the accepted samples, or null if none were accepted. An
+    // interrupt, whether it reaches the waiting caller or a task the caller runs
+    // itself, stops every sampler and cancels the move.
+    private int[] sample() {
+        long deadline = budgetNanos == 0 ? Long.MAX_VALUE : System.nanoTime() + budgetNanos;
+        int tasks = budgetNanos == 0 ? FIXED_TASKS : Math.max(1, pool.getParallelism());
+        SampleTask[] work = new SampleTask[tasks];
+        AtomicBoolean stop = new AtomicBoolean();
+        for (int i = 0; i < tasks; i++) {
+            int quota = maxSamples / tasks + (i < maxSamples % tasks ? 1 : 0);
+            work[i] = new SampleTask(quota, deadline, rnd.nextLong(), stop);
+        }
+        Gather all = new Gather(work);
+        pool.execute(all);
+        Sampled total;
+        try {
+            total = all.get();
+        } catch (InterruptedException e) {
+            stop.set(true);
+            Thread.currentThread().interrupt();
+            throw new CancellationException("move cancelled");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException r) throw r;
+            throw new IllegalStateException(e.getCause());
+        }
+        if (stop.get()) throw new CancellationException("move cancelled");
+        return total.accepted == 0 ? null : total.counts;
+    }
+
+    // no consistent sample: extend an open hit if possible, else any unknown cell
+    private int fallback() {
+        int rows = grid.rows;
+        for (int h = 0; h < grid.openHitCount(); h++) {
+            int cell = grid.openHit(h), r = cell / cols, c = cell % cols;
+            if (c + 1 < cols && grid.state(cell + 1) == TargetGrid.UNKNOWN) return cell + 1;
+            if (c > 0 && grid.state(cell - 1) == TargetGrid.UNKNOWN) return cell - 1;
+            if (r + 1 < rows && grid.state(cell + cols) == TargetGrid.UNKNOWN) return cell + cols;
+            if (r > 0 && grid.state(cell - cols) == TargetGrid.UNKNOWN) return cell - cols;
+        }
+        for (int c = 0; c < rows * cols; c++)
+            if (grid.state(c) == TargetGrid.UNKNOWN) return c;
+        throw new IllegalStateException("No untried cells left");
+    }
+
+    private static final class Sampled {
+        final int[] counts;
+        int accepted;
+
+        Sampled(int cells) { counts = new int[cells]; }
+    }
+
+    private final class Gather extends RecursiveTask<Sampled> {
+        private static final long serialVersionUID = 1L;
+        private final SampleTask[] work;
+
+        Gather(SampleTask[] work) { this.work = work; }
+
+        @Override
+        protected Sampled compute() {
+            for (int i = 1; i < work.length; i++) work[i].fork();
+            Sampled total = work[0].compute();
+            for (int i = 1; i < work.length; i++) {
+                Sampled s = work[i].join();
+                for (int c = 0; c < total.counts.length; c++) total.counts[c] += s.counts[c];
+                total.accepted += s.accepted;
+            }
+            return total;
+        }
+    }
+
+    private final class SampleTask extends RecursiveTask<Sampled> {
+        private static final long serialVersionUID = 1L;
+        private final int quota;
+        private final long deadline;
+        private final long seed;
+        private final AtomicBoolean stop;
+
+        SampleTask(int quota, long deadline, long seed, AtomicBoolean stop) {
+            this.quota = quota;
+            this.deadline = deadline;
+            this.seed = seed;
+            this.stop = stop;
+        }
+
+        @Override
+        protected Sampled compute() {
+            int rows = grid.rows, n = rows * cols, words = (n + 63) >>> 6;
+            SplittableRandom r = new SplittableRandom(seed);
+
+            long[] blocked = new long[words];
+            long[] hits = new long[words];
+            int[] open = new int[grid.openHitCount()];
+            for (int c = 0; c < n; c++) {
+                byte s = grid.state(c);
+                if (s == TargetGrid.MISS || s == TargetGrid.SUNK) blocked[c >>> 6] |= 1L << c;
+            }
+            for (int i = 0; i < open.length; i++) {
+                open[i] = grid.openHit(i);
+                hits[open[i] >>> 6] |= 1L << open[i];
+            }
+
+            int afloat = 0;
+            for (int len = 1; len <= grid.maxSize(); len++) afloat += grid.remaining(len);
+            int[] fleet = new int[afloat];
+            for (int len = grid.maxSize(), i = 0; len >= 1; len--)
+                for (int k = 0; k < grid.remaining(len); k++) fleet[i++] = len;
+
+            Sampled out = new Sampled(n);
+            long[] occupied = new long[words];
+            long[] ships = new long[words];
+            int[] firsts = new int[fleet.length];
+            int[] steps = new int[fleet.length];
+            boolean[] placed = new boolean[fleet.length];
+
+            // at least one sample even when the budget is already gone, unless cancelled
+            for (int done = 0; done < quota && !stopped() && (done == 0 || deadline == Long.MAX_VALUE || System.nanoTime() < deadline); done++) {
+                System.arraycopy(blocked, 0, occupied, 0, words);
+                Arrays.fill(ships, 0);
+                Arrays.fill(placed, false);
+                if (!drawLayout(r, fleet, open, occupied, ships, firsts, steps, placed)) continue;
+                if (anySunk(fleet, hits, firsts, steps)) continue;
+
+                out.accepted++;
+                for (int i = 0; i < fleet.length; i++)
+                    for (int k = 0, c = firsts[i]; k < fleet[i]; k++, c += steps[i]) out.counts[c]++;
+            }
+            return out;
+        }
+
+        private boolean stopped() {
+            if (Thread.currentThread().isInterrupted()) stop.set(true);
+            return stop.get();
+        }
+
+        // One layout: first lay ships across open hits that are still uncovered, then
+        // drop the rest anywhere legal. Rejected unless every open hit ends up covered.
+        private boolean drawLayout(SplittableRandom r, int[] fleet, int[] open, long[] occupied,
+                                   long[] ships, int[] firsts, int[] steps, boolean[] placed) {
+            int rows = grid.rows;
+            for (int h : open) {
+                if (Board.isSet(ships, h)) continue;
+                int hr = h / cols, hc = h % cols;
+                boolean ok = false;
+                for (int t = 0; t < PLACEMENT_TRIES && !ok; t++) {
+                    int i = r.nextInt(fleet.length);
+                    if (placed[i]) continue;
+                    boolean horiz = r.nextBoolean();
+                    int back = r.nextInt(fleet[i]);
+                    int row = horiz ? hr : hr - back, col = horiz ? hc - back : hc;
+                    ok = tryPlace(i, fleet[i], row, col, horiz, occupied, ships, firsts, steps, placed);
+                }
+                if (!ok) return false;
+            }
+            for (int i = 0; i < fleet.length; i++) {
+                boolean ok = placed[i];
+                for (int t = 0; t < PLACEMENT_TRIES && !ok; t++)
+                    ok = tryPlace(i, fleet[i], r.nextInt(rows), r.nextInt(cols), r.nextBoolean(),
+                                  occupied, ships, firsts, steps, placed);
+                if (!ok) return false;
+            }
+            for (int h : open)
+                if (!Board.isSet(ships, h)) return false;
+            return true;
+        }
+
+        // true if some ship lies wholly on open hits; it would have been reported sunk
+        private boolean anySunk(int[] fleet, long[] hits, int[] firsts, int[] steps) {
+            for (int i = 0; i < fleet.length; i++) {
+                boolean allHit = true;
+                for (int k = 0, c = firsts[i]; k < fleet[i] && allHit; k++, c += steps[i])
+                    allHit = Board.isSet(hits, c);
+                if (allHit) return true;
+            }
+            return false;
+        }
+
+        private boolean tryPlace(int i, int size, int row, int col, boolean horiz, long[] occupied,
+                                 long[] ships, int[] firsts, int[] steps, boolean[] placed) {
+            if (!Board.fits(occupied, grid.rows, cols, size, row, col, horiz)) return false;
+            int first = row * cols + col, step = horiz ? 1 : cols;
+            for (int k = 0, c = first; k < size; k++, c += step) {
+                occupied[c >>> 6] |= 1L << c;
+                ships[c >>> 6] |= 1L << c;
+            }
+            firsts[i] = first;
+            steps[i] = step;
+            placed[i] = true;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,702 @@
+package battleship;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Non-blocking counterpart of GameServer: the same Protocol, served by a few selector
+// loops instead of a thread per connection. Every connection belongs to one loop and
+// its games run on that loop, driving Match step by step as frames arrive. Server-side
+// ComputerPlayers think on a worker pool and post their move back to the loop, so a
+// long search never stalls the other connections. A client may pipeline several frames
+// in one write; they are all handled before the replies go out, and each connection's
+// replies for one read are flushed with a single write.
+//
+// Buffers: each loop reads into one direct buffer shared by its connections. Replies
+// are staged in direct buffers taken from a per-loop pool and given back once written,
+// so an idle connection holds no buffers at all.
+//
+// Latency is measured from the read that delivered a FIRE frame to the Board.fireAt
+// that applied it (the whole volley, in a salvo game), and per shot to the write that
+// sent its RESULT.
+//
+//   java battleship.NioGameServer [port] [rows] [cols] [fleet] [loops] [idleTimeoutSeconds] [CLASSIC|SALVO]
+public final class NioGameServer implements Closeable {
+    private static final int READ_BUFFER = 64 * 1024;
+    private static final int OUT_CHUNK = 4 * 1024;
+    private static final int MAX_RETRIES = 3;
+
+    private final ServerSocketChannel server;
+    private final Loop[] loops;
+    private final ExecutorService cpuPool;
+    private final int rows;
+    private final int cols;
+    private final Fleet fleet;
+    private final boolean salvo;
+    private final long idleTimeoutNanos;
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicInteger activeGames = new AtomicInteger();
+    private final AtomicLong gameIds = new AtomicLong();
+    private final AtomicLong gamesFinished = new AtomicLong();
+    private volatile boolean closed;
+    private int nextLoop; // only touched by loop 0, which accepts
+    // a connection waiting for a PLAYER opponent; whoever takes it moves it to their loop
+    private final AtomicReference<Conn> waiting = new AtomicReference<>();
+
+    public NioGameServer(int port, int rows, int cols, Fleet fleet, int loopCount, int idleTimeoutMillis)
+            throws IOException {
+        this(port, rows, cols, fleet, false, loopCount, idleTimeoutMillis);
+    }
+
+    public NioGameServer(int port, int rows, int cols, Fleet fleet, boolean salvo, int loopCount, int idleTimeoutMillis)
+            throws IOException {
+        if (!fleet.fits(rows, cols)) throw new IllegalArgumentException("Fleet " + fleet + " does not fit " + rows + "x" + cols);
+        if (loopCount <= 0) throw new IllegalArgumentException("Need at least one loop");
+        this.rows = rows;
+        this.cols = cols;
+        this.fleet = fleet;
+        this.salvo = salvo;
+        this.idleTimeoutNanos = idleTimeoutMillis * 1_000_000L;
+        server = ServerSocketChannel.open();
+        server.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        server.bind(new InetSocketAddress(port), 1024);
+        server.configureBlocking(false);
+        loops = new Loop[loopCount];
+        for (int i = 0; i < loopCount; i++) loops[i] = new Loop(i);
+        server.register(loops[0].selector, SelectionKey.OP_ACCEPT);
+        AtomicInteger workers = new AtomicInteger();
+        cpuPool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+            Thread t = new Thread(r, "nio-cpu-" + workers.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public NioGameServer start() {
+        for (Loop l : loops) {
+            Thread t = new Thread(l, "nio-loop-" + l.index);
+            t.setDaemon(true);
+            t.start();
+        }
+        return this;
+    }
+
+    public int port() { return server.socket().getLocalPort(); }
+    public int connections() { return connections.get(); }
+    public int activeGames() { return activeGames.get(); }
+    public long gamesFinished() { return gamesFinished.get(); }
+
+    // read -> Board.fireAt, over all loops since start
+    LatencyHistogram fireLatency() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (Loop l : loops) l.toFire.addTo(h);
+        return h;
+    }
+
+    // read -> RESULT written to the socket
+    LatencyHistogram replyLatency() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (Loop l : loops) l.toReply.addTo(h);
+        return h;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        cpuPool.shutdownNow();
+        server.close();
+        for (Loop l : loops) l.selector.wakeup();
+    }
+
+    private final class Loop implements Runnable {
+        final int index;
+        final Selector selector;
+        final Queue<SocketChannel> incoming = new ConcurrentLinkedQueue<>();
+        final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        final ByteBuffer readBuf = ByteBuffer.allocateDirect(READ_BUFFER);
+        final ArrayDeque<ByteBuffer> spare = new ArrayDeque<>();
+        final List<Conn> dirty = new ArrayList<>();
+        final LatencyHistogram toFire = new LatencyHistogram();
+        final LatencyHistogram toReply = new LatencyHistogram();
+        final Random rnd = new Random();
+        int[] coords = new int[2]; // scratch for parsing FIRE frames
+        long now;     // System.nanoTime() of the read being handled
+        long lastSweep;
+
+        Loop(int index) throws IOException {
+            this.index = index;
+            this.selector = Selector.open();
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!closed) {
+                    selector.select(1000);
+                    SocketChannel ch;
+                    while ((ch = incoming.poll()) != null) adopt(ch);
+                    Runnable task;
+                    while ((task = tasks.poll()) != null) task.run();
+                    for (Iterator<SelectionKey> it = selector.selectedKeys().iterator(); it.hasNext(); ) {
+                        SelectionKey k = it.next();
+                        it.remove();
+                        if (!k.isValid()) continue;
+                        if (k.isAcceptable()) accept();
+                        else {
+                            Conn c = (Conn) k.attachment();
+                            if (k.isWritable()) flush(c);
+                            if (k.isValid() && k.isReadable()) c.onReadable();
+                        }
+                    }
+                    // a failed flush can end a game and queue replies for the opponent
+                    for (int i = 0; i < dirty.size(); i++) flush(dirty.get(i));
+                    dirty.clear();
+                    sweep();
+                }
+            } catch (IOException | RuntimeException e) {
+                // a dead loop strands its connections and every one assigned to it later,
+                // so the whole server goes down rather than half of it
+                if (!closed) {
+                    System.err.println("NIO loop " + index + " failed, closing the server: " + e);
+                    try {
+                        close();
+                    } catch (IOException ignored) {
+                    }
+                }
+            } finally {
+                for (SelectionKey k : selector.keys())
+                    if (k.attachment() instanceof Conn c) c.close();
+                try {
+                    selector.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+
+        void execute(Runnable task) {
+            tasks.add(task);
+            selector.wakeup();
+        }
+
+        private void accept() throws IOException {
+            SocketChannel ch;
+            while ((ch = server.accept()) != null) {
+                ch.configureBlocking(false);
+                ch.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                Loop target = loops[nextLoop];
+                nextLoop = (nextLoop + 1) % loops.length;
+                if (target == this) {
+                    adopt(ch);
+                } else {
+                    target.incoming.add(ch);
+                    target.selector.wakeup();
+                }
+            }
+        }
+
+        private void adopt(SocketChannel ch) {
+            try {
+                Conn c = new Conn(this, ch);
+                c.key = ch.register(selector, SelectionKey.OP_READ, c);
+                connections.incrementAndGet();
+                c.send("HELLO battleship " + Protocol.VERSION);
+            } catch (IOException e) {
+                try {
+                    ch.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+
+        // closes connections that have been silent for longer than the idle timeout
+        private void sweep() {
+            long t = System.nanoTime();
+            if (idleTimeoutNanos <= 0 || t - lastSweep < 1_000_000_000L) return;
+            lastSweep = t;
+            for (SelectionKey k : selector.keys())
+                if (k.attachment() instanceof Conn c && t - c.lastActive > idleTimeoutNanos) c.close();
+        }
+
+        ByteBuffer takeBuffer() {
+            ByteBuffer b = spare.poll();
+            return b != null ? b : ByteBuffer.allocateDirect(OUT_CHUNK);
+        }
+
+        void flush(Conn c) {
+            c.dirty = false;
+            if (c.out == null || !c.key.isValid()) return;
+            try {
+                c.out.flip();
+                c.ch.write(c.out);
+                c.out.compact();
+            } catch (IOException e) {
+                c.close();
+                return;
+            }
+            if (c.out.position() > 0) {
+                c.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                return;
+            }
+            if (c.out.capacity() == OUT_CHUNK) spare.push(c.out);
+            c.out = null;
+            c.key.interestOps(SelectionKey.OP_READ);
+            if (c.repliesPending > 0) {
+                long t = System.nanoTime();
+                for (; c.repliesPending > 0; c.repliesPending--) toReply.record(t - c.readAt);
+            }
+        }
+    }
+
+    // One client connection, and the remote seat it holds in a game; its moves arrive
+    // as FIRE frames.
+    private final class Conn {
+        Loop loop;            // owner; changes only when the connection is handed to an opponent's loop
+        final SocketChannel ch;
+        SelectionKey key;
+        byte[] partial;       // start of a line that has not been terminated yet
+        ByteBuffer out;       // staged replies in write mode, null when there are none
+        boolean dirty;
+        String name = "?";
+        Game game;
+        int seat;             // 1 or 2 in game
+        int retries;
+        long lastActive = System.nanoTime();
+        long readAt;          // when the frames now being answered were read
+        int repliesPending;   // shots answered but not yet written
+
+        Conn(Loop loop, SocketChannel ch) {
+            this.loop = loop;
+            this.ch = ch;
+        }
+
+        void onReadable() {
+            ByteBuffer in = loop.readBuf;
+            in.clear();
+            if (partial != null) in.put(partial);
+            int n;
+            try {
+                n = ch.read(in);
+            } catch (IOException e) {
+                n = -1;
+            }
+            if (n < 0) {
+                close();
+                return;
+            }
+            loop.now = lastActive = System.nanoTime();
+            in.flip();
+            partial = null;
+            int lineStart = 0;
+            for (int i = 0, lim = in.limit(); i < lim && key.isValid(); i++) {
+                if (in.get(i) != '\n') continue;
+                int end = i > lineStart && in.get(i - 1) == '\r' ? i - 1 : i;
+                frame(in, lineStart, end);
+                lineStart = i + 1;
+            }
+            int rest = in.limit() - lineStart;
+            if (rest > 0 && key.isValid()) {
+                if (rest >= Protocol.MAX_LINE) {
+                    send("ERROR line too long");
+                    loop.flush(this);
+                    close();
+                    return;
+                }
+                partial = new byte[rest];
+                in.get(lineStart, partial);
+            }
+        }
+
+        private void frame(ByteBuffer in, int start, int end) {
+            if (end - start >= 5 && in.get(start) == 'F' && in.get(start + 1) == 'I' && in.get(start + 2) == 'R'
+                    && in.get(start + 3) == 'E' && in.get(start + 4) == ' ') {
+                fire(in, start + 5, end);
+                return;
+            }
+            byte[] bytes = new byte[end - start];
+            in.get(start, bytes);
+            String[] w = Protocol.words(new String(bytes, StandardCharsets.US_ASCII));
+            switch (w[0]) {
+                case "JOIN" -> join(w);
+                case "AUTO", "SHIPS" -> {
+                    if (game == null) send("ERROR no game");
+                    else game.place(this, w);
+                }
+                case "QUIT" -> close();
+                default -> send("ERROR unexpected " + w[0]);
+            }
+        }
+
+        // FIRE <row> <col> [<row> <col>]..., parsed straight from the buffer
+        private void fire(ByteBuffer in, int i, int end) {
+            if (game == null) {
+                send("ERROR no game");
+                return;
+            }
+            int[] coords = loop.coords;
+            int n = 0;
+            boolean ok = true;
+            while (ok) {
+                while (i < end && in.get(i) == ' ') i++;
+                if (i == end) break;
+                int v = 0, digits = 0;
+                for (; i < end && in.get(i) >= '0' && in.get(i) <= '9' && digits < 9; i++, digits++)
+                    v = v * 10 + (in.get(i) - '0');
+                if (digits == 0 || (i < end && in.get(i) != ' ')) ok = false;
+                if (n == coords.length) coords = loop.coords = Arrays.copyOf(coords, 2 * n);
+                coords[n++] = v;
+            }
+            if (!ok || n == 0 || n % 2 != 0) game.badMove(this);
+            else game.fire(this, coords, n / 2);
+        }
+
+        private void join(String[] w) {
+            if (game != null || waiting.get() == this) {
+                send("ERROR already in a game");
+                return;
+            }
+            if (w.length < 3) {
+                send("ERROR usage: JOIN <name> <EASY|MEDIUM|HARD|EXPERT|PLAYER>");
+                return;
+            }
+            name = w[1];
+            if (w[2].equals("PLAYER")) {
+                joinPlayer();
+                return;
+            }
+            try {
+                ComputerPlayer.Difficulty d = ComputerPlayer.Difficulty.valueOf(w[2]);
+                new Game(loop, this, null, new ComputerPlayer("Server", d, new Random(loop.rnd.nextLong()))).start();
+            } catch (IllegalArgumentException e) {
+                send("ERROR unknown opponent " + w[2]);
+            }
+        }
+
+        private void joinPlayer() {
+            while (true) {
+                Conn other = waiting.get();
+                if (other == null) {
+                    if (waiting.compareAndSet(null, this)) {
+                        send("WAIT");
+                        return;
+                    }
+                } else if (waiting.compareAndSet(other, null)) {
+                    if (other.loop == loop) new Game(loop, other, this, null).start();
+                    else other.loop.execute(() -> other.moveTo(this));
+                    return;
+                }
+            }
+        }
+
+        // Runs on this connection's loop: hands the connection over to opponent's loop and
+        // starts their game there. If it closed in the meantime, the opponent looks again.
+        private void moveTo(Conn opponent) {
+            Loop target = opponent.loop;
+            if (!ch.isOpen()) {
+                target.execute(() -> {
+                    if (opponent.ch.isOpen() && opponent.game == null) opponent.joinPlayer();
+                });
+                return;
+            }
+            key.cancel();
+            target.execute(() -> {
+                try {
+                    loop = target;
+                    key = ch.register(target.selector,
+                                      out == null ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE, this);
+                } catch (IOException e) {
+                    close();
+                }
+                if (!opponent.ch.isOpen()) {
+                    joinPlayer();
+                } else if (!ch.isOpen()) {
+                    opponent.joinPlayer();
+                } else {
+                    new Game(target, this, opponent, null).start();
+                }
+            });
+        }
+
+        void send(String line) {
+            ensure(line.length() + 1);
+            for (int i = 0; i < line.length(); i++) out.put((byte) line.charAt(i));
+            out.put((byte) '\n');
+            markDirty();
+        }
+
+        // RESULT <row> <col> <code>, without building a String
+        void sendResult(Pos p, FireResult res) {
+            ensure(64);
+            put("RESULT ");
+            putInt(p.row);
+            out.put((byte) ' ');
+            putInt(p.col);
+            out.put((byte) ' ');
+            if (res.alreadyTried) put("ALREADY");
+            else if (res.sunk) {
+                put("SUNK ");
+                put(res.sunkType.name());
+                out.put((byte) ' ');
+                putInt(res.sunkSize);
+            } else put(res.hit ? "HIT" : "MISS");
+            out.put((byte) '\n');
+            readAt = loop.now;
+            repliesPending++;
+            markDirty();
+        }
+
+        private void put(String s) {
+            for (int i = 0; i < s.length(); i++) out.put((byte) s.charAt(i));
+        }
+
+        private void putInt(int v) {
+            if (v >= 10) putInt(v / 10);
+            out.put((byte) ('0' + v % 10));
+        }
+
+        private void ensure(int bytes) {
+            if (out == null) out = loop.takeBuffer();
+            if (out.remaining() >= bytes) return;
+            ByteBuffer bigger = ByteBuffer.allocateDirect(Math.max(2 * out.capacity(), out.position() + bytes));
+            out.flip();
+            bigger.put(out);
+            if (out.capacity() == OUT_CHUNK) {
+                out.clear();
+                loop.spare.push(out);
+            }
+            out = bigger;
+        }
+
+        private void markDirty() {
+            if (!dirty) {
+                dirty = true;
+                loop.dirty.add(this);
+            }
+        }
+
+        void close() {
+            if (!key.isValid() && !ch.isOpen()) return;
+            key.cancel();
+            try {
+                ch.close();
+            } catch (IOException ignored) {
+            }
+            if (out != null && out.capacity() == OUT_CHUNK) {
+                out.clear();
+                loop.spare.push(out);
+            }
+            out = null;
+            waiting.compareAndSet(this, null);
+            if (game != null) game.abort();
+            connections.decrementAndGet();
+        }
+
+        String name() { return name + " (remote)"; }
+    }
+
+    // One game on a loop. Seat 1 is always a Conn; seat 2 is a Conn or a ComputerPlayer.
+    // The game only ever moves forward in reaction to a frame from the seat whose turn
+    // it is, or to a computer move coming back from the worker pool.
+    private final class Game {
+        final Loop loop;
+        final long id = gameIds.incrementAndGet();
+        final Conn[] remote = new Conn[3];
+        final ComputerPlayer[] cpus = new ComputerPlayer[3];
+        final boolean[] placed = new boolean[3];
+        final Match match;
+        boolean started;
+        boolean over;
+
+        // exactly one of p2 and cpu is not null
+        Game(Loop loop, Conn p1, Conn p2, ComputerPlayer cpu) {
+            this.loop = loop;
+            remote[1] = p1;
+            remote[2] = p2;
+            cpus[2] = cpu;
+            match = Match.stepped(rows, cols, fleet, null, p1.name(), cpu, p2 != null ? p2.name() : cpu.name())
+                         .salvo(salvo);
+        }
+
+        void start() {
+            activeGames.incrementAndGet();
+            for (int s = 1; s <= 2; s++) {
+                Conn c = remote[s];
+                if (c != null) {
+                    c.game = this;
+                    c.seat = s;
+                    c.retries = 0;
+                    c.send("GAME " + id + " " + rows + " " + cols + " " + fleet + (salvo ? " SALVO" : ""));
+                    c.send("PLACE");
+                } else {
+                    cpus[s].placeShips(match.board(s));
+                    placed[s] = true;
+                }
+            }
+            maybeBegin();
+        }
+
+        void place(Conn c, String[] w) {
+            if (placed[c.seat]) {
+                c.send("ERROR ships already placed");
+                return;
+            }
+            String error = null;
+            if (w[0].equals("AUTO")) FleetPlacer.place(match.board(c.seat), loop.rnd);
+            else error = RemotePlayer.placeAll(match.board(c.seat), w);
+            if (error != null) {
+                c.send("ERROR " + error);
+                if (++c.retries >= MAX_RETRIES) abort();
+                else c.send("PLACE");
+                return;
+            }
+            placed[c.seat] = true;
+            c.retries = 0;
+            maybeBegin();
+        }
+
+        private void maybeBegin() {
+            if (started || !placed[1] || !placed[2]) return;
+            started = true;
+            match.begin(id % 2 == 0);
+            advance();
+        }
+
+        // asks whoever is to move for their shot, or ends the game
+        private void advance() {
+            int s = match.toMove();
+            if (s == 0) end(match.finish());
+            else if (remote[s] != null) remote[s].send(Protocol.turn(salvo, match.volleySize()));
+            else think(s);
+        }
+
+        // Works out the computer's move on the worker pool, on a copy of the board so the
+        // search shares nothing with the loop, and applies it back on the loop.
+        private void think(int s) {
+            ComputerPlayer cpu = cpus[s];
+            Board view = match.board(3 - s).copy();
+            int shots = match.volleySize();
+            try {
+                cpuPool.execute(() -> {
+                    List<Pos> move;
+                    try {
+                        move = salvo ? cpu.makeSalvo(view, shots) : List.of(cpu.makeMove(view));
+                    } catch (RuntimeException e) {
+                        System.err.println("Game " + id + ": computer move failed, game aborted: " + e);
+                        loop.execute(this::abort);
+                        return;
+                    }
+                    loop.execute(() -> moved(s, move));
+                });
+            } catch (RejectedExecutionException e) {
+                abort(); // server is closing
+            }
+        }
+
+        private void moved(int s, List<Pos> move) {
+            if (over) return; // the opponent left while the computer was thinking
+            ComputerPlayer cpu = cpus[s];
+            if (salvo) {
+                FireResult[] res = match.fire(move);
+                for (int i = 0; i < res.length; i++) cpu.informResult(move.get(i), res[i]);
+            } else {
+                Pos p = move.get(0);
+                cpu.informResult(p, match.fire(p));
+            }
+            advance();
+        }
+
+        void fire(Conn c, int[] coords, int shots) {
+            if (!started || over || match.toMove() != c.seat) {
+                c.send("ERROR not your turn");
+                return;
+            }
+            Board target = match.board(3 - c.seat);
+            if (shots > match.volleySize()) {
+                badMove(c);
+                return;
+            }
+            for (int i = 0; i < 2 * shots; i += 2) {
+                if (coords[i] >= target.rows() || coords[i + 1] >= target.cols()) {
+                    badMove(c);
+                    return;
+                }
+            }
+            if (salvo) {
+                // the whole volley lands in one Board pass, then one RESULT per shot
+                List<Pos> volley = new ArrayList<>(shots);
+                for (int i = 0; i < 2 * shots; i += 2) volley.add(Pos.of(coords[i], coords[i + 1]));
+                FireResult[] res = match.fire(volley);
+                loop.toFire.record(System.nanoTime() - loop.now);
+                for (int i = 0; i < shots; i++) c.sendResult(volley.get(i), res[i]);
+            } else {
+                Pos p = Pos.of(coords[0], coords[1]);
+                FireResult res = match.fire(p);
+                loop.toFire.record(System.nanoTime() - loop.now);
+                c.sendResult(p, res);
+            }
+            c.retries = 0;
+            advance();
+        }
+
+        void badMove(Conn c) {
+            if (!started || over || match.toMove() != c.seat) {
+                c.send("ERROR not your turn");
+                return;
+            }
+            c.send("ERROR " + Protocol.fireUsage(match.volleySize()));
+            if (++c.retries >= MAX_RETRIES) abort();
+            else c.send(Protocol.turn(salvo, match.volleySize()));
+        }
+
+        private void end(int winner) {
+            finish(winner == 0 ? "DRAW" : null, winner);
+        }
+
+        void abort() {
+            if (!over) finish("ABORT", -1);
+        }
+
+        private void finish(String outcome, int winner) {
+            over = true;
+            activeGames.decrementAndGet();
+            gamesFinished.incrementAndGet();
+            for (int s = 1; s <= 2; s++) {
+                Conn c = remote[s];
+                if (c == null) continue;
+                c.game = null;
+                if (c.key.isValid()) c.send("END " + (outcome != null ? outcome : winner == s ? "WIN" : "LOSE"));
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : GameServer.DEFAULT_PORT;
+        int rows = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int cols = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+        Fleet fleet = args.length > 3 ? Fleet.parse(args[3]) : Fleet.standard();
+        int loops = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+        int idle = args.length > 5 ? Integer.parseInt(args[5]) : 300;
+        boolean salvo = args.length > 6 && args[6].equalsIgnoreCase("SALVO");
+
+        NioGameServer s = new NioGameServer(port, rows, cols, fleet, salvo, loops, idle * 1000).start();
+        System.out.printf("Battleship NIO server on port %d, %dx%d, fleet %s%s, %d loops%n",
+                          s.port(), rows, cols, fleet, salvo ? ", salvo" : "", loops);
+        while (!s.closed) {
+            Thread.sleep(10_000);
+            System.out.printf("connections=%d  active games=%d  finished=%d%n  read->fireAt  %s%n  read->written %s%n",
+                              s.connections(), s.activeGames(), s.gamesFinished(),
+                              s.fireLatency().summary(), s.replyLatency().summary());
+        }
+    }
+}
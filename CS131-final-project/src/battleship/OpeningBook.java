@@ -0,0 +1,218 @@
+package battleship;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+// Precomputed openings. Until something is hit, the best next shot depends only on the
+// board size, the fleet and the cells missed so far, so it can be worked out offline
+// instead of at the start of every game. For each (rows, cols, fleet) the book holds one
+// line of shots, each the cell most often occupied among sampled fleet layouts that
+// avoid the shots before it (the sampler is MonteCarloTargeting's, with a far larger
+// sample count than a live move can afford).
+//
+// Rotations and reflections of the board (all eight on a square board, four otherwise)
+// leave the opening equally good, so the book keeps one line per board and picks each
+// shot as the smallest cell index among its symmetric equivalents. A lookup matches the
+// misses on the board against the line under every symmetry and maps the next shot
+// through one of the matches, chosen at random so the CPU does not open on the same
+// cells every game. A hit, or any shot that leaves the line, ends the opening.
+//
+//   file := MAGIC VERSION count:short (rows:short cols:short fleet:UTF depth:short cell:int*)*
+//
+// The book is loaded on first use from -Dbattleship.book=<file>, or from the
+// openings.book resource next to this class when the property is not set; an empty
+// property turns the book off. Generate one with
+//
+//   java battleship.OpeningBook <file> [depth] [samples] [RxC[/fleet]]...
+//
+// which defaults to 12 shots from 1000000 samples each for 8x8 and 10x10 with the
+// standard fleet.
+public final class OpeningBook {
+    static final int MAGIC = 0x424F4F4B; // "BOOK"
+    static final int VERSION = 1;
+
+    private static final OpeningBook EMPTY = new OpeningBook(Map.of());
+
+    private final Map<String, int[]> lines;
+
+    private OpeningBook(Map<String, int[]> lines) {
+        this.lines = lines;
+    }
+
+    private static final class Shared {
+        static final OpeningBook BOOK = load();
+    }
+
+    static OpeningBook shared() { return Shared.BOOK; }
+
+    private static OpeningBook load() {
+        String file = System.getProperty("battleship.book");
+        if (file != null && file.isEmpty()) return EMPTY;
+        try (InputStream in = file != null ? Files.newInputStream(Paths.get(file))
+                                           : OpeningBook.class.getResourceAsStream("openings.book")) {
+            return in == null ? EMPTY : read(in);
+        } catch (IOException e) {
+            System.err.println("Opening book not loaded: " + e);
+            return EMPTY;
+        }
+    }
+
+    static OpeningBook read(InputStream raw) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(raw));
+        if (in.readInt() != MAGIC) throw new IOException("Not an opening book");
+        int version = in.readUnsignedByte();
+        if (version != VERSION) throw new IOException("Unsupported opening book version " + version);
+        Map<String, int[]> lines = new HashMap<>();
+        for (int i = in.readUnsignedShort(); i > 0; i--) {
+            int rows = in.readUnsignedShort(), cols = in.readUnsignedShort();
+            String fleet = in.readUTF();
+            int[] line = new int[in.readUnsignedShort()];
+            for (int k = 0; k < line.length; k++) {
+                line[k] = in.readInt();
+                if (line[k] < 0 || line[k] >= rows * cols) throw new IOException("Corrupt opening book: cell " + line[k]);
+            }
+            lines.put(key(rows, cols, fleet), line);
+        }
+        return new OpeningBook(lines);
+    }
+
+    void write(OutputStream raw) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(raw));
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeShort(lines.size());
+        for (Map.Entry<String, int[]> e : new TreeMap<>(lines).entrySet()) {
+            String[] k = e.getKey().split(" ", 3);
+            out.writeShort(Integer.parseInt(k[0]));
+            out.writeShort(Integer.parseInt(k[1]));
+            out.writeUTF(k[2]);
+            out.writeShort(e.getValue().length);
+            for (int cell : e.getValue()) out.writeInt(cell);
+        }
+        out.flush();
+    }
+
+    private static String key(int rows, int cols, Object fleet) {
+        return rows + " " + cols + " " + fleet;
+    }
+
+    // The book's next shot on this board, or -1 if the position is not in the book.
+    int next(Board b, Random rnd) {
+        int[] out = new int[1];
+        return volley(b, 1, rnd, out) == 1 ? out[0] : -1;
+    }
+
+    // Salvo: the next shots cells of the line, or 0 if the position is not in the book
+    // or the line has fewer shots left.
+    int volley(Board b, int shots, Random rnd, int[] out) {
+        int[] line = lines.get(key(b.rows(), b.cols(), b.fleet()));
+        if (line == null) return 0;
+        long[] hits = new long[b.maskWords()], misses = new long[b.maskWords()];
+        b.copyShots(hits, misses);
+        int k = 0;
+        for (int w = 0; w < hits.length; w++) {
+            if (hits[w] != 0) return 0;
+            k += Long.bitCount(misses[w]);
+        }
+        if (k + shots > line.length) return 0;
+
+        int rows = b.rows(), cols = b.cols();
+        int[] matches = new int[8];
+        int found = 0;
+        for (int t = 0; t < symmetries(rows, cols); t++) {
+            boolean same = true;
+            for (int i = 0; i < k && same; i++) same = Board.isSet(misses, map(t, line[i], rows, cols));
+            if (same) matches[found++] = t;
+        }
+        if (found == 0) return 0;
+        int t = matches[rnd.nextInt(found)];
+        for (int i = 0; i < shots; i++) out[i] = map(t, line[k + i], rows, cols);
+        return shots;
+    }
+
+    static int symmetries(int rows, int cols) { return rows == cols ? 8 : 4; }
+
+    // Cell under symmetry t: bit 0 flips the rows, bit 1 the columns, bit 2 transposes
+    // (square boards only).
+    static int map(int t, int cell, int rows, int cols) {
+        int r = cell / cols, c = cell % cols;
+        if ((t & 1) != 0) r = rows - 1 - r;
+        if ((t & 2) != 0) c = cols - 1 - c;
+        if ((t & 4) != 0) {
+            int x = r;
+            r = c;
+            c = x;
+        }
+        return r * cols + c;
+    }
+
+    // The best opening line for a board, from samples layouts per shot. Occupancy counts
+    // are summed over the symmetries that fix the misses so far, which the true
+    // probabilities are invariant under, to cut the sampling noise.
+    static int[] generate(int rows, int cols, Fleet fleet, int depth, int samples, Random rnd) {
+        Board b = new Board(rows, cols, fleet);
+        MonteCarloTargeting sampler = new MonteCarloTargeting(1_000_000, samples, ForkJoinPool.commonPool(), rnd);
+        int n = rows * cols, syms = symmetries(rows, cols);
+        int[] line = new int[Math.min(depth, n)];
+        long[] missed = new long[(n + 63) >>> 6];
+        for (int k = 0; k < line.length; k++) {
+            List<Integer> fixing = new ArrayList<>();
+            for (int t = 0; t < syms; t++) {
+                boolean same = true;
+                for (int i = 0; i < k && same; i++) same = Board.isSet(missed, map(t, line[i], rows, cols));
+                if (same) fixing.add(t);
+            }
+            int[] counts = sampler.occupancy(b);
+            if (counts == null) return Arrays.copyOf(line, k);
+            int best = -1;
+            long bestScore = -1;
+            for (int c = 0; c < n; c++) {
+                if (Board.isSet(missed, c)) continue;
+                long score = 0;
+                for (int t : fixing) score += counts[map(t, c, rows, cols)];
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = c;
+                }
+            }
+            int canonical = best;
+            for (int t : fixing) canonical = Math.min(canonical, map(t, best, rows, cols));
+            line[k] = canonical;
+            missed[canonical >>> 6] |= 1L << canonical;
+            b.fireAt(b.cellPos(canonical));
+        }
+        return line;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("usage: java battleship.OpeningBook <file> [depth] [samples] [RxC[/fleet]]...");
+            System.exit(2);
+        }
+        Path file = Paths.get(args[0]);
+        int depth = args.length > 1 ? Integer.parseInt(args[1]) : 12;
+        int samples = args.length > 2 ? Integer.parseInt(args[2]) : 1_000_000;
+        List<String> boards = args.length > 3 ? Arrays.asList(args).subList(3, args.length) : List.of("8x8", "10x10");
+
+        Map<String, int[]> lines = new HashMap<>();
+        Random rnd = new Random(1);
+        for (String spec : boards) {
+            int slash = spec.indexOf('/');
+            String[] size = (slash >= 0 ? spec.substring(0, slash) : spec).toLowerCase().split("x");
+            int rows = Integer.parseInt(size[0]), cols = Integer.parseInt(size[1]);
+            Fleet fleet = slash >= 0 ? Fleet.parse(spec.substring(slash + 1)) : Fleet.standard();
+            long start = System.nanoTime();
+            int[] line = generate(rows, cols, fleet, depth, samples, rnd);
+            lines.put(key(rows, cols, fleet), line);
+            System.out.printf("%dx%d %s: %d shots in %.1fs%n", rows, cols, fleet, line.length, (System.nanoTime() - start) / 1e9);
+        }
+        try (OutputStream out = Files.newOutputStream(file)) {
+            new OpeningBook(lines).write(out);
+        }
+        System.out.println("wrote " + Files.size(file) + " bytes to " + file);
+    }
+}
@@ -0,0 +1,274 @@
+package battleship;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Where each opponent tends to put their ships. Per opponent name, board size and fleet
+// the model keeps a heatmap of ship cells over the games seen, each older game counting
+// DECAY times less than the next, so a map tracks the opponent's recent habits and needs
+// no history kept around. Finishing a game costs one pass over the map.
+//
+// Before a game the map becomes a prior for the CPU's targeting: per cell, how much
+// likelier this opponent is to have a ship there than a player placing uniformly at
+// random, shrunk towards 1 while only a few games have been seen. It is computed once
+// per game; see TargetingStrategy.prior.
+//
+//   file := MAGIC VERSION count:int (name:UTF rows:short cols:short fleet:UTF games:float heat:byte*)*
+//
+// with heat stored as the fraction of the weighted games that had a ship on the cell,
+// one byte per cell. At most MAX_OPPONENTS maps of up to MAX_CELLS cells are kept, the
+// least recently played dropped first. The model is loaded on first use from
+// -Dbattleship.opponents=<file> and is off when the property is not set or empty, so
+// the headless tools stay reproducible. Only players that are not ComputerPlayers are
+// learned from. Changes are written back at most every SAVE_INTERVAL_MILLIS, by a
+// background thread working from a copy of the maps, and at exit.
+final class PlacementModel {
+    static final int MAGIC = 0x4F505053; // "OPPS"
+    static final int VERSION = 1;
+
+    static final double DECAY = 0.95;
+    // games' worth of uniform placement the prior starts from
+    static final double PSEUDO_GAMES = 16;
+    static final int MAX_OPPONENTS = 1024;
+    static final int MAX_CELLS = 4096;
+    // prior weights are fixed point, ONE meaning no more likely than uniform
+    static final int ONE = 256;
+    private static final int MAX_WEIGHT = 16 * ONE;
+    private static final long SAVE_INTERVAL_MILLIS = 10_000;
+
+    private static final class Heat {
+        final String name;
+        final int rows;
+        final int cols;
+        final String fleet;
+        double games;      // decayed number of games
+        final double[] heat; // decayed number of games with a ship on each cell
+
+        Heat(String name, int rows, int cols, String fleet) {
+            this.name = name;
+            this.rows = rows;
+            this.cols = cols;
+            this.fleet = fleet;
+            this.heat = new double[rows * cols];
+        }
+
+        Heat copy() {
+            Heat h = new Heat(name, rows, cols, fleet);
+            h.games = games;
+            System.arraycopy(heat, 0, h.heat, 0, heat.length);
+            return h;
+        }
+    }
+
+    private final Path file; // null when the model is off
+    private final Map<String, Heat> maps = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Heat> eldest) {
+            return size() > MAX_OPPONENTS;
+        }
+    };
+    private boolean dirty;
+    private boolean saveQueued;
+    private ScheduledExecutorService saver; // started by the first change
+    private final Object fileLock = new Object(); // one writer of the file at a time
+
+    PlacementModel(Path file) {
+        this.file = file;
+    }
+
+    private static final class Shared {
+        static final PlacementModel MODEL = load();
+    }
+
+    static PlacementModel shared() { return Shared.MODEL; }
+
+    private static PlacementModel load() {
+        String name = System.getProperty("battleship.opponents");
+        if (name == null || name.isEmpty()) return new PlacementModel(null);
+        PlacementModel model = new PlacementModel(Paths.get(name));
+        if (Files.exists(model.file)) {
+            try (InputStream in = Files.newInputStream(model.file)) {
+                model.read(in);
+            } catch (IOException e) {
+                System.err.println("Opponent model not loaded: " + e);
+            }
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(model::flush, "opponent-model-save"));
+        return model;
+    }
+
+    boolean enabled() { return file != null; }
+
+    // whether games against p are worth learning from
+    static boolean learnsFrom(IPlayer p) {
+        return !(p instanceof ComputerPlayer);
+    }
+
+    private static String key(String name, int rows, int cols, Object fleet) {
+        return rows + " " + cols + " " + fleet + " " + name;
+    }
+
+    // Adds the fleet on board, a finished game's, to opponent's map. Boards without a
+    // full fleet placed, or too large to keep, are ignored.
+    synchronized void record(String opponent, Board board) {
+        int rows = board.rows(), cols = board.cols();
+        List<Ship> ships = board.getShips();
+        if (file == null || rows * cols > MAX_CELLS || ships.size() != board.fleet().shipCount()) return;
+        Heat h = maps.computeIfAbsent(key(opponent, rows, cols, board.fleet()),
+                                      k -> new Heat(opponent, rows, cols, board.fleet().toString()));
+        h.games = h.games * DECAY + 1;
+        for (int c = 0; c < h.heat.length; c++) h.heat[c] *= DECAY;
+        for (Ship s : ships)
+            for (Pos p : s.getPositions()) h.heat[p.row * cols + p.col] += 1;
+        dirty = true;
+        if (saveQueued) return;
+        saveQueued = true;
+        if (saver == null) {
+            saver = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "opponent-model-writer");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        saver.schedule(this::flush, SAVE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    // Per-cell weights for a game against opponent on a board like b, in units of ONE,
+    // or null if the opponent has not been seen on such a board.
+    int[] prior(String opponent, Board b) {
+        int rows = b.rows(), cols = b.cols();
+        double games;
+        double[] heat;
+        synchronized (this) {
+            Heat h = maps.get(key(opponent, rows, cols, b.fleet()));
+            if (h == null) return null;
+            games = h.games;
+            heat = h.heat.clone();
+        }
+        double[] uniform = uniform(rows, cols, b.fleet());
+        int[] w = new int[rows * cols];
+        for (int c = 0; c < w.length; c++) {
+            if (uniform[c] == 0) {
+                w[c] = ONE;
+                continue;
+            }
+            double ratio = (heat[c] / uniform[c] + PSEUDO_GAMES) / (games + PSEUDO_GAMES);
+            w[c] = (int) Math.max(1, Math.min(MAX_WEIGHT, Math.round(ONE * ratio)));
+        }
+        return w;
+    }
+
+    // chance of a ship on each cell when every ship is placed uniformly at random on its
+    // own, the baseline the prior is relative to
+    static double[] uniform(int rows, int cols, Fleet fleet) {
+        double[] u = new double[rows * cols];
+        for (int i = 0; i < fleet.shipCount(); i++) {
+            int len = fleet.size(i);
+            int across = Math.max(0, cols - len + 1), down = Math.max(0, rows - len + 1);
+            double placements = (double) rows * across + (double) cols * down;
+            if (placements == 0) continue;
+            for (int r = 0; r < rows; r++)
+                for (int c = 0; c < cols; c++)
+                    u[r * cols + c] += (starts(c, cols, len) + starts(r, rows, len)) / placements;
+        }
+        return u;
+    }
+
+    private static int starts(int pos, int limit, int len) {
+        int lo = Math.max(0, pos - len + 1), hi = Math.min(pos, limit - len);
+        return Math.max(0, hi - lo + 1);
+    }
+
+    // Writes the changes so far, if any, on the calling thread: the saver's, or the
+    // shutdown hook's. Only the copy is taken under the monitor.
+    void flush() {
+        List<Heat> all;
+        synchronized (this) {
+            saveQueued = false;
+            if (!dirty) return;
+            dirty = false;
+            all = snapshot();
+        }
+        if (!save(all)) {
+            synchronized (this) {
+                dirty = true;
+            }
+        }
+    }
+
+    // least recently played first, so reading them back keeps the order
+    private List<Heat> snapshot() {
+        List<Heat> all = new ArrayList<>(maps.size());
+        for (Heat h : maps.values()) all.add(h.copy());
+        return all;
+    }
+
+    // writes a temporary file and moves it over the old one, so a crash never leaves a
+    // half-written model
+    private boolean save(List<Heat> all) {
+        synchronized (fileLock) {
+            try {
+                Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+                try (OutputStream out = Files.newOutputStream(tmp)) {
+                    write(out, all);
+                }
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                return true;
+            } catch (IOException e) {
+                System.err.println("Opponent model not saved: " + e);
+                return false;
+            }
+        }
+    }
+
+    synchronized void read(InputStream raw) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(raw));
+        if (in.readInt() != MAGIC) throw new IOException("Not an opponent model");
+        int version = in.readUnsignedByte();
+        if (version != VERSION) throw new IOException("Unsupported opponent model version " + version);
+        for (int i = in.readInt(); i > 0; i--) {
+            String name = in.readUTF();
+            int rows = in.readUnsignedShort(), cols = in.readUnsignedShort();
+            String fleet = in.readUTF();
+            if (rows * cols > MAX_CELLS) throw new IOException("Corrupt opponent model: " + rows + "x" + cols);
+            Heat h = new Heat(name, rows, cols, fleet);
+            h.games = in.readFloat();
+            for (int c = 0; c < h.heat.length; c++) h.heat[c] = in.readUnsignedByte() / 255.0 * h.games;
+            maps.put(key(name, rows, cols, fleet), h);
+        }
+    }
+
+    void write(OutputStream raw) throws IOException {
+        List<Heat> all;
+        synchronized (this) {
+            all = snapshot();
+        }
+        write(raw, all);
+    }
+
+    private static void write(OutputStream raw, List<Heat> all) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(raw));
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeInt(all.size());
+        for (Heat h : all) {
+            out.writeUTF(h.name);
+            out.writeShort(h.rows);
+            out.writeShort(h.cols);
+            out.writeUTF(h.fleet);
+            out.writeFloat((float) h.games);
+            for (double x : h.heat) out.writeByte((int) Math.round(255 * Math.min(1, x / h.games)));
+        }
+        out.flush();
+    }
+}
@@ -0,0 +1,55 @@
+package battleship;
+
+import java.io.*;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+// Blocking line transport over a socket, used by the server for each client and by
+// BotClient. Reads go through a fixed buffer of Protocol.MAX_LINE bytes, so a client
+// cannot make the server hold more than that for it.
+final class PlayerConnection implements Closeable {
+    private final Socket socket;
+    private final InputStream in;
+    private final OutputStream out;
+    private final byte[] buf = new byte[Protocol.MAX_LINE];
+    private int start;
+    private int end;
+
+    PlayerConnection(Socket socket) throws IOException {
+        this.socket = socket;
+        this.in = socket.getInputStream();
+        this.out = new BufferedOutputStream(socket.getOutputStream(), 512);
+    }
+
+    // next line without its terminator, or null when the peer has closed the connection
+    String readLine() throws IOException {
+        while (true) {
+            for (int i = start; i < end; i++) {
+                if (buf[i] == '\n') {
+                    int len = i > start && buf[i - 1] == '\r' ? i - 1 - start : i - start;
+                    String line = new String(buf, start, len, StandardCharsets.US_ASCII);
+                    start = i + 1;
+                    return line;
+                }
+            }
+            if (start > 0) {
+                System.arraycopy(buf, start, buf, 0, end - start);
+                end -= start;
+                start = 0;
+            }
+            if (end == buf.length) throw new IOException("Line longer than " + Protocol.MAX_LINE + " bytes");
+            int n = in.read(buf, end, buf.length - end);
+            if (n < 0) return null;
+            end += n;
+        }
+    }
+
+    void writeLine(String line) throws IOException {
+        out.write(line.getBytes(StandardCharsets.US_ASCII));
+        out.write('\n');
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException { socket.close(); }
+}
@@ -1,16 +1,38 @@
 package battleship;
-import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 public final class Pos {
+	// Pos.of hands out one shared instance per cell for coordinates below this limit, which
+	// covers every board a person plays on and pins at most 4096 instances. Larger boards
+	// get a fresh Pos per call; the engine works in cell indices there, so that is one
+	// per move rather than one per cell scanned.
+	private static final int CACHE_LIMIT = 64;
+	private static final AtomicReferenceArray<Pos[]> CACHE = new AtomicReferenceArray<>(CACHE_LIMIT);
+
 	public final int row;
 	public final int col;
-	
+
 	public Pos(int row, int col) {
 		this.row = row;
 		this.col = col;
 	}
+
+	// Canonical instance for (row, col). Rows are filled in lazily; a racing thread may
+	// build its own copy of a cell, which is harmless since Pos is immutable.
+	public static Pos of(int row, int col) {
+		if (row < 0 || col < 0 || row >= CACHE_LIMIT || col >= CACHE_LIMIT) return new Pos(row, col);
+		Pos[] cells = CACHE.get(row);
+		if (cells == null) {
+			CACHE.compareAndSet(row, null, new Pos[CACHE_LIMIT]);
+			cells = CACHE.get(row);
+		}
+		Pos p = cells[col];
+		if (p == null) cells[col] = p = new Pos(row, col);
+		return p;
+	}
+
 	public Pos offset(int dr, int dc) {
-		return new Pos(row + dr, col + dc);
+		return of(row + dr, col + dc);
 	}
 	@Override
 	public boolean equals(Object o) {
@@ -19,9 +41,10 @@ public final class Pos {
 		Pos pos = (Pos) o;
 		return row == pos.row && col == pos.col;
 	}
+	// golden-ratio multiply spreads rows across the hash range without boxing
 	@Override
-	public int hashCode() { return Objects.hash(row, col); }
-	
+	public int hashCode() { return row * 0x9E3779B1 + col; }
+
 	@Override
 	public String toString() { return "(" + row + "," + col + ")"; }
 }
@@ -0,0 +1,76 @@
+package battleship;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// The text protocol spoken between GameServer and its clients. One message per line,
+// words separated by spaces, ASCII only:
+//
+//   server -> client                      client -> server
+//   HELLO battleship 1                    JOIN <name> <EASY|MEDIUM|HARD|EXPERT|PLAYER>
+//   WAIT              (for an opponent)   QUIT
+//   GAME <id> <rows> <cols> <fleet> [SALVO]
+//   PLACE                                 AUTO | SHIPS <row,col,H|V>...  (fleet order)
+//   TURN [<shots>]                        FIRE <row> <col> [<row> <col>]...
+//   RESULT <row> <col> MISS|HIT|ALREADY|SUNK <type> <size>
+//   END WIN|LOSE|DRAW|ABORT
+//   ERROR <message>
+//
+// In a SALVO game every TURN says how many shots the player has (one per ship
+// afloat) and FIRE may carry from one up to that many; there is one RESULT per shot,
+// in order. After END the client may JOIN again on the same connection.
+final class Protocol {
+    static final String VERSION = "1";
+    // longest line either side accepts; keeps per-connection buffers bounded
+    static final int MAX_LINE = 8192;
+
+    private Protocol() {}
+
+    static String result(Pos p, FireResult res) {
+        String r = res.alreadyTried ? "ALREADY"
+                 : res.sunk ? "SUNK " + res.sunkType.name() + " " + res.sunkSize
+                 : res.hit ? "HIT" : "MISS";
+        return "RESULT " + p.row + " " + p.col + " " + r;
+    }
+
+    // parses the words of a RESULT line starting at the result code
+    static FireResult parseResult(String[] words, int at) {
+        return switch (words[at]) {
+            case "MISS" -> FireResult.miss();
+            case "HIT" -> FireResult.hit();
+            case "ALREADY" -> FireResult.already();
+            case "SUNK" -> FireResult.sunk(ShipType.valueOf(words[at + 1]), Integer.parseInt(words[at + 2]));
+            default -> throw new IllegalArgumentException("Unknown result: " + words[at]);
+        };
+    }
+
+    static String turn(boolean salvo, int shots) {
+        return salvo ? "TURN " + shots : "TURN";
+    }
+
+    static String fireUsage(int shots) {
+        return shots == 1 ? "expected FIRE <row> <col> on the board"
+                          : "expected FIRE with 1 to " + shots + " <row> <col> pairs on the board";
+    }
+
+    // the targets of a FIRE line, or null unless it names 1 to maxShots cells on board
+    static List<Pos> parseFire(String[] words, int maxShots, Board board) {
+        int pairs = (words.length - 1) / 2;
+        if (!words[0].equals("FIRE") || words.length % 2 == 0 || pairs == 0 || pairs > maxShots) return null;
+        List<Pos> out = new ArrayList<>(pairs);
+        try {
+            for (int i = 0; i < pairs; i++) {
+                Pos p = Pos.of(Integer.parseInt(words[2 * i + 1]), Integer.parseInt(words[2 * i + 2]));
+                if (!board.inBounds(p)) return null;
+                out.add(p);
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return out;
+    }
+
+    static String[] words(String line) {
+        return line.trim().split("\\s+");
+    }
+}
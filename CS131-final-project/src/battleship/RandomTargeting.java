@@ -0,0 +1,30 @@
+package battleship;
+
+import java.util.Random;
+
+// EASY: uniformly random untried cell.
+final class RandomTargeting implements TargetingStrategy {
+    private final Random rnd;
+    private RemainingCells open;
+    private int cols;
+
+    RandomTargeting(Random rnd) {
+        this.rnd = rnd;
+    }
+
+    @Override
+    public Pos nextTarget(Board b) {
+        if (open == null) {
+            open = RemainingCells.untried(b);
+            cols = b.cols();
+        }
+        int cell = open.sampleUntried(b, rnd);
+        if (cell < 0) throw new IllegalStateException("No untried cells left");
+        return b.cellPos(cell);
+    }
+
+    @Override
+    public void informResult(Pos p, FireResult res) {
+        if (open != null) open.remove(p.row * cols + p.col);
+    }
+}
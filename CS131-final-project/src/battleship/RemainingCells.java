@@ -0,0 +1,100 @@
+package battleship;
+
+import java.util.Random;
+
+// Set of cell indices with O(1) remove and O(1) uniform sampling. The live cells are
+// kept packed at the front of an array; removing one swaps the last live cell into
+// its slot. Random targeting draws from here instead of retrying until it finds a
+// cell that has not been fired at.
+final class RemainingCells {
+    private final int[] cells;
+    private final int[] slot; // index of each cell in cells, -1 if not present
+    private int size;
+
+    RemainingCells(int universe) {
+        cells = new int[universe];
+        slot = new int[universe];
+        java.util.Arrays.fill(slot, -1);
+    }
+
+    // every cell of the board that has not been fired at yet
+    static RemainingCells untried(Board b) {
+        RemainingCells rc = new RemainingCells(b.rows() * b.cols());
+        for (int cell = 0; cell < b.rows() * b.cols(); cell++)
+            if (isOpen(b, cell)) rc.add(cell);
+        return rc;
+    }
+
+    // untried cells with (row + col) % spacing == 0; spacing 2 is the checkerboard a
+    // hunting AI sweeps
+    static RemainingCells untriedParity(Board b, int spacing) {
+        RemainingCells rc = new RemainingCells(b.rows() * b.cols());
+        for (int r = 0; r < b.rows(); r++)
+            for (int c = firstOnLattice(r, spacing); c < b.cols(); c += spacing)
+                if (isOpen(b, r * b.cols() + c)) rc.add(r * b.cols() + c);
+        return rc;
+    }
+
+    // first column of row r with (r + col) % spacing == 0
+    static int firstOnLattice(int r, int spacing) {
+        return (spacing - r % spacing) % spacing;
+    }
+
+    int size() { return size; }
+    boolean isEmpty() { return size == 0; }
+    boolean contains(int cell) { return slot[cell] >= 0; }
+
+    void add(int cell) {
+        if (slot[cell] >= 0) return;
+        slot[cell] = size;
+        cells[size++] = cell;
+    }
+
+    void remove(int cell) {
+        int i = slot[cell];
+        if (i < 0) return;
+        int last = cells[--size];
+        cells[i] = last;
+        slot[last] = i;
+        slot[cell] = -1;
+    }
+
+    // uniformly random member, or -1 when empty
+    int sample(Random rnd) {
+        return size == 0 ? -1 : cells[rnd.nextInt(size)];
+    }
+
+    // Uniformly random member the board still shows as untried. Cells the board has
+    // already seen fired at are dropped on the way, so each call is amortised O(1).
+    int sampleUntried(Board b, Random rnd) {
+        while (size > 0) {
+            int cell = sample(rnd);
+            if (isOpen(b, cell)) return cell;
+            remove(cell);
+        }
+        return -1;
+    }
+
+    // Member the board still shows as untried, drawn with probability proportional to
+    // weight[cell]; O(size), for boards small enough to carry a prior.
+    int sampleWeighted(Board b, Random rnd, int[] weight) {
+        long total = 0;
+        for (int i = size - 1; i >= 0; i--) {
+            int cell = cells[i];
+            if (isOpen(b, cell)) total += weight[cell];
+            else remove(cell);
+        }
+        if (size == 0) return -1;
+        long pick = (long) (rnd.nextDouble() * total);
+        for (int i = 0; i < size; i++) {
+            pick -= weight[cells[i]];
+            if (pick < 0) return cells[i];
+        }
+        return cells[size - 1];
+    }
+
+    private static boolean isOpen(Board b, int cell) {
+        CellState s = b.stateAt(cell);
+        return s != CellState.HIT && s != CellState.MISS;
+    }
+}
@@ -0,0 +1,129 @@
+package battleship;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+// A player on the other end of a PlayerConnection, speaking Protocol. Every IPlayer
+// call becomes a request/reply exchange; I/O failures surface as UncheckedIOException,
+// which ends the match. A client gets a few tries to correct a bad reply before the
+// game is abandoned.
+final class RemotePlayer implements IPlayer {
+    private static final int MAX_RETRIES = 3;
+    // from TURN to a valid FIRE, i.e. the client's think time plus the network
+    private static final Metrics.Timer MOVE = Metrics.ENABLED ? Metrics.timer("makeMove", "remote") : null;
+
+    private final String name;
+    private final PlayerConnection conn;
+
+    RemotePlayer(String name, PlayerConnection conn) {
+        this.name = name;
+        this.conn = conn;
+    }
+
+    void startGame(long id, int rows, int cols, Fleet fleet, boolean salvo) {
+        send("GAME " + id + " " + rows + " " + cols + " " + fleet + (salvo ? " SALVO" : ""));
+    }
+
+    // outcome is WIN, LOSE, DRAW or ABORT; the connection may already be gone
+    void endGame(String outcome) {
+        try {
+            conn.writeLine("END " + outcome);
+        } catch (IOException ignored) {
+        }
+    }
+
+    void waiting() { send("WAIT"); }
+
+    @Override
+    public void placeShips(Board board) {
+        send("PLACE");
+        for (int attempt = 0; attempt < MAX_RETRIES; attempt++) {
+            String[] w = Protocol.words(receive());
+            if (w[0].equals("AUTO")) {
+                FleetPlacer.place(board, new java.util.Random());
+                return;
+            }
+            String error = w[0].equals("SHIPS") ? placeAll(board, w) : "expected AUTO or SHIPS";
+            if (error == null) return;
+            send("ERROR " + error);
+            send("PLACE");
+        }
+        throw new UncheckedIOException(new IOException(name + " sent no valid placement"));
+    }
+
+    // Places every ship of a SHIPS message or none; returns an error message on failure.
+    // Shared with NioGameServer.
+    static String placeAll(Board board, String[] w) {
+        Fleet fleet = board.fleet();
+        if (w.length - 1 != fleet.shipCount()) return "expected " + fleet.shipCount() + " ships";
+        Board trial = board.copy();
+        for (int i = 0; i < fleet.shipCount(); i++) {
+            String[] f = w[i + 1].split(",");
+            try {
+                Pos start = Pos.of(Integer.parseInt(f[0]), Integer.parseInt(f[1]));
+                boolean horizontal = f[2].equalsIgnoreCase("H");
+                if (!trial.placeShip(fleet.type(i), fleet.size(i), start, horizontal)) return "cannot place ship " + (i + 1);
+            } catch (RuntimeException e) {
+                return "bad ship " + w[i + 1];
+            }
+        }
+        for (int i = 0; i < fleet.shipCount(); i++) {
+            String[] f = w[i + 1].split(",");
+            board.placeShip(fleet.type(i), fleet.size(i), Pos.of(Integer.parseInt(f[0]), Integer.parseInt(f[1])),
+                            f[2].equalsIgnoreCase("H"));
+        }
+        return null;
+    }
+
+    @Override
+    public Pos makeMove(Board opponentBoard) {
+        return fire(opponentBoard, false, 1).get(0);
+    }
+
+    @Override
+    public List<Pos> makeSalvo(Board opponentBoard, int shots) {
+        return fire(opponentBoard, true, shots);
+    }
+
+    private List<Pos> fire(Board opponentBoard, boolean salvo, int shots) {
+        long t0 = Metrics.ENABLED ? System.nanoTime() : 0;
+        send(Protocol.turn(salvo, shots));
+        for (int attempt = 0; attempt < MAX_RETRIES; attempt++) {
+            List<Pos> volley = Protocol.parseFire(Protocol.words(receive()), shots, opponentBoard);
+            if (volley != null) {
+                if (Metrics.ENABLED) MOVE.record(System.nanoTime() - t0);
+                return volley;
+            }
+            send("ERROR " + Protocol.fireUsage(shots));
+            send(Protocol.turn(salvo, shots));
+        }
+        throw new UncheckedIOException(new IOException(name + " sent no valid move"));
+    }
+
+    @Override
+    public void informResult(Pos p, FireResult res) {
+        send(Protocol.result(p, res));
+    }
+
+    @Override
+    public String name() { return name + " (remote)"; }
+
+    private void send(String line) {
+        try {
+            conn.writeLine(line);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private String receive() {
+        try {
+            String line = conn.readLine();
+            if (line == null) throw new IOException(name + " disconnected");
+            return line;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
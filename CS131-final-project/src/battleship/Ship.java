@@ -3,27 +3,55 @@ package battleship;
 import java.util.*;
 
 public class Ship {
-	
+
     public final ShipType type;
     private final List<Pos> positions;
-    private final Set<Pos> hits = new HashSet<>();
+    // ships are straight lines, so a hit is tracked by its segment along the ship
+    private final boolean[] hits;
+    private int hitCount;
 
 
     Ship(ShipType type, List<Pos> pos) {
         this.type = Objects.requireNonNull(type, "type");
         Objects.requireNonNull(pos, "pos");
         this.positions = Collections.unmodifiableList(new ArrayList<>(pos));
+        this.hits = new boolean[positions.size()];
     }
 
     public List<Pos> getPositions() { return positions; }
+    public int size() { return positions.size(); }
 
-    public boolean occupies(Pos p) { return positions.contains(p); }
+    public boolean occupies(Pos p) { return segmentOf(p.row, p.col) >= 0; }
 
     public void registerHit(Pos p) {
-        if (occupies(p)) hits.add(p);
+        registerHit(segmentOf(p.row, p.col));
+    }
+
+    void registerHit(int segment) {
+        if (segment >= 0 && !hits[segment]) {
+            hits[segment] = true;
+            hitCount++;
+        }
+    }
+
+    void clearHit(int segment) {
+        if (segment >= 0 && hits[segment]) {
+            hits[segment] = false;
+            hitCount--;
+        }
+    }
+
+    // index of (row, col) along the ship, or -1 if the ship does not cover it
+    int segmentOf(int row, int col) {
+        if (positions.isEmpty()) return -1;
+        Pos start = positions.get(0);
+        int i = (row - start.row) + (col - start.col);
+        if (i < 0 || i >= positions.size()) return -1;
+        Pos p = positions.get(i);
+        return p.row == row && p.col == col ? i : -1;
     }
 
-    public boolean isSunk() { return hits.size() >= positions.size(); }
+    public boolean isSunk() { return hitCount >= positions.size(); }
 
     @Override
     public String toString() {
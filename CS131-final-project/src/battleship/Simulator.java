@@ -0,0 +1,250 @@
+package battleship;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Headless AI-vs-AI runner: plays many games in parallel and prints a summary.
+//
+//   java battleship.Simulator [games] [rows] [cols] [p1] [p2] [seed] [threads] [fleet]
+//
+// p1/p2 are difficulty names (EASY, MEDIUM, HARD, EXPERT), optionally with :NOENDGAME
+// to play without the endgame solver; MONTECARLO[:ms[:samples]], the sampling bot with
+// an optional per-move budget in milliseconds and sample cap (a budget of 0 draws
+// exactly that many samples per move, for runs that reproduce across machines); or
+// PROFILE:<file>, an AiParams profile such as Tuner writes. fleet is a Fleet spec such
+// as "Carrier,Battleship*2,Destroyer:3*10" (default: the standard fleet).
+//
+// --log <file> anywhere on the line records every game into a GameLog, --archive <file>
+// appends a fixed-width summary of every game to a GameArchive (see ArchiveStats), and
+// --salvo plays Salvo rules (one shot per surviving ship each turn; shot counts are
+// still per shot). Each game gets its own Random derived from the seed and the game
+// number, so a run is reproducible no matter which worker thread ends up playing which
+// game.
+public class Simulator {
+
+    public interface PlayerFactory {
+        IPlayer create(Random rnd);
+    }
+
+    // games are split into chunks of this size before being handed to the pool
+    private static final int CHUNK = 64;
+
+    public static final class Report {
+        public final int games;
+        public final long wins1;
+        public final long wins2;
+        public final long draws;
+        public final double elapsedSeconds;
+        private final long[] shotsToWin; // histogram over the winner's shot count
+
+        private Report(int games, Tally t, double elapsedSeconds) {
+            this.games = games;
+            this.wins1 = t.wins1;
+            this.wins2 = t.wins2;
+            this.draws = t.draws;
+            this.shotsToWin = t.shotsToWin;
+            this.elapsedSeconds = elapsedSeconds;
+        }
+
+        public double winRate1() { return games == 0 ? 0 : (double) wins1 / games; }
+        public double winRate2() { return games == 0 ? 0 : (double) wins2 / games; }
+        public double gamesPerSecond() { return elapsedSeconds == 0 ? 0 : games / elapsedSeconds; }
+
+        public double meanShotsToWin() {
+            long n = 0, sum = 0;
+            for (int s = 0; s < shotsToWin.length; s++) {
+                n += shotsToWin[s];
+                sum += s * shotsToWin[s];
+            }
+            return n == 0 ? 0 : (double) sum / n;
+        }
+
+        // smallest shot count that at least the given fraction of wins needed
+        public int shotsToWinPercentile(double fraction) {
+            long n = 0;
+            for (long c : shotsToWin) n += c;
+            if (n == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(fraction * n));
+            long seen = 0;
+            for (int s = 0; s < shotsToWin.length; s++) {
+                seen += shotsToWin[s];
+                if (seen >= rank) return s;
+            }
+            return shotsToWin.length - 1;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                "games=%d  p1 wins=%d (%.2f%%)  p2 wins=%d (%.2f%%)  draws=%d%n" +
+                "shots to win: mean=%.2f  p50=%d  p90=%d  p99=%d%n" +
+                "%.1f games/sec (%.2fs)",
+                games, wins1, 100 * winRate1(), wins2, 100 * winRate2(), draws,
+                meanShotsToWin(), shotsToWinPercentile(0.50), shotsToWinPercentile(0.90),
+                shotsToWinPercentile(0.99), gamesPerSecond(), elapsedSeconds);
+        }
+    }
+
+    // What every game of a run shares: board size, fleet, players, seed and where results
+    // go. Setters chain like Match's; don't change a Settings while a run is using it.
+    public static final class Settings {
+        final int rows, cols;
+        final PlayerFactory f1, f2;
+        Fleet fleet = Fleet.standard();
+        long seed = 1L;
+        GameLog log;         // if not null, receives every game tagged with its game number
+        GameArchive archive; // if not null, gets one entry per game; workers append without locking
+        boolean salvo;
+
+        public Settings(int rows, int cols, PlayerFactory f1, PlayerFactory f2) {
+            this.rows = rows;
+            this.cols = cols;
+            this.f1 = f1;
+            this.f2 = f2;
+        }
+
+        public Settings fleet(Fleet fleet) { this.fleet = fleet; return this; }
+        public Settings seed(long seed) { this.seed = seed; return this; }
+        public Settings log(GameLog log) { this.log = log; return this; }
+        public Settings archive(GameArchive archive) { this.archive = archive; return this; }
+        public Settings salvo(boolean salvo) { this.salvo = salvo; return this; }
+    }
+
+    public static Report run(int games, Settings s, int threads) {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            long start = System.nanoTime();
+            Tally t = pool.invoke(new Batch(0, games, s));
+            return new Report(games, t, (System.nanoTime() - start) / 1e9);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    public static PlayerFactory factory(String spec) {
+        String[] parts = spec.split(":");
+        if (parts[0].equalsIgnoreCase("MONTECARLO")) {
+            long budget = parts.length > 1 ? Long.parseLong(parts[1]) : 10;
+            int samples = parts.length > 2 ? Integer.parseInt(parts[2]) : 10000;
+            return rnd -> new MonteCarloPlayer("MC", budget, samples, ForkJoinPool.commonPool(), rnd);
+        }
+        if (parts[0].equalsIgnoreCase("PROFILE")) {
+            AiParams params;
+            try {
+                params = AiParams.load(java.nio.file.Paths.get(spec.substring(parts[0].length() + 1)));
+            } catch (java.io.IOException e) {
+                throw new java.io.UncheckedIOException(e);
+            }
+            return rnd -> new ComputerPlayer("CPU", "PROFILE", params.newStrategy(rnd), rnd);
+        }
+        ComputerPlayer.Difficulty d = ComputerPlayer.Difficulty.valueOf(parts[0].toUpperCase());
+        if (parts.length > 1 && parts[1].equalsIgnoreCase("NOENDGAME"))
+            return rnd -> new ComputerPlayer("CPU", d + ":NOENDGAME", d.baseStrategy(rnd), rnd);
+        return rnd -> new ComputerPlayer("CPU", d, rnd);
+    }
+
+    public static void main(String[] args) throws java.io.IOException {
+        String logFile = null, archiveFile = null;
+        boolean salvo = false;
+        List<String> positional = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--log") && i + 1 < args.length) logFile = args[++i];
+            else if (args[i].equals("--archive") && i + 1 < args.length) archiveFile = args[++i];
+            else if (args[i].equals("--salvo")) salvo = true;
+            else positional.add(args[i]);
+        }
+        args = positional.toArray(new String[0]);
+
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int rows = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int cols = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+        String p1 = args.length > 3 ? args[3] : "HARD";
+        String p2 = args.length > 4 ? args[4] : "MEDIUM";
+        long seed = args.length > 5 ? Long.parseLong(args[5]) : 1L;
+        int threads = args.length > 6 ? Integer.parseInt(args[6]) : Runtime.getRuntime().availableProcessors();
+        Fleet fleet = args.length > 7 ? Fleet.parse(args[7]) : Fleet.standard();
+
+        System.out.printf("%s vs %s on %dx%d, %d games, seed %d, %d threads, fleet %s%s%n",
+                p1, p2, rows, cols, games, seed, threads, fleet, salvo ? ", salvo" : "");
+        GameLog log = logFile == null ? null : new GameLog(java.nio.file.Paths.get(logFile));
+        GameArchive archive = archiveFile == null ? null : new GameArchive(java.nio.file.Paths.get(archiveFile));
+        Report r;
+        try {
+            r = run(games, new Settings(rows, cols, factory(p1), factory(p2))
+                    .fleet(fleet).seed(seed).log(log).archive(archive).salvo(salvo), threads);
+        } finally {
+            if (log != null) log.close();
+            if (archive != null) archive.close();
+        }
+        if (log != null) System.out.println("games logged to " + logFile);
+        if (archive != null) System.out.println(archive.games() + " games in archive " + archiveFile);
+        System.out.println(r);
+        long exact = EndgameSolver.EXACT.sum(), over = EndgameSolver.OVER_BUDGET.sum();
+        if (exact + over > 0)
+            System.out.printf("endgame solver: %d moves searched exactly, %d searches over budget; solve time %s%n",
+                              exact, over, EndgameSolver.SOLVE_TIME.summary());
+    }
+
+    // SplitMix64 finalizer, turns (seed, game number) into an independent game seed
+    static long mix(long seed, long n) {
+        long z = seed + (n + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static final class Tally {
+        long wins1, wins2, draws;
+        long[] shotsToWin;
+
+        Tally(int maxShots) { shotsToWin = new long[maxShots + 1]; }
+
+        void add(Tally o) {
+            wins1 += o.wins1;
+            wins2 += o.wins2;
+            draws += o.draws;
+            for (int i = 0; i < shotsToWin.length; i++) shotsToWin[i] += o.shotsToWin[i];
+        }
+    }
+
+    private static final class Batch extends RecursiveTask<Tally> {
+        private static final long serialVersionUID = 1L;
+        private final int lo, hi;
+        private final Settings s;
+
+        Batch(int lo, int hi, Settings s) {
+            this.lo = lo;
+            this.hi = hi;
+            this.s = s;
+        }
+
+        @Override
+        protected Tally compute() {
+            if (hi - lo > CHUNK) {
+                int mid = (lo + hi) >>> 1;
+                Batch left = new Batch(lo, mid, s);
+                left.fork();
+                Tally t = new Batch(mid, hi, s).compute();
+                t.add(left.join());
+                return t;
+            }
+            Tally t = new Tally(2 * s.rows * s.cols);
+            for (int g = lo; g < hi; g++) {
+                long gameSeed = mix(s.seed, g);
+                Random rnd = new Random(gameSeed);
+                IPlayer p1 = s.f1.create(new Random(rnd.nextLong()));
+                IPlayer p2 = s.f2.create(new Random(rnd.nextLong()));
+                Match m = new Match(s.rows, s.cols, s.fleet, p1, p2).salvo(s.salvo);
+                if (s.log != null) m.logTo(s.log, g);
+                if (s.archive != null) m.archiveTo(s.archive, g, gameSeed);
+                // alternate who shoots first so neither side gets the first-move edge
+                int winner = m.play(g % 2 == 0);
+                if (winner == 1) { t.wins1++; t.shotsToWin[m.shots1()]++; }
+                else if (winner == 2) { t.wins2++; t.shotsToWin[m.shots2()]++; }
+                else t.draws++;
+            }
+            return t;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package battleship;
+
+// What a targeting AI has learned about the opponent's board from its own shots.
+// Cells are addressed by index (row * cols + col).
+final class TargetGrid {
+    static final byte UNKNOWN = 0;
+    static final byte MISS = 1;
+    static final byte HIT = 2;   // hit, but the ship it belongs to is still afloat
+    static final byte SUNK = 3;
+
+    private static final int[] NONE = new int[0];
+
+    final int rows;
+    final int cols;
+    private final byte[] state;
+    private final int[] remaining; // ships still afloat, indexed by length
+
+    // open hits, i.e. HIT cells not yet attributed to a sunk ship
+    private int[] openHits = new int[16];
+    private int openHitCount;
+
+    TargetGrid(int rows, int cols, Fleet fleet) {
+        this.rows = rows;
+        this.cols = cols;
+        this.state = new byte[rows * cols];
+        this.remaining = new int[fleet.maxSize() + 1];
+        for (Fleet.Entry e : fleet.entries()) remaining[e.size] += e.count;
+    }
+
+    byte state(int cell) { return state[cell]; }
+
+    int openHitCount() { return openHitCount; }
+    int openHit(int i) { return openHits[i]; }
+
+    int maxSize() { return remaining.length - 1; }
+
+    // ships of this length the opponent still has afloat
+    int remaining(int size) { return size < remaining.length ? remaining[size] : 0; }
+
+    // Records a shot result. Returns the cells of the ship it sank, or an empty array.
+    int[] record(int cell, FireResult res) {
+        if (res.alreadyTried || state[cell] != UNKNOWN) return NONE;
+        if (!res.hit) {
+            state[cell] = MISS;
+            return NONE;
+        }
+        state[cell] = HIT;
+        addOpenHit(cell);
+        if (!res.sunk) return NONE;
+
+        if (res.sunkSize < remaining.length && remaining[res.sunkSize] > 0) remaining[res.sunkSize]--;
+        int[] ship = sunkShip(cell, res.sunkSize);
+        for (int c : ship) {
+            state[c] = SUNK;
+            removeOpenHit(c);
+        }
+        return ship;
+    }
+
+    // The sinking shot only names the ship and its length, so pick the line of open hits through
+    // the cell that is long enough to be that ship. Falls back to the cell on its own.
+    private int[] sunkShip(int cell, int size) {
+        int r = cell / cols, c = cell % cols;
+        int hRun = run(cell, c, cols, 1), vRun = run(cell, r, rows, cols);
+        boolean horizontal;
+        if (hRun >= size && vRun >= size) horizontal = hRun == size || vRun != size;
+        else if (hRun >= size) horizontal = true;
+        else if (vRun >= size) horizontal = false;
+        else return new int[] { cell };
+
+        int pos = horizontal ? c : r, limit = horizontal ? cols : rows, step = horizontal ? 1 : cols;
+        int lo = pos, hi = pos;
+        while (lo > 0 && state[cell - (pos - lo + 1) * step] == HIT) lo--;
+        while (hi < limit - 1 && state[cell + (hi - pos + 1) * step] == HIT) hi++;
+        // the sinking shot usually closes off the end of the run it is nearest to
+        int start = pos - lo <= hi - pos ? lo : hi - size + 1;
+        start = Math.min(Math.max(start, pos - size + 1), pos);
+
+        int[] ship = new int[size];
+        for (int i = 0; i < size; i++) ship[i] = cell + (start + i - pos) * step;
+        return ship;
+    }
+
+    // length of the run of open hits through cell along one axis
+    private int run(int cell, int pos, int limit, int step) {
+        int n = 1;
+        for (int p = pos - 1, c = cell - step; p >= 0 && state[c] == HIT; p--, c -= step) n++;
+        for (int p = pos + 1, c = cell + step; p < limit && state[c] == HIT; p++, c += step) n++;
+        return n;
+    }
+
+    private void addOpenHit(int cell) {
+        if (openHitCount == openHits.length) openHits = java.util.Arrays.copyOf(openHits, openHitCount * 2);
+        openHits[openHitCount++] = cell;
+    }
+
+    private void removeOpenHit(int cell) {
+        for (int i = 0; i < openHitCount; i++) {
+            if (openHits[i] == cell) {
+                openHits[i] = openHits[--openHitCount];
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package battleship;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+// How a computer player picks its shots. ComputerPlayer drives one of these in both
+// the console and the Swing front ends, so an improvement here lands in both.
+// Implementations size themselves from the opponent board on the first call.
+public interface TargetingStrategy {
+    Pos nextTarget(Board opponentBoard);
+
+    // outcome of the shot last returned by nextTarget
+    default void informResult(Pos p, FireResult res) {}
+
+    // Whether ComputerPlayer may play OpeningBook shots instead of asking this strategy
+    // while nothing has been hit. Strategies that open by likelihood, not by a pattern
+    // or at random, say yes; the book shots still arrive through informResult.
+    default boolean openingBook() { return false; }
+
+    // Per-cell weights from a PlacementModel, given before the first move: how much
+    // likelier the opponent is to have a ship on each cell than a uniform placer, in
+    // units of PlacementModel.ONE. Returns whether the strategy makes use of them.
+    default boolean prior(int[] weights) { return false; }
+
+    // Salvo: up to shots distinct untried cells fired together, fewer only when fewer
+    // are left; the results then arrive through informResult in the same order. Each
+    // pick is marked on a scratch copy of the board so the next one skips it, which
+    // suits strategies that only read the board to skip cells already tried.
+    default List<Pos> nextVolley(Board opponentBoard, int shots) {
+        Board scratch = opponentBoard.copy();
+        int n = Math.min(shots, scratch.untried());
+        if (n == 0) throw new IllegalStateException("No untried cells left");
+        List<Pos> out = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            Pos p = nextTarget(scratch);
+            scratch.recordShot(scratch.cellIndex(p), false);
+            out.add(p);
+        }
+        return out;
+    }
+
+    // Cancellation point for the long searches. The GUI interrupts a move that overruns
+    // its budget; a strategy stopped here must be left as it was before the move.
+    static void checkCancelled() {
+        if (Thread.currentThread().isInterrupted()) throw new CancellationException("move cancelled");
+    }
+}
@@ -0,0 +1,309 @@
+package battleship;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.LongAdder;
+
+// Self-play tuner for AiParams. A separable CMA-ES style search proposes the candidates:
+// a mean and a step size per knob over the unit box, both pulled each generation towards
+// the better half of the candidates. A candidate's cost is the mean number of shots it
+// needs to sink the fleet, and every candidate plays the same boards, so two candidates
+// are compared game by game on identical layouts.
+//
+// Two things keep a run short. Candidates are raced: a generation plays in rounds of
+// doubling size, and after each round a candidate that trails the leader by more than
+// DROP standard errors of their paired difference stops playing. And results are cached
+// per distinct AiParams, shared by every generation: integer knobs and rounded exponents
+// make repeats common, and the best candidate so far comes back every generation, so no
+// parameters ever play the same board twice. The run ends after the given number of
+// generations, or sooner once the best has not changed for PATIENCE generations or the
+// step sizes have collapsed.
+//
+//   java battleship.Tuner [HUNT|DENSITY] [rows] [cols] [generations] [threads] [profile] [fleet]
+//
+// The best parameters go to the profile file (default tuned.profile), which Simulator
+// plays as PROFILE:<file>. A closing head-to-head against the family's preset shows the
+// gain in actual games.
+public final class Tuner {
+    private static final int LAMBDA = 12;          // candidates per generation
+    private static final int FIRST_ROUND = 128;    // games per candidate in the first round
+    private static final int MAX_GAMES = 4096;     // games per candidate at most
+    private static final double DROP = 2.5;
+    private static final int PATIENCE = 6;
+    private static final double START_STEP = 0.3;
+    private static final double MIN_STEP = 0.02;
+    private static final double LEARNING_RATE = 0.3; // weight of a generation in the step sizes
+    private static final int CHUNK = 32;           // games per pool task
+    private static final long BOARD_SEED = 0x5EED;
+
+    // one searched knob: x in [0, 1] maps onto [lo, hi] in multiples of step
+    private static final class Knob {
+        final String name;
+        final double lo, hi, step;
+
+        Knob(String name, double lo, double hi, double step) {
+            this.name = name;
+            this.lo = lo;
+            this.hi = hi;
+            this.step = step;
+        }
+
+        double value(double x) {
+            double v = lo + Math.round(Math.min(1, Math.max(0, x)) * (hi - lo) / step) * step;
+            return Math.round(v * 100) / 100.0;
+        }
+
+        double position(double v) { return (v - lo) / (hi - lo); }
+    }
+
+    // games a set of parameters has played, on boards 0..n-1
+    private static final class Results {
+        final int[] shots = new int[MAX_GAMES];
+        int n;
+
+        double mean(int games) {
+            long sum = 0;
+            for (int g = 0; g < games; g++) sum += shots[g];
+            return (double) sum / games;
+        }
+    }
+
+    private final AiParams.Family family;
+    private final Knob[] knobs;
+    private final int rows;
+    private final int cols;
+    private final Fleet fleet;
+    private final ForkJoinPool pool;
+    private final Map<AiParams, Results> cache = new ConcurrentHashMap<>();
+    private final LongAdder played = new LongAdder();
+    private final LongAdder reused = new LongAdder();
+
+    Tuner(AiParams.Family family, int rows, int cols, Fleet fleet, ForkJoinPool pool) {
+        this.family = family;
+        this.rows = rows;
+        this.cols = cols;
+        this.fleet = fleet;
+        this.pool = pool;
+        this.knobs = family == AiParams.Family.HUNT
+            ? new Knob[] {
+                new Knob("paritySpacing", 1, 4, 1),
+                new Knob("adaptiveParity", 0, 1, 1),
+                new Knob("neighbourOrder", 0, 23, 1),
+                new Knob("followLine", 0, 1, 1),
+                new Knob("endgameLayouts", 0, 32, 1) }
+            : new Knob[] {
+                new Knob("hitExponent", 0, 4, 0.05),
+                new Knob("lengthExponent", -1, 2, 0.05),
+                new Knob("endgameLayouts", 0, 32, 1) };
+    }
+
+    AiParams decode(double[] x) {
+        AiParams d = AiParams.preset(family);
+        Map<String, Double> v = new HashMap<>();
+        for (int i = 0; i < knobs.length; i++) v.put(knobs[i].name, knobs[i].value(x[i]));
+        return new AiParams(family,
+                            (int) (double) v.getOrDefault("paritySpacing", (double) d.paritySpacing),
+                            v.getOrDefault("adaptiveParity", d.adaptiveParity ? 1.0 : 0.0) > 0.5,
+                            (int) (double) v.getOrDefault("neighbourOrder", (double) d.neighbourOrder),
+                            v.getOrDefault("followLine", d.followLine ? 1.0 : 0.0) > 0.5,
+                            v.getOrDefault("hitExponent", d.hitExponent),
+                            v.getOrDefault("lengthExponent", d.lengthExponent),
+                            (int) (double) v.getOrDefault("endgameLayouts", (double) d.endgameLayouts));
+    }
+
+    double[] encode(AiParams p) {
+        double[] x = new double[knobs.length];
+        for (int i = 0; i < knobs.length; i++) {
+            double v = switch (knobs[i].name) {
+                case "paritySpacing" -> p.paritySpacing;
+                case "adaptiveParity" -> p.adaptiveParity ? 1 : 0;
+                case "neighbourOrder" -> p.neighbourOrder;
+                case "followLine" -> p.followLine ? 1 : 0;
+                case "hitExponent" -> p.hitExponent;
+                case "lengthExponent" -> p.lengthExponent;
+                default -> p.endgameLayouts;
+            };
+            x[i] = knobs[i].position(v);
+        }
+        return x;
+    }
+
+    // Runs the search from the family's preset and returns the best parameters found.
+    AiParams tune(int generations, Random rnd) {
+        int d = knobs.length, mu = LAMBDA / 2;
+        double[] weights = new double[mu];
+        double total = 0;
+        for (int j = 0; j < mu; j++) total += weights[j] = Math.log(mu + 0.5) - Math.log(j + 1);
+        for (int j = 0; j < mu; j++) weights[j] /= total;
+
+        AiParams preset = AiParams.preset(family), best = preset;
+        double[] mean = encode(preset), step = new double[d];
+        Arrays.fill(step, START_STEP);
+        int stale = 0;
+        for (int gen = 1; gen <= generations && stale < PATIENCE; gen++) {
+            long start = System.nanoTime(), before = played.sum();
+            double[][] xs = new double[LAMBDA][d];
+            List<AiParams> candidates = new ArrayList<>();
+            for (int k = 0; k < LAMBDA; k++) {
+                for (int i = 0; i < d; i++) xs[k][i] = Math.min(1, Math.max(0, mean[i] + step[i] * rnd.nextGaussian()));
+                candidates.add(decode(xs[k]));
+            }
+            List<AiParams> ranked = race(candidates, best);
+
+            AiParams leader = ranked.get(0);
+            if (leader.equals(best)) {
+                stale++;
+            } else {
+                best = leader;
+                stale = 0;
+            }
+
+            // recombine the better half, ranked by cost
+            Integer[] order = new Integer[LAMBDA];
+            for (int k = 0; k < LAMBDA; k++) order[k] = k;
+            Arrays.sort(order, Comparator.comparingInt(k -> ranked.indexOf(candidates.get(k))));
+            double[] next = new double[d];
+            for (int j = 0; j < mu; j++)
+                for (int i = 0; i < d; i++) next[i] += weights[j] * xs[order[j]][i];
+            boolean moving = false;
+            for (int i = 0; i < d; i++) {
+                double spread = 0;
+                for (int j = 0; j < mu; j++) spread += weights[j] * Math.pow(xs[order[j]][i] - mean[i], 2);
+                step[i] = Math.max(MIN_STEP, Math.sqrt((1 - LEARNING_RATE) * step[i] * step[i] + LEARNING_RATE * spread));
+                moving |= step[i] > MIN_STEP;
+            }
+            mean = next;
+
+            Results r = cache.get(best);
+            System.out.printf("gen %d: best %.3f shots over %d boards, %d games played (%.1fs)  %s%n", gen,
+                              r.mean(r.n), r.n, played.sum() - before, (System.nanoTime() - start) / 1e9, summary(best));
+            if (!moving) break;
+        }
+        return best;
+    }
+
+    // Plays the candidates and the incumbent in rounds until one leads clearly or all have
+    // played MAX_GAMES, dropping the clearly worse after every round. Returns the distinct
+    // parameters, best first: the survivors by mean, then the dropped by mean.
+    List<AiParams> race(List<AiParams> candidates, AiParams incumbent) {
+        List<AiParams> alive = new ArrayList<>(new LinkedHashSet<>(candidates));
+        if (!alive.contains(incumbent)) alive.add(incumbent);
+        for (AiParams p : alive) {
+            Results r = cache.get(p);
+            if (r != null) reused.add(r.n);
+        }
+        List<AiParams> dropped = new ArrayList<>();
+        Map<AiParams, Integer> games = new HashMap<>();
+        for (int target = FIRST_ROUND; ; target = Math.min(2 * target, MAX_GAMES)) {
+            play(alive, target);
+            for (AiParams p : alive) games.put(p, target);
+            int t = target;
+            AiParams leader = Collections.min(alive, Comparator.comparingDouble(p -> cache.get(p).mean(t)));
+            for (Iterator<AiParams> it = alive.iterator(); it.hasNext(); ) {
+                AiParams p = it.next();
+                if (p != leader && behind(cache.get(p), cache.get(leader), target) > DROP) {
+                    dropped.add(p);
+                    it.remove();
+                }
+            }
+            if (alive.size() == 1 || target == MAX_GAMES) break;
+        }
+        Comparator<AiParams> byMean = Comparator.comparingDouble(p -> cache.get(p).mean(games.get(p)));
+        alive.sort(byMean);
+        dropped.sort(byMean);
+        alive.addAll(dropped);
+        return alive;
+    }
+
+    // how many standard errors a trails b by over the first n boards
+    private static double behind(Results a, Results b, int n) {
+        double sum = 0, sumSq = 0;
+        for (int g = 0; g < n; g++) {
+            double diff = a.shots[g] - b.shots[g];
+            sum += diff;
+            sumSq += diff * diff;
+        }
+        double mean = sum / n, var = (sumSq - n * mean * mean) / (n - 1);
+        return var <= 0 ? (mean > 0 ? Double.POSITIVE_INFINITY : 0) : mean / Math.sqrt(var / n);
+    }
+
+    // brings every parameter set up to games boards, in parallel
+    private void play(List<AiParams> params, int games) {
+        List<ForkJoinTask<?>> jobs = new ArrayList<>();
+        for (AiParams p : params) {
+            Results r = cache.computeIfAbsent(p, k -> new Results());
+            for (int lo = r.n; lo < games; lo += CHUNK) {
+                int from = lo, to = Math.min(games, lo + CHUNK);
+                jobs.add(pool.submit(() -> {
+                    for (int g = from; g < to; g++) r.shots[g] = shotsToSink(p, g);
+                }));
+            }
+            if (r.n < games) played.add(games - r.n);
+            r.n = Math.max(r.n, games);
+        }
+        for (ForkJoinTask<?> job : jobs) job.join();
+    }
+
+    // shots the parameters need to sink the fleet on board g
+    int shotsToSink(AiParams p, int g) {
+        long seed = Simulator.mix(BOARD_SEED, g);
+        Board board = new Board(rows, cols, fleet);
+        FleetPlacer.place(board, new Random(seed));
+        Random rnd = new Random(~seed);
+        ComputerPlayer cpu = new ComputerPlayer("Tuner", family.name(), p.newStrategy(rnd), rnd);
+        int shots = 0;
+        while (!board.allShipsSunk()) {
+            Pos q = cpu.makeMove(board);
+            cpu.informResult(q, board.fireAt(q));
+            shots++;
+        }
+        return shots;
+    }
+
+    private String summary(AiParams p) {
+        StringJoiner j = new StringJoiner(" ");
+        for (String line : p.toString().split("\n"))
+            for (Knob k : knobs)
+                if (line.startsWith(k.name + "=")) j.add(line);
+        return j.toString();
+    }
+
+    public static void main(String[] args) throws IOException {
+        AiParams.Family family = AiParams.Family.valueOf(args.length > 0 ? args[0].toUpperCase() : "HUNT");
+        int rows = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int cols = args.length > 2 ? Integer.parseInt(args[2]) : rows;
+        int generations = args.length > 3 ? Integer.parseInt(args[3]) : 30;
+        int threads = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+        Path profile = Paths.get(args.length > 5 ? args[5] : "tuned.profile");
+        Fleet fleet = args.length > 6 ? Fleet.parse(args[6]) : Fleet.standard();
+
+        System.out.printf("tuning %s on %dx%d, fleet %s, %d threads%n", family, rows, cols, fleet, threads);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            long start = System.nanoTime();
+            Tuner tuner = new Tuner(family, rows, cols, fleet, pool);
+            AiParams best = tuner.tune(generations, new Random(1));
+            AiParams preset = AiParams.preset(family);
+            tuner.play(List.of(best, preset), MAX_GAMES);
+            double tuned = tuner.cache.get(best).mean(MAX_GAMES), base = tuner.cache.get(preset).mean(MAX_GAMES);
+            System.out.printf("done in %.1fs: %d games played, %d found in the cache%n",
+                              (System.nanoTime() - start) / 1e9, tuner.played.sum(), tuner.reused.sum());
+            best.store(profile, String.format("Tuner %s on %dx%d %s: %.3f shots to sink the fleet (preset %.3f) over %d boards",
+                                              family, rows, cols, fleet, tuned, base, MAX_GAMES));
+            System.out.printf("%.3f shots (preset %.3f), profile written to %s%n", tuned, base, profile);
+
+            Simulator.PlayerFactory mine = rnd -> new ComputerPlayer("CPU", "PROFILE", best.newStrategy(rnd), rnd);
+            Simulator.PlayerFactory theirs = rnd -> new ComputerPlayer("CPU", family.name(), preset.newStrategy(rnd), rnd);
+            System.out.println("head-to-head, tuned vs preset:");
+            System.out.println(Simulator.run(MAX_GAMES,
+                    new Simulator.Settings(rows, cols, mine, theirs).fleet(fleet).seed(7), threads));
+        } finally {
+            pool.shutdown();
+        }
+    }
+}